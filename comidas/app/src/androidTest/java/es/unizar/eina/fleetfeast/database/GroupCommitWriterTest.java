@@ -0,0 +1,141 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prueba del commit en grupo de {@link GroupCommitWriter}: una escritura que
+ * falla dentro de un lote deshace la transacción, pero las demás escrituras
+ * del lote se repiten una a una y se confirman.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@RunWith(AndroidJUnit4.class)
+public class GroupCommitWriterTest {
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final int WRITES = 10;
+
+    private FleetfeastRoomDatabase mDb;
+    private GroupCommitWriter mWriter;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, FleetfeastRoomDatabase.class).build();
+        mWriter = new GroupCommitWriter(mDb);
+    }
+
+    @After
+    public void tearDown() {
+        mDb.close();
+    }
+
+    @Test
+    public void failingWriteDoesNotLoseTheRestOfTheBatch() throws Exception {
+        assertFailureIsIsolated(new IllegalStateException("fallo de prueba"));
+    }
+
+    @Test
+    public void errorDoesNotKillTheWriterThread() throws Exception {
+        assertFailureIsIsolated(new AssertionError("error de prueba"));
+
+        // El hilo escritor sigue vivo después del error.
+        long id = mWriter.submit("test.after", () -> mDb.plateDao().insert(plate("después")))
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(mDb.plateDao().getPlateById((int) id));
+    }
+
+    /**
+     * Encola {@link #WRITES} inserciones y, entre ellas, una escritura que
+     * lanza failure, todas en el mismo lote.
+     */
+    private void assertFailureIsIsolated(Throwable failure) throws Exception {
+        // Una primera escritura ocupa al hilo escritor mientras se encola el
+        // resto, de modo que todo lo demás entra en el lote siguiente.
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = mWriter.submit("test.block", () -> {
+            started.countDown();
+            try {
+                release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        List<CompletableFuture<Long>> inserts = new ArrayList<>(WRITES);
+        CompletableFuture<Long> failing = null;
+        for (int i = 0; i < WRITES; i++) {
+            Plate plate = plate("plato " + i);
+            inserts.add(mWriter.submit("test.insert", () -> mDb.plateDao().insert(plate)));
+            if (i == WRITES / 2) {
+                failing = mWriter.submit("test.fail", () -> {
+                    mDb.plateDao().insert(plate("deshecho"));
+                    throwUnchecked(failure);
+                    return -1L;
+                });
+            }
+        }
+        mWriter.reset();
+        release.countDown();
+        blocker.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        for (CompletableFuture<Long> insert : inserts) {
+            long id = insert.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull(mDb.plateDao().getPlateById((int) id));
+        }
+        try {
+            failing.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("la escritura debería haber fallado");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+
+        // Solo quedan las inserciones buenas: lo que escribió la que falla se deshizo.
+        assertEquals(WRITES, countPlates());
+        assertEquals(1, mWriter.getRetries());
+        assertEquals(2, mWriter.getRollbacks());
+        // El reset se hace mientras la primera escritura sigue en su transacción.
+        assertEquals(WRITES + 1, mWriter.getWrites());
+        mDb.plateDao().deleteAll();
+    }
+
+    private int countPlates() {
+        try (Cursor cursor = mDb.query("SELECT COUNT(*) FROM plate", null)) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+
+    private static Plate plate(String name) {
+        return new Plate(name, "descripción", "PRIMERO", 500);
+    }
+
+    private static void throwUnchecked(Throwable failure) {
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw (RuntimeException) failure;
+    }
+}
@@ -0,0 +1,55 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.app.Application;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prueba de carga de los repositorios con pocos datos y una mezcla de
+ * inserciones, modificaciones y lecturas desde varios hilos.
+ *
+ * Usa la base de datos de la aplicación y borra su contenido.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@RunWith(AndroidJUnit4.class)
+public class LoadHarnessTest {
+    private static final String TAG = "LoadHarnessTest";
+
+    @Test
+    public void mixedLoad() {
+        Application application = ApplicationProvider.getApplicationContext();
+        LoadHarness harness = new LoadHarness(new PlateRepository(application),
+                new OrdersRepository(application), new OrderDetailsRepository(application));
+
+        LoadHarness.Report report = harness.run(new LoadHarness.Config()
+                .plates(20)
+                .orders(200)
+                .operations(400)
+                .threads(4)
+                .mix(1, 1, 2));
+        Log.i(TAG, report.toString());
+
+        assertEquals(0, report.getErrors());
+        assertEquals(400, report.getOperations());
+        assertTrue(report.getInserts().getCount() > 0);
+        assertTrue(report.getUpdates().getCount() > 0);
+        assertTrue(report.getReads().getCount() > 0);
+        assertTrue(report.getReads().getPercentile(50) <= report.getReads().getPercentile(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyMenuIsRejected() {
+        Application application = ApplicationProvider.getApplicationContext();
+        new LoadHarness(new PlateRepository(application), new OrdersRepository(application),
+                new OrderDetailsRepository(application)).run(new LoadHarness.Config().plates(0));
+    }
+}
@@ -0,0 +1,254 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prueba de la migración de la base de datos desde la versión 3 hasta la
+ * actual sobre una base de datos con 100.000 pedidos, midiendo el tiempo de
+ * actualización.
+ *
+ * La base de datos de la versión 3 se crea a mano con el mismo esquema que
+ * generaba Room, ya que el esquema no se exporta.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String TAG = "MigrationTest";
+    private static final String TEST_DB = "migration-test";
+    private static final int ORDERS = 100000;
+    private static final int PLATES = 50;
+    private static final int LINES_PER_ORDER = 3;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mContext.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        mContext.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migrateFrom3() {
+        createVersion3();
+
+        FleetfeastRoomDatabase db = Room.databaseBuilder(mContext,
+                        FleetfeastRoomDatabase.class, TEST_DB)
+                .addMigrations(FleetfeastRoomDatabase.MIGRATION_3_4)
+                .addMigrations(FleetfeastRoomDatabase.MIGRATION_4_5)
+                .addMigrations(FleetfeastRoomDatabase.MIGRATION_5_6)
+                .addMigrations(FleetfeastRoomDatabase.MIGRATION_6_7)
+                .addMigrations(FleetfeastRoomDatabase.MIGRATION_7_8)
+                .addMigrations(FleetfeastRoomDatabase.MIGRATION_8_9)
+                .addMigrations(FleetfeastRoomDatabase.MIGRATION_9_10)
+                .build();
+
+        long start = SystemClock.elapsedRealtime();
+        // Al abrir la base de datos Room ejecuta la migración y valida el esquema.
+        SupportSQLiteDatabase migrated = db.getOpenHelper().getWritableDatabase();
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        Log.i(TAG, "Migración 3 -> " + migrated.getVersion() + " con " + ORDERS + " pedidos: " + elapsed + " ms");
+
+        assertEquals(10, migrated.getVersion());
+        assertEquals(ORDERS, count(migrated, "orders"));
+        assertEquals(ORDERS * LINES_PER_ORDER, count(migrated, "orderDetails"));
+        assertEquals(PLATES, count(migrated, "plate"));
+
+        List<String> indexes = indexes(migrated);
+        assertTrue(indexes.contains("index_orders_state_pickupMinutes"));
+        assertTrue(indexes.contains("index_orders_pickupMinutes"));
+        assertTrue(indexes.contains("index_orders_name"));
+        assertTrue(indexes.contains("index_orders_phone"));
+        assertTrue(indexes.contains("index_orders_total_cents"));
+        assertTrue(indexes.contains("index_orderDetails_plateId"));
+        assertFalse(indexes.contains("index_plate_category_name"));
+        assertTrue(indexes.contains("index_orders_customerId_pickupMinutes"));
+        assertTrue(indexes.contains("index_customer_phone"));
+
+        // Los precios pasan a céntimos sin perder ninguno.
+        try (Cursor cursor = migrated.query("SELECT SUM(prizeCents) FROM orderDetails")) {
+            cursor.moveToFirst();
+            assertEquals(150L * ORDERS * LINES_PER_ORDER, cursor.getLong(0));
+        }
+        assertEquals(1000, db.plateDao().getPlateById(10).getPrizeCents());
+
+        // Las fechas en texto pasan a minutos en la hora local, igual que PickupTime.
+        try (Cursor cursor = migrated.query("SELECT pickupMinutes FROM orders WHERE id = 1")) {
+            cursor.moveToFirst();
+            assertEquals(PickupTime.parse("2024/02/02  20:01"), cursor.getLong(0));
+        }
+        try (Cursor cursor = migrated.query("SELECT COUNT(*) FROM orders WHERE pickupMinutes <= 0")) {
+            cursor.moveToFirst();
+            assertEquals(0, cursor.getLong(0));
+        }
+
+        // Los totales de los pedidos migrados coinciden con la suma de sus líneas.
+        try (Cursor cursor = migrated.query("SELECT SUM(total_cents), SUM(line_count) FROM orders")) {
+            cursor.moveToFirst();
+            assertEquals(150L * ORDERS * LINES_PER_ORDER, cursor.getLong(0));
+            assertEquals((long) ORDERS * LINES_PER_ORDER, cursor.getLong(1));
+        }
+
+        // El índice de texto completo tiene los platos migrados y sigue a los nuevos.
+        assertEquals(PLATES, countMatches(migrated, PlateSearch.toMatchQuery("plato")));
+        assertEquals(1, countMatches(migrated, PlateSearch.toMatchQuery("descripcion 10")));
+        Plate plate = new Plate("Puré de calabaza", "Con picatostes", "PRIMERO", 500);
+        plate.setId((int) db.plateDao().insert(plate));
+        assertEquals(1, countMatches(migrated, PlateSearch.toMatchQuery("pure cala")));
+        Plate renamed = new Plate("Crema de calabaza", "Con picatostes", "PRIMERO", 500);
+        renamed.setId(plate.getId());
+        db.plateDao().update(renamed);
+        assertEquals(0, countMatches(migrated, PlateSearch.toMatchQuery("pure cala")));
+        db.plateDao().delete(renamed);
+        assertEquals(0, countMatches(migrated, PlateSearch.toMatchQuery("cala")));
+
+        // Cada pedido migrado queda enlazado con el cliente de su teléfono.
+        assertEquals(ORDERS, count(migrated, "customer"));
+        try (Cursor cursor = migrated.query("SELECT COUNT(*) FROM orders o JOIN customer c " +
+                "ON c.id = o.customerId AND c.phone = o.phone")) {
+            cursor.moveToFirst();
+            assertEquals(ORDERS, cursor.getLong(0));
+        }
+
+        // Los nuevos pedidos siguen numerándose después de los migrados.
+        long id = db.ordersDao().insert(new Orders("Nuevo", 600000000L, PickupTime.parse("2030/01/01  20:00"), "SOLICITADO"));
+        assertEquals(ORDERS + 1, id);
+
+        // Los pedidos nuevos se enlazan con su cliente, que toma el último nombre.
+        Customer customer = db.customerDao().getCustomerByPhone(600000000L);
+        assertNotNull(customer);
+        assertEquals(customer.getId(), (long) db.ordersDao().getOrderById(id).getCustomerId());
+        long again = db.ordersDao().insert(new Orders("Nuevo Apellido", 600000000L, PickupTime.parse("2030/01/02  20:00"), "SOLICITADO"));
+        assertEquals(customer.getId(), (long) db.ordersDao().getOrderById(again).getCustomerId());
+        assertEquals("Nuevo Apellido", db.customerDao().getCustomerByPhone(600000000L).getName());
+        assertEquals(ORDERS + 1, db.customerDao().count());
+
+        // Los triggers mantienen el total al añadir, modificar y quitar líneas.
+        OrderDetails line = new OrderDetails(id, 1, 2, 250);
+        db.orderDetDao().insert(line);
+        assertTotal(migrated, id, 500, 1);
+        line.setQuantity(3);
+        db.orderDetDao().update(line);
+        assertTotal(migrated, id, 750, 1);
+        db.orderDetDao().delete(line);
+        assertTotal(migrated, id, 0, 0);
+
+        db.close();
+    }
+
+    /**
+     * Comprueba el total y el número de líneas guardados en un pedido.
+     */
+    private static void assertTotal(SupportSQLiteDatabase db, long orderId, long totalCents, int lineCount) {
+        try (Cursor cursor = db.query("SELECT total_cents, line_count FROM orders WHERE id = " + orderId)) {
+            cursor.moveToFirst();
+            assertEquals(totalCents, cursor.getLong(0));
+            assertEquals(lineCount, cursor.getInt(1));
+        }
+    }
+
+    /**
+     * Crea la base de datos de prueba con el esquema de la versión 3 y la llena.
+     */
+    private void createVersion3() {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(
+                mContext.getDatabasePath(TEST_DB), null);
+        db.execSQL("CREATE TABLE IF NOT EXISTS `orders` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`name` TEXT NOT NULL, `phone` INTEGER NOT NULL, `date` TEXT NOT NULL, `state` TEXT NOT NULL)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS `plate` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`name` TEXT NOT NULL, `description` TEXT, `category` TEXT NOT NULL, `prize` REAL NOT NULL)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS `orderDetails` (`orderId` INTEGER NOT NULL, " +
+                "`plateId` INTEGER NOT NULL, `quantity` INTEGER NOT NULL, `prize` REAL NOT NULL, " +
+                "PRIMARY KEY(`orderId`, `plateId`))");
+
+        String[] categories = {"PRIMERO", "SEGUNDO", "POSTRE"};
+        String[] states = {"SOLICITADO", "PREPARADO", "RECOGIDO"};
+        db.beginTransaction();
+        try {
+            SQLiteStatement plate = db.compileStatement(
+                    "INSERT INTO plate (name, description, category, prize) VALUES (?, ?, ?, ?)");
+            for (int i = 1; i <= PLATES; i++) {
+                plate.bindString(1, "Plato " + i);
+                plate.bindString(2, "Descripción " + i);
+                plate.bindString(3, categories[i % categories.length]);
+                plate.bindDouble(4, i);
+                plate.executeInsert();
+            }
+
+            SQLiteStatement order = db.compileStatement(
+                    "INSERT INTO orders (name, phone, date, state) VALUES (?, ?, ?, ?)");
+            SQLiteStatement line = db.compileStatement(
+                    "INSERT INTO orderDetails (orderId, plateId, quantity, prize) VALUES (?, ?, ?, ?)");
+            for (int i = 1; i <= ORDERS; i++) {
+                order.bindString(1, "Cliente " + i);
+                order.bindLong(2, 600000000L + i);
+                order.bindString(3, String.format("2024/%02d/%02d  20:%02d", i % 12 + 1, i % 28 + 1, i % 60));
+                order.bindString(4, states[i % states.length]);
+                long orderId = order.executeInsert();
+                for (int j = 0; j < LINES_PER_ORDER; j++) {
+                    line.bindLong(1, orderId);
+                    line.bindLong(2, (i + j) % PLATES + 1);
+                    line.bindLong(3, j + 1);
+                    line.bindDouble(4, 1.5);
+                    line.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        db.setVersion(3);
+        db.close();
+    }
+
+    private static long countMatches(SupportSQLiteDatabase db, String match) {
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM plate_fts WHERE plate_fts MATCH ?",
+                new Object[]{match})) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+
+    private static long count(SupportSQLiteDatabase db, String table) {
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM `" + table + "`")) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+
+    private static List<String> indexes(SupportSQLiteDatabase db) {
+        List<String> names = new ArrayList<>();
+        try (Cursor cursor = db.query("SELECT name FROM sqlite_master WHERE type = 'index'")) {
+            while (cursor.moveToNext()) {
+                names.add(cursor.getString(0));
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,39 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de escribir una lista de pedidos o de platos: el valor de la
+ * escritura de los que son válidos y los errores de los que no se escribieron,
+ * por su posición en la lista recibida.
+ *
+ * @param <T> Tipo del valor de la escritura.
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public final class BatchResult<T> {
+    private final T mValue;
+    private final Map<Integer, List<Validation.FieldError>> mErrors;
+
+    BatchResult(T value, Map<Integer, List<Validation.FieldError>> errors) {
+        mValue = value;
+        mErrors = errors;
+    }
+
+    /** @return El valor de la escritura de las entidades válidas. */
+    public T getValue() {
+        return mValue;
+    }
+
+    /** @return Los errores de cada entidad no escrita, por su posición; un mapa
+     * vacío si todas eran válidas. */
+    public Map<Integer, List<Validation.FieldError>> getErrors() {
+        return mErrors;
+    }
+
+    /** @return true si todas las entidades eran válidas. */
+    public boolean isValid() {
+        return mErrors.isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Datos de prueba para los benchmarks de la aplicación completa.
+ *
+ * Sustituye el contenido de la base de datos por una carta y unos pedidos
+ * generados, en una única transacción. Solo se usa en la variante benchmark,
+ * a petición del módulo macrobenchmark (ver MainActivity).
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public final class BenchmarkData {
+    private static final int LINES_PER_ORDER = 3;
+    private static final String[] CATEGORIES = {"PRIMERO", "SEGUNDO", "POSTRE"};
+    private static final String[] STATES = {"SOLICITADO", "PREPARADO", "RECOGIDO"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Borra la base de datos y la llena con platos y pedidos generados.
+     *
+     * @param context El contexto de la aplicación.
+     * @param plates  El número de platos.
+     * @param orders  El número de pedidos; cada uno tiene tres líneas.
+     * @return un futuro que se completa cuando los datos están escritos.
+     */
+    public static CompletableFuture<Void> seed(Context context, int plates, int orders) {
+        FleetfeastRoomDatabase db = FleetfeastRoomDatabase.getDatabase(context);
+        return FleetfeastRoomDatabase.writeAsync("BenchmarkData.seed", () -> {
+            db.runInTransaction(() -> {
+                db.orderDetDao().deleteAll();
+                db.ordersDao().deleteAll();
+                db.plateDao().deleteAll();
+
+                List<Plate> menu = new ArrayList<>(plates);
+                for (int i = 1; i <= plates; i++) {
+                    menu.add(new Plate("Plato " + i, "Descripción del plato " + i,
+                            CATEGORIES[i % CATEGORIES.length], 300 + (i % 20) * 50L));
+                }
+                List<Long> plateIds = db.plateDao().insertList(menu);
+
+                long firstPickup = PickupTime.startOfTomorrow() + 20 * 60;
+                List<Orders> list = new ArrayList<>(orders);
+                for (int i = 1; i <= orders; i++) {
+                    list.add(new Orders("Cliente " + i, 600000000L + i,
+                            firstPickup + (i % 180), STATES[i % STATES.length]));
+                }
+                List<Long> orderIds = db.ordersDao().insertList(list);
+
+                List<OrderDetails> lines = new ArrayList<>(orders * LINES_PER_ORDER);
+                for (int i = 0; i < orderIds.size(); i++) {
+                    for (int j = 0; j < LINES_PER_ORDER && j < plateIds.size(); j++) {
+                        Plate plate = menu.get((i + j) % plates);
+                        lines.add(new OrderDetails(orderIds.get(i),
+                                plateIds.get((i + j) % plates).intValue(), j + 1, plate.getPrizeCents()));
+                    }
+                }
+                db.orderDetDao().insertList(lines);
+            });
+            return null;
+        });
+    }
+}
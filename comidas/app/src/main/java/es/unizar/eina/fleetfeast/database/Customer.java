@@ -0,0 +1,86 @@
+package es.unizar.eina.fleetfeast.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Clase anotada como entidad que representa un cliente, identificado por su
+ * teléfono.
+ *
+ * Cada pedido guarda el nombre y el teléfono con los que se hizo y, además,
+ * el cliente al que pertenece (orders.customerId). Los clientes no se escriben
+ * desde la aplicación: los crean y los enlazan con sus pedidos los triggers
+ * de orders (ver {@link FleetfeastRoomDatabase#createCustomerTriggers}), y el
+ * nombre del cliente es el del último pedido que se ha guardado con su
+ * teléfono.
+ *
+ * El índice único sobre el teléfono hace que buscar un cliente desde el
+ * formulario del pedido sea una búsqueda en el índice.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@Entity(tableName = "customer", indices = {@Index(value = {"phone"}, unique = true)})
+public class Customer {
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "id")
+    private long id;
+
+    @ColumnInfo(name = "phone")
+    private long phone;
+
+    @NonNull
+    @ColumnInfo(name = "name", collate = ColumnInfo.NOCASE)
+    private String name;
+
+    /**
+     * Constructor de la clase Customer.
+     *
+     * @param phone El teléfono del cliente.
+     * @param name  El nombre del cliente.
+     */
+    public Customer(long phone, @NonNull String name) {
+        this.phone = phone;
+        this.name = name;
+    }
+
+    /**
+     * Obtiene el identificador del cliente.
+     *
+     * @return El identificador del cliente.
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Permite actualizar el identificador del cliente.
+     *
+     * @param id El nuevo identificador del cliente.
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Obtiene el teléfono del cliente.
+     *
+     * @return El teléfono del cliente.
+     */
+    public long getPhone() {
+        return this.phone;
+    }
+
+    /**
+     * Obtiene el nombre del cliente.
+     *
+     * @return El nombre del último pedido del cliente.
+     */
+    @NonNull
+    public String getName() {
+        return this.name;
+    }
+}
@@ -0,0 +1,68 @@
+package es.unizar.eina.fleetfeast.database;
+
+import androidx.lifecycle.LiveData;
+import androidx.paging.DataSource;
+import androidx.room.Dao;
+import androidx.room.Query;
+
+/**
+ * Definición de un Data Access Object para los clientes.
+ *
+ * Los clientes solo se leen: los triggers de orders los crean y los enlazan
+ * con sus pedidos (ver {@link FleetfeastRoomDatabase#createCustomerTriggers}).
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@Dao
+public interface CustomerDao {
+
+    /**
+     * Obtiene un cliente a partir de su teléfono, con el índice único del teléfono.
+     *
+     * @param phone El teléfono del cliente.
+     * @return El cliente, o null si no existe.
+     */
+    @Query("SELECT * FROM customer WHERE phone = :phone")
+    Customer getCustomerByPhone(long phone);
+
+    /**
+     * Obtiene un cliente a partir de su identificador.
+     *
+     * @param id El identificador del cliente.
+     * @return El cliente, o null si no existe.
+     */
+    @Query("SELECT * FROM customer WHERE id = :id")
+    Customer getCustomerById(long id);
+
+    /**
+     * Obtiene por páginas los pedidos de un cliente, del más reciente al más
+     * antiguo. La consulta recorre hacia atrás el índice (customerId,
+     * pickupMinutes), de modo que solo lee los pedidos del cliente y no
+     * tiene que ordenarlos.
+     *
+     * @param customerId El identificador del cliente.
+     * @return Una fuente de datos paginada de pedidos.
+     */
+    @Query("SELECT * FROM orders WHERE customerId = :customerId ORDER BY pickupMinutes DESC")
+    DataSource.Factory<Integer, Orders> getOrderHistory(long customerId);
+
+    /**
+     * Obtiene el número de pedidos, el importe total y la última recogida de
+     * un cliente.
+     *
+     * @param customerId El identificador del cliente.
+     * @return El resumen observable de los pedidos del cliente.
+     */
+    @Query("SELECT COUNT(*) AS orderCount, IFNULL(SUM(total_cents), 0) AS totalCents, " +
+            "IFNULL(MAX(pickupMinutes), 0) AS lastPickupMinutes FROM orders WHERE customerId = :customerId")
+    LiveData<CustomerSummary> getSummary(long customerId);
+
+    /**
+     * Obtiene el número de clientes.
+     *
+     * @return El número de clientes.
+     */
+    @Query("SELECT COUNT(*) FROM customer")
+    int count();
+}
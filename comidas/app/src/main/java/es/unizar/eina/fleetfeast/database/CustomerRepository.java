@@ -0,0 +1,65 @@
+package es.unizar.eina.fleetfeast.database;
+
+
+import android.app.Application;
+
+import androidx.lifecycle.LiveData;
+import androidx.paging.DataSource;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Repositorio de funciones de los clientes
+ *
+ * Los clientes solo se leen; los crean y los actualizan los triggers de
+ * orders al guardar los pedidos. Las lecturas se ejecutan en los hilos de
+ * lectura de la base de datos y devuelven un {@link CompletableFuture}.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class CustomerRepository {
+
+    private CustomerDao mCustomerDao;
+
+    public CustomerRepository(Application application) {
+        FleetfeastRoomDatabase db =
+                FleetfeastRoomDatabase.getDatabase(application);
+        mCustomerDao = db.customerDao();
+    }
+
+    /** Devuelve el cliente con un teléfono dado sin bloquear al llamante
+     * @param phone teléfono del cliente
+     * @return un futuro con el cliente, o null si no existe
+     */
+    public CompletableFuture<Customer> getCustomerByPhone(long phone) {
+        return FleetfeastRoomDatabase.readAsync("CustomerRepository.getCustomerByPhone",
+                () -> mCustomerDao.getCustomerByPhone(phone));
+    }
+
+    /** Número de pedidos que se leen de la base de datos en cada página. */
+    private static final int PAGE_SIZE = 20;
+
+    /** Obtiene por páginas los pedidos de un cliente, del más reciente al más antiguo.
+     * @param customerId identificador del cliente
+     * @return una lista paginada y observable de pedidos
+     */
+    public LiveData<PagedList<Orders>> getOrderHistory(long customerId) {
+        DataSource.Factory<Integer, Orders> factory = mCustomerDao.getOrderHistory(customerId);
+        PagedList.Config config = new PagedList.Config.Builder()
+                .setPageSize(PAGE_SIZE)
+                .setEnablePlaceholders(false)
+                .build();
+        return new LivePagedListBuilder<>(factory, config).build();
+    }
+
+    /** Obtiene el número de pedidos, el importe total y la última recogida de un cliente
+     * @param customerId identificador del cliente
+     * @return el resumen observable de los pedidos del cliente
+     */
+    public LiveData<CustomerSummary> getSummary(long customerId) {
+        return mCustomerDao.getSummary(customerId);
+    }
+}
@@ -0,0 +1,43 @@
+package es.unizar.eina.fleetfeast.database;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Resumen de los pedidos de un cliente: cuántos ha hecho, cuánto suman y la
+ * fecha de recogida del último.
+ *
+ * Se calcula recorriendo en el índice (customerId, pickupMinutes) solo los
+ * pedidos del cliente, no la tabla orders completa.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class CustomerSummary {
+    @ColumnInfo(name = "orderCount")
+    private final int orderCount;
+
+    @ColumnInfo(name = "totalCents")
+    private final long totalCents;
+
+    @ColumnInfo(name = "lastPickupMinutes")
+    private final long lastPickupMinutes;
+
+    /**
+     * Constructor de la clase CustomerSummary.
+     *
+     * @param orderCount        El número de pedidos del cliente.
+     * @param totalCents        La suma de los importes de sus pedidos, en céntimos.
+     * @param lastPickupMinutes La recogida más reciente, en minutos desde 1970, o 0 si no hay pedidos.
+     */
+    public CustomerSummary(int orderCount, long totalCents, long lastPickupMinutes) {
+        this.orderCount = orderCount;
+        this.totalCents = totalCents;
+        this.lastPickupMinutes = lastPickupMinutes;
+    }
+
+    public int getOrderCount() { return this.orderCount; }
+
+    public long getTotalCents() { return this.totalCents; }
+
+    public long getLastPickupMinutes() { return this.lastPickupMinutes; }
+}
@@ -2,15 +2,21 @@ package es.unizar.eina.fleetfeast.database;
 
 import android.content.Context;
 
+import android.util.Log;
+
 import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * Base de datos de la aplicación FleetFeast
@@ -26,20 +32,129 @@ import java.util.concurrent.Executors;
  * @author Diego Roldán
  */
 
-@Database(entities = {Orders.class, Plate.class, OrderDetails.class}, version = 3, exportSchema = false)
+@Database(entities = {Orders.class, Plate.class, OrderDetails.class, PlateFts.class, Customer.class}, version = 10, exportSchema = false)
 public abstract class FleetfeastRoomDatabase extends RoomDatabase {
 
     public abstract OrdersDao ordersDao();
     public abstract PlateDao plateDao();
     public abstract OrderDetailsDao orderDetDao();
+    public abstract OrderWithDetailsDao orderWithDetailsDao();
+    public abstract CustomerDao customerDao();
     private static volatile FleetfeastRoomDatabase INSTANCE;
     private static final int NUMBER_OF_THREADS = 4;
-    static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    /** Hilos de lectura; las escrituras van todas al único hilo de {@link #sWriter}. */
+    static final InstrumentedExecutor databaseReadExecutor =
+            new InstrumentedExecutor(NUMBER_OF_THREADS);
+    private static volatile GroupCommitWriter sWriter;
+
+    /**
+     * Devuelve el ejecutor de las lecturas, con las medidas de su cola y de
+     * sus tareas.
+     *
+     * @return El ejecutor de las lecturas.
+     */
+    public static InstrumentedExecutor getReadExecutor() {
+        return databaseReadExecutor;
+    }
+
+    /**
+     * Devuelve el escritor de la base de datos, con las medidas de su cola,
+     * de sus escrituras y de sus commits.
+     *
+     * @return El escritor, o null si la base de datos no se ha abierto todavía.
+     */
+    public static GroupCommitWriter getWriter() {
+        return sWriter;
+    }
+
+    /**
+     * Ejecuta una escritura en el hilo escritor de la base de datos, dentro de
+     * una transacción que puede compartir con otras escrituras pendientes.
+     *
+     * El futuro devuelto se completa en ese mismo hilo después del commit; para
+     * recibir el resultado en otro hilo (por ejemplo, el principal) se pueden
+     * encadenar los métodos {@code then*Async} de {@link CompletableFuture} con
+     * el ejecutor deseado.
+     *
+     * @param type      El tipo de la operación, con el que se agrupan sus medidas.
+     * @param operation La operación a ejecutar.
+     * @return Un futuro con el resultado de la operación.
+     */
+    static <T> CompletableFuture<T> writeAsync(String type, Supplier<T> operation) {
+        return sWriter.submit(type, operation);
+    }
+
+    /**
+     * Ejecuta una lectura en uno de los hilos de lectura de la base de datos.
+     *
+     * @param type      El tipo de la operación, con el que se agrupan sus medidas.
+     * @param operation La operación a ejecutar.
+     * @return Un futuro con el resultado de la operación.
+     */
+    static <T> CompletableFuture<T> readAsync(String type, Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, task -> databaseReadExecutor.execute(type, task));
+    }
+
+    /**
+     * Espera a que una escritura termine.
+     *
+     * @param future       El futuro de la escritura, de {@link #writeAsync}.
+     * @param type         El tipo con el que se lanzó la escritura; si no termina
+     *                     a tiempo, el escritor cuenta el timeout con ese tipo.
+     * @param timeout      El tiempo máximo de espera en milisegundos.
+     * @param defaultValue El valor devuelto si la operación falla o no termina a tiempo.
+     * @param tag          La etiqueta con la que se registran los errores.
+     * @return El resultado de la operación, o defaultValue en caso de error.
+     */
+    static <T> T awaitWrite(CompletableFuture<T> future, String type, long timeout, T defaultValue,
+                            String tag) {
+        return awaitWrite(future, type, timeout, defaultValue, defaultValue, tag);
+    }
+
+    /**
+     * Espera a que una escritura validada termine.
+     *
+     * @param future       El futuro de la escritura, de {@link #writeAsync}.
+     * @param type         El tipo con el que se lanzó la escritura; si no termina
+     *                     a tiempo, el escritor cuenta el timeout con ese tipo.
+     * @param timeout      El tiempo máximo de espera en milisegundos.
+     * @param defaultValue El valor devuelto si la operación falla o no termina a tiempo.
+     * @param invalidValue El valor devuelto si la entidad no es válida
+     *                     ({@link ValidationException}).
+     * @param tag          La etiqueta con la que se registran los errores.
+     * @return El resultado de la operación, invalidValue si no era válida, o
+     * defaultValue en caso de error.
+     */
+    static <T> T awaitWrite(CompletableFuture<T> future, String type, long timeout, T defaultValue,
+                            T invalidValue, String tag) {
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            sWriter.recordTimeout(type);
+            Log.d(tag, e.toString());
+            return defaultValue;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ValidationException) {
+                Log.d(tag, e.getCause().getMessage());
+                return invalidValue;
+            }
+            Log.d(tag, e.toString());
+            e.printStackTrace();
+            return defaultValue;
+        } catch (InterruptedException e) {
+            Log.d(tag, e.toString());
+            e.printStackTrace();
+            return defaultValue;
+        }
+    }
 
     /**
      * Obtiene la instancia única de la base de datos FleetFeast.
      *
+     * Si {@link QueryStats#isEnabled()}, las sentencias se miden y se
+     * registran en {@link QueryStats#getInstance()}. La conexión se configura
+     * con el {@link StorageProfile} elegido por el usuario.
+     *
      * @param context El contexto de la aplicación.
      * @return La instancia única de la base de datos FleetFeast.
      */
@@ -47,12 +162,31 @@ public abstract class FleetfeastRoomDatabase extends RoomDatabase {
         if (INSTANCE == null) {
             synchronized (FleetfeastRoomDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
+                    RoomDatabase.Builder<FleetfeastRoomDatabase> builder =
+                            Room.databaseBuilder(context.getApplicationContext(),
                                     FleetfeastRoomDatabase.class, "fleetfeast_database")
                             .addCallback(sRoomDatabaseCallback)
                             .addMigrations(MIGRATION_1_2)
                             .addMigrations(MIGRATION_2_3)
-                            .build();
+                            .addMigrations(MIGRATION_3_4)
+                            .addMigrations(MIGRATION_4_5)
+                            .addMigrations(MIGRATION_5_6)
+                            .addMigrations(MIGRATION_6_7)
+                            .addMigrations(MIGRATION_7_8)
+                            .addMigrations(MIGRATION_8_9)
+                            .addMigrations(MIGRATION_9_10);
+                    StorageProfile.load(context).applyTo(builder);
+                    // Mide cada sentencia si se ha pedido antes de abrir la
+                    // base de datos (lo hace FleetfeastApplication al arrancar).
+                    if (QueryStats.isEnabled()) {
+                        builder.openHelperFactory(new TimingOpenHelperFactory(
+                                new FrameworkSQLiteOpenHelperFactory(), QueryStats.getInstance()));
+                    }
+                    // El escritor se crea antes de publicar INSTANCE: quien ve
+                    // INSTANCE (volatile) ve también sWriter y puede escribir.
+                    FleetfeastRoomDatabase db = builder.build();
+                    sWriter = new GroupCommitWriter(db);
+                    INSTANCE = db;
                 }
             }
         }
@@ -63,36 +197,82 @@ public abstract class FleetfeastRoomDatabase extends RoomDatabase {
         @Override
         public void onCreate(@NonNull SupportSQLiteDatabase db) {
             super.onCreate(db);
+            createOrderTotalsTriggers(db);
+            createCustomerTriggers(db);
 
-            // If you want to keep data through app restarts,
-            // comment out the following block
-            databaseWriteExecutor.execute(() -> {
-                // Populate the database in the background.
-                // If you want to start with more plates, just add them.
-                OrdersDao ordersDao = INSTANCE.ordersDao();
-                ordersDao.deleteAll();
-                PlateDao plateDao = INSTANCE.plateDao();
-                plateDao.deleteAll();
-                OrderDetailsDao orderDetDao = INSTANCE.orderDetDao();
-                orderDetDao.deleteAll();
-//
-//
-//                Plate plate1 = new Plate("Plate 1's name",
-//                        "Plate 1's description", "PRIMERO", 5.3F);
-//                Plate plate2 = new Plate("Plate 2's name",
-//                        "Plate 2's description", "SEGUNDO", 8.6F);
-//                Orders order1 = new Orders("Jacinto", 987654321,
-//                        "22-11-2023, 20:00");
-//                //OrderDetailsDao det1 = new OrderDetailsDao(order1.getId(),plate1.getId(),5);
-//                plateDao.insert(plate1);
-//                plateDao.insert(plate2);
-//                ordersDao.insert(order1);
-//                //orderDetDao.insert(det1);
-
-            });
+            // Las tablas acaban de crearse y están vacías: no hay nada que
+            // borrar. No se encola ninguna escritura aquí, porque Room abre la
+            // base de datos dentro del primer lote del escritor y lo que se
+            // encolase se ejecutaría después de ese lote.
         }
     };
 
+    /**
+     * Crea los triggers que mantienen total_cents y line_count de orders al
+     * insertar, modificar o eliminar líneas en orderDetails.
+     *
+     * Cada trigger ajusta solo el pedido afectado con la diferencia de la línea,
+     * de modo que leer el total de un pedido no requiere recorrer sus líneas.
+     * Room no conoce los triggers, así que se crean tanto al crear la base de
+     * datos como en la migración que añade las columnas.
+     *
+     * @param db La base de datos.
+     */
+    static void createOrderTotalsTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `orderDetails_totals_insert` " +
+                "AFTER INSERT ON `orderDetails` BEGIN " +
+                "UPDATE `orders` SET " +
+                "`total_cents` = `total_cents` + NEW.`quantity` * NEW.`prizeCents`, " +
+                "`line_count` = `line_count` + 1 " +
+                "WHERE `id` = NEW.`orderId`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `orderDetails_totals_delete` " +
+                "AFTER DELETE ON `orderDetails` BEGIN " +
+                "UPDATE `orders` SET " +
+                "`total_cents` = `total_cents` - OLD.`quantity` * OLD.`prizeCents`, " +
+                "`line_count` = `line_count` - 1 " +
+                "WHERE `id` = OLD.`orderId`; END");
+        // Una línea puede cambiar de pedido: se resta del antiguo y se suma al nuevo.
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `orderDetails_totals_update` " +
+                "AFTER UPDATE OF `orderId`, `quantity`, `prizeCents` ON `orderDetails` BEGIN " +
+                "UPDATE `orders` SET " +
+                "`total_cents` = `total_cents` - OLD.`quantity` * OLD.`prizeCents`, " +
+                "`line_count` = `line_count` - 1 " +
+                "WHERE `id` = OLD.`orderId`; " +
+                "UPDATE `orders` SET " +
+                "`total_cents` = `total_cents` + NEW.`quantity` * NEW.`prizeCents`, " +
+                "`line_count` = `line_count` + 1 " +
+                "WHERE `id` = NEW.`orderId`; END");
+    }
+
+    /**
+     * Crea los triggers que enlazan cada pedido con su cliente al insertarlo o
+     * al cambiar su teléfono o su nombre.
+     *
+     * Si no hay un cliente con el teléfono del pedido se crea; si lo hay, toma
+     * el nombre del pedido. Las actualizaciones de la cabecera que no cambian
+     * el teléfono ni el nombre (por ejemplo, un cambio de estado) no hacen nada. Después se guarda en el pedido el identificador
+     * del cliente. Igual que los de {@link #createOrderTotalsTriggers}, Room
+     * no conoce estos triggers y se crean tanto al crear la base de datos
+     * como en la migración que añade los clientes.
+     *
+     * @param db La base de datos.
+     */
+    static void createCustomerTriggers(SupportSQLiteDatabase db) {
+        String linkCustomer =
+                "INSERT INTO `customer` (`phone`, `name`) SELECT NEW.`phone`, NEW.`name` " +
+                "WHERE NOT EXISTS (SELECT 1 FROM `customer` WHERE `phone` = NEW.`phone`); " +
+                "UPDATE `customer` SET `name` = NEW.`name` " +
+                "WHERE `phone` = NEW.`phone` AND `name` <> NEW.`name` COLLATE BINARY; " +
+                "UPDATE `orders` SET `customerId` = " +
+                "(SELECT `id` FROM `customer` WHERE `phone` = NEW.`phone`) WHERE `id` = NEW.`id`; ";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `orders_customer_insert` " +
+                "AFTER INSERT ON `orders` BEGIN " + linkCustomer + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `orders_customer_update` " +
+                "AFTER UPDATE OF `phone`, `name` ON `orders` " +
+                "WHEN OLD.`phone` <> NEW.`phone` OR OLD.`name` <> NEW.`name` COLLATE BINARY " +
+                "BEGIN " + linkCustomer + "END");
+    }
+
     // Definir la migración
     static final Migration MIGRATION_1_2 = new Migration(1, 2) {
         @Override
@@ -113,4 +293,184 @@ public abstract class FleetfeastRoomDatabase extends RoomDatabase {
         }
     };
 
+    /**
+     * Añade los índices de las consultas habituales.
+     *
+     * La columna name de orders pasa a compararse sin distinguir mayúsculas para
+     * que la ordenación por nombre pueda usar su índice; como SQLite no permite
+     * cambiar la intercalación de una columna, la tabla se reconstruye.
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `orders_new` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`name` TEXT NOT NULL COLLATE NOCASE, " +
+                    "`phone` INTEGER NOT NULL, " +
+                    "`date` TEXT NOT NULL, " +
+                    "`state` TEXT NOT NULL)");
+            database.execSQL("INSERT INTO `orders_new` (`id`, `name`, `phone`, `date`, `state`) " +
+                    "SELECT `id`, `name`, `phone`, `date`, `state` FROM `orders`");
+            database.execSQL("DROP TABLE `orders`");
+            database.execSQL("ALTER TABLE `orders_new` RENAME TO `orders`");
+
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_state_date` ON `orders` (`state`, `date`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_name` ON `orders` (`name`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_phone` ON `orders` (`phone`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orderDetails_plateId` ON `orderDetails` (`plateId`)");
+        }
+    };
+
+    /**
+     * Guarda los precios de platos y líneas de pedido como céntimos enteros.
+     *
+     * SQLite no permite cambiar el tipo de una columna, así que las dos tablas
+     * se reconstruyen redondeando cada precio al céntimo más cercano.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `plate_new` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`name` TEXT NOT NULL, " +
+                    "`description` TEXT, " +
+                    "`category` TEXT NOT NULL, " +
+                    "`prizeCents` INTEGER NOT NULL)");
+            database.execSQL("INSERT INTO `plate_new` (`id`, `name`, `description`, `category`, `prizeCents`) " +
+                    "SELECT `id`, `name`, `description`, `category`, CAST(ROUND(`prize` * 100) AS INTEGER) FROM `plate`");
+            database.execSQL("DROP TABLE `plate`");
+            database.execSQL("ALTER TABLE `plate_new` RENAME TO `plate`");
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS `orderDetails_new` (" +
+                    "`orderId` INTEGER NOT NULL, " +
+                    "`plateId` INTEGER NOT NULL, " +
+                    "`quantity` INTEGER NOT NULL, " +
+                    "`prizeCents` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`orderId`, `plateId`))");
+            database.execSQL("INSERT INTO `orderDetails_new` (`orderId`, `plateId`, `quantity`, `prizeCents`) " +
+                    "SELECT `orderId`, `plateId`, `quantity`, CAST(ROUND(`prize` * 100) AS INTEGER) FROM `orderDetails`");
+            database.execSQL("DROP TABLE `orderDetails`");
+            database.execSQL("ALTER TABLE `orderDetails_new` RENAME TO `orderDetails`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orderDetails_plateId` ON `orderDetails` (`plateId`)");
+        }
+    };
+
+    /**
+     * Sustituye la fecha de recogida en texto ("yyyy/MM/dd  HH:mm", hora local)
+     * por los minutos desde 1970, con un índice propio y otro junto al estado.
+     *
+     * El modificador 'utc' de SQLite interpreta la fecha en la zona horaria del
+     * dispositivo, igual que {@link PickupTime#parse(String)}. Las fechas que no
+     * se pueden interpretar quedan a 0.
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `orders_new` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`name` TEXT NOT NULL COLLATE NOCASE, " +
+                    "`phone` INTEGER NOT NULL, " +
+                    "`pickupMinutes` INTEGER NOT NULL, " +
+                    "`state` TEXT NOT NULL)");
+            database.execSQL("INSERT INTO `orders_new` (`id`, `name`, `phone`, `pickupMinutes`, `state`) " +
+                    "SELECT `id`, `name`, `phone`, " +
+                    "IFNULL(CAST(strftime('%s', replace(substr(`date`, 1, 10), '/', '-') || ' ' || " +
+                    "substr(trim(substr(`date`, 11)), 1, 5), 'utc') AS INTEGER) / 60, 0), " +
+                    "`state` FROM `orders`");
+            database.execSQL("DROP TABLE `orders`");
+            database.execSQL("ALTER TABLE `orders_new` RENAME TO `orders`");
+
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_state_pickupMinutes` ON `orders` (`state`, `pickupMinutes`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_pickupMinutes` ON `orders` (`pickupMinutes`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_name` ON `orders` (`name`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_phone` ON `orders` (`phone`)");
+        }
+    };
+
+    /**
+     * Añade a orders el importe total y el número de líneas de cada pedido,
+     * los calcula para los pedidos existentes y crea los triggers que los
+     * mantienen a partir de ahora.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `orders` ADD COLUMN `total_cents` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE `orders` ADD COLUMN `line_count` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("UPDATE `orders` SET " +
+                    "`total_cents` = IFNULL((SELECT SUM(`quantity` * `prizeCents`) FROM `orderDetails` " +
+                    "WHERE `orderId` = `orders`.`id`), 0), " +
+                    "`line_count` = (SELECT COUNT(*) FROM `orderDetails` WHERE `orderId` = `orders`.`id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_total_cents` ON `orders` (`total_cents`)");
+            createOrderTotalsTriggers(database);
+        }
+    };
+
+    /**
+     * Crea el índice de texto completo de los platos ({@link PlateFts}), con
+     * los mismos triggers de sincronización que genera Room para una tabla
+     * nueva, y lo llena con los platos existentes.
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `plate_fts` USING FTS4(" +
+                    "`name` TEXT NOT NULL, `description` TEXT, tokenize=unicode61, content=`plate`)");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_plate_fts_BEFORE_UPDATE " +
+                    "BEFORE UPDATE ON `plate` BEGIN DELETE FROM `plate_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_plate_fts_BEFORE_DELETE " +
+                    "BEFORE DELETE ON `plate` BEGIN DELETE FROM `plate_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_plate_fts_AFTER_UPDATE " +
+                    "AFTER UPDATE ON `plate` BEGIN INSERT INTO `plate_fts`(`docid`, `name`, `description`) " +
+                    "VALUES (NEW.`rowid`, NEW.`name`, NEW.`description`); END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_plate_fts_AFTER_INSERT " +
+                    "AFTER INSERT ON `plate` BEGIN INSERT INTO `plate_fts`(`docid`, `name`, `description`) " +
+                    "VALUES (NEW.`rowid`, NEW.`name`, NEW.`description`); END");
+            database.execSQL("INSERT INTO `plate_fts`(`plate_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * Crea la tabla de clientes a partir de los pedidos existentes, un
+     * cliente por teléfono con el nombre de su último pedido, y enlaza cada
+     * pedido con su cliente.
+     *
+     * La columna customerId se añade con ALTER TABLE en lugar de reconstruir
+     * orders: al añadirse con valor NULL, SQLite admite la clave ajena sin
+     * copiar la tabla ni volver a crear sus índices y triggers.
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `customer` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`phone` INTEGER NOT NULL, " +
+                    "`name` TEXT NOT NULL COLLATE NOCASE)");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_customer_phone` ON `customer` (`phone`)");
+            // El último pedido de cada teléfono es el de mayor id; el GROUP BY usa index_orders_phone.
+            database.execSQL("INSERT INTO `customer` (`phone`, `name`) " +
+                    "SELECT `phone`, `name` FROM `orders` " +
+                    "WHERE `id` IN (SELECT MAX(`id`) FROM `orders` GROUP BY `phone`) ORDER BY `id`");
+
+            database.execSQL("ALTER TABLE `orders` ADD COLUMN `customerId` INTEGER " +
+                    "REFERENCES `customer`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL");
+            database.execSQL("UPDATE `orders` SET `customerId` = " +
+                    "(SELECT `id` FROM `customer` WHERE `customer`.`phone` = `orders`.`phone`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_customerId_pickupMinutes` " +
+                    "ON `orders` (`customerId`, `pickupMinutes`)");
+            createCustomerTriggers(database);
+        }
+    };
+
+    /**
+     * Elimina el índice (category, name) de plate, que ninguna consulta usa:
+     * la carta se ordena por el orden de las categorías, no por su nombre.
+     * Las bases de datos migradas desde la versión 3 lo tenían.
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("DROP INDEX IF EXISTS `index_plate_category_name`");
+        }
+    };
 }
@@ -0,0 +1,314 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Único hilo escritor de la base de datos, con commit en grupo.
+ *
+ * SQLite solo admite un escritor a la vez, así que todas las escrituras se
+ * encolan aquí y las ejecuta un solo hilo. El hilo coge las escrituras
+ * pendientes, hasta {@link #MAX_BATCH}, esperando como mucho
+ * {@link #MAX_DELAY_NANOS} desde la primera a que lleguen más, y las ejecuta
+ * todas en una única transacción: una ráfaga de escrituras cuesta un commit
+ * en lugar de uno por escritura.
+ *
+ * Los futuros de las escrituras se completan después del commit. Si una
+ * escritura falla se deshace el lote entero y sus escrituras se repiten una
+ * a una, cada una en su propia transacción, de modo que el fallo de una no
+ * afecta a las demás. Los lotes deshechos se cuentan como rollbacks, no
+ * como commits.
+ *
+ * Igual que {@link InstrumentedExecutor}, guarda por cada tipo de escritura
+ * el tiempo en la cola y el tiempo del lote en que se ha ejecutado, además
+ * del número de commits y el tamaño de los lotes.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class GroupCommitWriter {
+    private static final String TAG = "DbWriter";
+    /** Número máximo de escrituras por transacción. */
+    static final int MAX_BATCH = 64;
+    /** Tiempo máximo que se espera desde la primera escritura a que lleguen más. */
+    static final long MAX_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final RoomDatabase mDb;
+    private final BlockingQueue<Write<?>> mQueue = new LinkedBlockingQueue<>();
+    private final Map<String, InstrumentedExecutor.TaskStats> mStats = new ConcurrentHashMap<>();
+    private final AtomicInteger mMaxQueued = new AtomicInteger();
+    private final AtomicLong mCommits = new AtomicLong();
+    private final AtomicLong mWrites = new AtomicLong();
+    private final AtomicInteger mMaxBatch = new AtomicInteger();
+    private final AtomicLong mRetries = new AtomicLong();
+    private final AtomicLong mRollbacks = new AtomicLong();
+    private final AtomicLong mTimeouts = new AtomicLong();
+
+    /**
+     * Escritura pendiente con su tipo y el instante en que entró en la cola.
+     */
+    private static final class Write<T> {
+        final String mType;
+        final Supplier<T> mOperation;
+        final CompletableFuture<T> mFuture = new CompletableFuture<>();
+        final long mQueuedAt = System.nanoTime();
+        T mResult;
+
+        Write(String type, Supplier<T> operation) {
+            mType = type;
+            mOperation = operation;
+        }
+
+        void run() {
+            mResult = mOperation.get();
+        }
+
+        void complete() {
+            mFuture.complete(mResult);
+        }
+    }
+
+    /**
+     * Crea el escritor y arranca su hilo.
+     * @param db La base de datos sobre la que se abren las transacciones.
+     */
+    GroupCommitWriter(RoomDatabase db) {
+        mDb = db;
+        Thread thread = new Thread(this::loop, "fleetfeast-db-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Encola una escritura.
+     * @param type      El tipo de la escritura, con el que se agrupan sus medidas.
+     * @param operation La escritura; se ejecuta dentro de una transacción.
+     * @return Un futuro que se completa con el resultado después del commit.
+     */
+    <T> CompletableFuture<T> submit(String type, Supplier<T> operation) {
+        Write<T> write = new Write<>(type, operation);
+        mQueue.add(write);
+        int depth = mQueue.size();
+        int max = mMaxQueued.get();
+        while (depth > max && !mMaxQueued.compareAndSet(max, depth)) {
+            max = mMaxQueued.get();
+        }
+        return write.mFuture;
+    }
+
+    private void loop() {
+        List<Write<?>> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                Write<?> first = mQueue.take();
+                batch.add(first);
+                mQueue.drainTo(batch, MAX_BATCH - batch.size());
+                collect(batch, first.mQueuedAt + MAX_DELAY_NANOS);
+                commit(batch);
+            } catch (InterruptedException e) {
+                // Solo puede ocurrir en take(), con el lote vacío.
+                Log.d(TAG, e.toString());
+            } catch (Throwable e) {
+                // No debería ocurrir: commit() completa todos los futuros. Si
+                // ocurre, el hilo sigue vivo y nadie espera a estas escrituras.
+                Log.e(TAG, "writer loop", e);
+                for (Write<?> write : batch) {
+                    write.mFuture.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Añade al lote las escrituras que llegan antes del plazo. Si el hilo se
+     * interrumpe, el lote se queda como está y se ejecuta igualmente.
+     */
+    private void collect(List<Write<?>> batch, long deadline) {
+        while (batch.size() < MAX_BATCH) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Write<?> next;
+            try {
+                next = mQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Log.d(TAG, e.toString());
+                return;
+            }
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            mQueue.drainTo(batch, MAX_BATCH - batch.size());
+        }
+    }
+
+    /**
+     * Ejecuta un lote en una transacción y completa sus futuros. Si falla, lo
+     * repite escritura a escritura. Cualquier error, incluidos los que no son
+     * RuntimeException (AssertionError, StackOverflowError...), se entrega a
+     * los futuros en lugar de terminar el hilo.
+     */
+    private void commit(List<Write<?>> batch) {
+        long start = System.nanoTime();
+        try {
+            mDb.runInTransaction(() -> {
+                for (Write<?> write : batch) {
+                    write.run();
+                }
+            });
+        } catch (Throwable e) {
+            if (batch.size() == 1) {
+                record(batch, start, false);
+                batch.get(0).mFuture.completeExceptionally(e);
+                return;
+            }
+            // Las medidas de estas escrituras se guardan al repetirlas.
+            Log.w(TAG, "batch of " + batch.size() + " failed, retrying one by one: " + e);
+            mRollbacks.incrementAndGet();
+            mRetries.incrementAndGet();
+            for (Write<?> write : batch) {
+                commit(Collections.singletonList(write));
+            }
+            return;
+        }
+        record(batch, start, true);
+        for (Write<?> write : batch) {
+            write.complete();
+        }
+    }
+
+    /**
+     * Registra un lote: si se ha confirmado cuenta un commit y sus escrituras;
+     * si se ha deshecho, un rollback. Las medidas de tiempo se guardan siempre.
+     */
+    private void record(List<Write<?>> batch, long start, boolean committed) {
+        long end = System.nanoTime();
+        if (committed) {
+            mCommits.incrementAndGet();
+            mWrites.addAndGet(batch.size());
+            int max = mMaxBatch.get();
+            while (batch.size() > max && !mMaxBatch.compareAndSet(max, batch.size())) {
+                max = mMaxBatch.get();
+            }
+        } else {
+            mRollbacks.incrementAndGet();
+        }
+        for (Write<?> write : batch) {
+            InstrumentedExecutor.TaskStats stats = statsOf(write.mType);
+            stats.mWait.record(start - write.mQueuedAt);
+            stats.mRun.record(end - start);
+        }
+    }
+
+    /**
+     * Registra que una espera sobre una escritura ha superado su plazo.
+     * @param type El tipo de la escritura.
+     */
+    void recordTimeout(String type) {
+        mTimeouts.incrementAndGet();
+        statsOf(type).mTimeouts.incrementAndGet();
+        Log.w(TAG, "timeout waiting for " + type + ", queue=" + mQueue.size());
+    }
+
+    /** @return El número de escrituras en la cola ahora mismo. */
+    public int getQueueDepth() {
+        return mQueue.size();
+    }
+
+    /** @return El número de transacciones confirmadas. */
+    public long getCommits() {
+        return mCommits.get();
+    }
+
+    /** @return El número de escrituras ejecutadas. */
+    public long getWrites() {
+        return mWrites.get();
+    }
+
+    /** @return El número de lotes que han fallado y se han repetido escritura a escritura. */
+    public long getRetries() {
+        return mRetries.get();
+    }
+
+    /** @return El número de transacciones deshechas por un fallo. */
+    public long getRollbacks() {
+        return mRollbacks.get();
+    }
+
+    /** @return Las medidas de cada tipo de escritura. */
+    public Map<String, InstrumentedExecutor.TaskStats> getStats() {
+        return Collections.unmodifiableMap(mStats);
+    }
+
+    /**
+     * Borra las medidas, por ejemplo antes de una prueba de carga.
+     */
+    public void reset() {
+        mStats.clear();
+        mMaxQueued.set(mQueue.size());
+        mCommits.set(0);
+        mWrites.set(0);
+        mMaxBatch.set(0);
+        mRetries.set(0);
+        mRollbacks.set(0);
+        mTimeouts.set(0);
+    }
+
+    /**
+     * Resume las medidas: la cola, los commits y, por cada tipo de escritura,
+     * la espera en la cola y la duración del lote en milisegundos.
+     * @return Una línea para la cola y dos por cada tipo de escritura.
+     */
+    @Override
+    public String toString() {
+        long commits = mCommits.get();
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "queue=%d max=%d commits=%d writes=%d batch=%.1f maxBatch=%d retries=%d rollbacks=%d timeouts=%d",
+                mQueue.size(), mMaxQueued.get(), commits, mWrites.get(),
+                commits == 0 ? 0.0 : mWrites.get() / (double) commits, mMaxBatch.get(),
+                mRetries.get(), mRollbacks.get(), mTimeouts.get()));
+        List<String> types = new ArrayList<>(mStats.keySet());
+        Collections.sort(types);
+        for (String type : types) {
+            InstrumentedExecutor.TaskStats stats = mStats.get(type);
+            summary.append('\n').append(type)
+                    .append("\n  wait:  ").append(stats.mWait)
+                    .append("\n  batch: ").append(stats.mRun);
+            if (stats.getTimeouts() > 0) {
+                summary.append("\n  timeouts=").append(stats.getTimeouts());
+            }
+        }
+        return summary.toString();
+    }
+
+    private InstrumentedExecutor.TaskStats statsOf(String type) {
+        InstrumentedExecutor.TaskStats stats = mStats.get(type);
+        if (stats == null) {
+            InstrumentedExecutor.TaskStats created = new InstrumentedExecutor.TaskStats();
+            stats = mStats.putIfAbsent(type, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+}
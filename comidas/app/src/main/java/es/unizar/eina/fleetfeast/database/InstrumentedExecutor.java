@@ -0,0 +1,222 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ejecutor de tamaño fijo que mide las tareas de la base de datos.
+ *
+ * Cada tarea lleva un tipo (por ejemplo "OrdersRepository.insert") y por cada
+ * tipo se guardan dos {@link LatencyHistogram}: el tiempo que pasa en la cola
+ * hasta que un hilo la coge y el tiempo que tarda en ejecutarse. Además se
+ * lleva la profundidad de la cola (actual y máxima) y las esperas que han
+ * superado su plazo en {@link FleetfeastRoomDatabase#await}.
+ *
+ * Cuando la cola supera {@link #QUEUE_WARNING} tareas se avisa en el log una
+ * vez, y no se vuelve a avisar hasta que la cola baja a la mitad.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+    private static final String TAG = "DbExecutor";
+    /** Profundidad de la cola a partir de la cual se avisa en el log. */
+    static final int QUEUE_WARNING = 16;
+    private static final String DEFAULT_TYPE = "other";
+
+    private final Map<String, TaskStats> mStats = new ConcurrentHashMap<>();
+    private final AtomicInteger mQueued = new AtomicInteger();
+    private final AtomicInteger mMaxQueued = new AtomicInteger();
+    private final AtomicLong mTimeouts = new AtomicLong();
+    private final AtomicBoolean mWarned = new AtomicBoolean();
+
+    /**
+     * Medidas de un tipo de tarea.
+     */
+    public static class TaskStats {
+        final LatencyHistogram mWait = new LatencyHistogram();
+        final LatencyHistogram mRun = new LatencyHistogram();
+        final AtomicLong mTimeouts = new AtomicLong();
+
+        /** @return El tiempo de las tareas en la cola, en nanosegundos. */
+        public LatencyHistogram getWait() {
+            return mWait;
+        }
+
+        /** @return El tiempo de ejecución de las tareas, en nanosegundos. */
+        public LatencyHistogram getRun() {
+            return mRun;
+        }
+
+        /** @return El número de esperas de estas tareas que han superado su plazo. */
+        public long getTimeouts() {
+            return mTimeouts.get();
+        }
+    }
+
+    /**
+     * Tarea con su tipo y el instante en que entró en la cola.
+     */
+    private final class TimedTask implements Runnable {
+        private final String mType;
+        private final Runnable mTask;
+        private final long mQueuedAt = System.nanoTime();
+
+        TimedTask(String type, Runnable task) {
+            mType = type;
+            mTask = task;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            dequeued();
+            TaskStats stats = statsOf(mType);
+            stats.mWait.record(start - mQueuedAt);
+            try {
+                mTask.run();
+            } finally {
+                stats.mRun.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * @param threads El número de hilos.
+     */
+    InstrumentedExecutor(int threads) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * Ejecuta una tarea de un tipo.
+     * @param type El tipo de la tarea, con el que se agrupan sus medidas.
+     * @param task La tarea.
+     */
+    public void execute(String type, Runnable task) {
+        TimedTask timed = new TimedTask(type, task);
+        enqueued();
+        try {
+            super.execute(timed);
+        } catch (RuntimeException e) {
+            dequeued();
+            throw e;
+        }
+    }
+
+    /**
+     * Ejecuta una tarea sin tipo; sus medidas se agrupan como "other".
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (task instanceof TimedTask) {
+            super.execute(task);
+        } else {
+            execute(DEFAULT_TYPE, task);
+        }
+    }
+
+    /**
+     * Registra que una espera sobre una tarea ha superado su plazo.
+     * @param type El tipo de la tarea.
+     */
+    void recordTimeout(String type) {
+        mTimeouts.incrementAndGet();
+        statsOf(type).mTimeouts.incrementAndGet();
+        Log.w(TAG, "timeout waiting for " + type + ", queue=" + mQueued.get());
+    }
+
+    /** @return El número de tareas en la cola ahora mismo. */
+    public int getQueueDepth() {
+        return mQueued.get();
+    }
+
+    /** @return El mayor número de tareas que ha habido en la cola. */
+    public int getMaxQueueDepth() {
+        return mMaxQueued.get();
+    }
+
+    /** @return El número total de esperas que han superado su plazo. */
+    public long getTimeouts() {
+        return mTimeouts.get();
+    }
+
+    /** @return Las medidas de cada tipo de tarea. */
+    public Map<String, TaskStats> getStats() {
+        return Collections.unmodifiableMap(mStats);
+    }
+
+    /**
+     * Borra las medidas, por ejemplo antes de una prueba de carga.
+     */
+    public void reset() {
+        mStats.clear();
+        mMaxQueued.set(mQueued.get());
+        mTimeouts.set(0);
+    }
+
+    /**
+     * Resume las medidas: la cola y, por cada tipo de tarea, la espera y la
+     * ejecución en milisegundos.
+     * @return Una línea para la cola y dos por cada tipo de tarea.
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "queue=%d max=%d timeouts=%d", mQueued.get(), mMaxQueued.get(), mTimeouts.get()));
+        List<String> types = new ArrayList<>(mStats.keySet());
+        Collections.sort(types);
+        for (String type : types) {
+            TaskStats stats = mStats.get(type);
+            summary.append('\n').append(type)
+                    .append("\n  wait: ").append(stats.mWait)
+                    .append("\n  run:  ").append(stats.mRun);
+            if (stats.getTimeouts() > 0) {
+                summary.append("\n  timeouts=").append(stats.getTimeouts());
+            }
+        }
+        return summary.toString();
+    }
+
+    private TaskStats statsOf(String type) {
+        TaskStats stats = mStats.get(type);
+        if (stats == null) {
+            TaskStats created = new TaskStats();
+            stats = mStats.putIfAbsent(type, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    private void enqueued() {
+        int depth = mQueued.incrementAndGet();
+        int max = mMaxQueued.get();
+        while (depth > max && !mMaxQueued.compareAndSet(max, depth)) {
+            max = mMaxQueued.get();
+        }
+        if (depth > QUEUE_WARNING && mWarned.compareAndSet(false, true)) {
+            Log.w(TAG, "database queue is backing up: " + depth + " tasks waiting");
+        }
+    }
+
+    private void dequeued() {
+        int depth = mQueued.decrementAndGet();
+        if (depth <= QUEUE_WARNING / 2) {
+            mWarned.set(false);
+        }
+    }
+}
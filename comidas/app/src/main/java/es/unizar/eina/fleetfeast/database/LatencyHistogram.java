@@ -0,0 +1,129 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias en nanosegundos, seguro para varios hilos.
+ *
+ * Los valores se agrupan en intervalos logarítmicos: cada potencia de dos se
+ * divide en 16 intervalos, de modo que un percentil se conoce con un error
+ * relativo de como mucho un 6,25 % y el histograma ocupa siempre lo mismo,
+ * sin guardar cada muestra.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * Registra una latencia.
+     * @param nanos La latencia en nanosegundos.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        mCounts.incrementAndGet(bucket(value));
+        mCount.incrementAndGet();
+        mSum.addAndGet(value);
+        long max;
+        do {
+            max = mMax.get();
+        } while (value > max && !mMax.compareAndSet(max, value));
+    }
+
+    /**
+     * Devuelve el número de latencias registradas.
+     * @return El número de muestras.
+     */
+    public long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * Devuelve la latencia máxima registrada.
+     * @return La latencia máxima en nanosegundos.
+     */
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * Devuelve la latencia media.
+     * @return La latencia media en nanosegundos, o 0 si no hay muestras.
+     */
+    public long getMean() {
+        long count = mCount.get();
+        return count == 0 ? 0 : mSum.get() / count;
+    }
+
+    /**
+     * Devuelve un percentil de las latencias registradas.
+     * @param percentile El percentil, entre 0 y 100.
+     * @return El límite superior del intervalo que contiene el percentil, en
+     * nanosegundos, o 0 si no hay muestras.
+     */
+    public long getPercentile(double percentile) {
+        long count = mCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += mCounts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), mMax.get());
+            }
+        }
+        return mMax.get();
+    }
+
+    /**
+     * Resume el histograma en una línea, con las latencias en milisegundos.
+     * @return n, media, p50, p95, p99 y máximo.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                getCount(), millis(getMean()), millis(getPercentile(50)), millis(getPercentile(95)),
+                millis(getPercentile(99)), millis(getMax()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Intervalo de un valor: los 16 primeros valores tienen un intervalo
+     * propio y a partir de ahí se usan los 4 bits siguientes al más alto.
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Mayor valor que cae en un intervalo.
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
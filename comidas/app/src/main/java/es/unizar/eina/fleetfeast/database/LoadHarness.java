@@ -0,0 +1,367 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de carga de la base de datos a través de los repositorios.
+ *
+ * Primero sustituye el contenido de la base de datos por una carta y unos
+ * pedidos generados y después lanza desde varios hilos una mezcla de
+ * operaciones: insertar un pedido con sus líneas, modificar un pedido y leer
+ * un pedido. La latencia de cada operación se mide igual que la ve la
+ * aplicación (validación, cola del hilo de la base de datos y espera del
+ * resultado) y se guarda en un {@link LatencyHistogram} por tipo de operación.
+ *
+ * run() bloquea hasta terminar, así que no se debe llamar desde el hilo
+ * principal. Borra todos los datos de la base de datos.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class LoadHarness {
+    private static final String TAG = "LoadHarness";
+    private static final long TIMEOUT = 10000;
+    private static final int LINES_PER_ORDER = 3;
+    private static final String[] CATEGORIES = {"PRIMERO", "SEGUNDO", "POSTRE"};
+    private static final String[] STATES = {"SOLICITADO", "PREPARADO", "RECOGIDO"};
+
+    private final PlateRepository mPlateRepository;
+    private final OrdersRepository mOrdersRepository;
+    private final OrderDetailsRepository mOrdersDetailsRepository;
+
+    /**
+     * Parámetros de una prueba de carga.
+     */
+    public static class Config {
+        int mPlates = 100;
+        int mOrders = 2000;
+        int mOperations = 2000;
+        int mThreads = 4;
+        int mInsertWeight = 20;
+        int mUpdateWeight = 20;
+        int mReadWeight = 60;
+        long mSeed = 42;
+
+        /**
+         * @param plates Número de platos de la carta inicial.
+         * @return Esta misma configuración.
+         */
+        public Config plates(int plates) {
+            mPlates = plates;
+            return this;
+        }
+
+        /**
+         * @param orders Número de pedidos iniciales, con tres líneas cada uno.
+         * @return Esta misma configuración.
+         */
+        public Config orders(int orders) {
+            mOrders = orders;
+            return this;
+        }
+
+        /**
+         * @param operations Número total de operaciones a lanzar.
+         * @return Esta misma configuración.
+         */
+        public Config operations(int operations) {
+            mOperations = operations;
+            return this;
+        }
+
+        /**
+         * @param threads Número de hilos que lanzan operaciones a la vez.
+         * @return Esta misma configuración.
+         */
+        public Config threads(int threads) {
+            mThreads = threads;
+            return this;
+        }
+
+        /**
+         * Proporción de cada tipo de operación. Los pesos son relativos: 1, 1, 2
+         * equivale a 25 %, 25 % y 50 %.
+         * @param insert Peso de las inserciones de pedidos con sus líneas.
+         * @param update Peso de las modificaciones de pedidos.
+         * @param read   Peso de las lecturas de pedidos.
+         * @return Esta misma configuración.
+         */
+        public Config mix(int insert, int update, int read) {
+            mInsertWeight = insert;
+            mUpdateWeight = update;
+            mReadWeight = read;
+            return this;
+        }
+
+        /**
+         * @param seed Semilla de los números aleatorios, para repetir una prueba.
+         * @return Esta misma configuración.
+         */
+        public Config seed(long seed) {
+            mSeed = seed;
+            return this;
+        }
+
+        /**
+         * Comprueba que con esta configuración se puede lanzar la prueba: las
+         * operaciones eligen pedidos y platos al azar entre los cargados.
+         * @throws IllegalArgumentException si algún parámetro no es válido.
+         */
+        void check() {
+            require(mPlates > 0, "plates debe ser mayor que 0");
+            require(mOrders > 0, "orders debe ser mayor que 0");
+            require(mOperations >= 0, "operations no puede ser negativo");
+            require(mThreads > 0, "threads debe ser mayor que 0");
+            require(mInsertWeight >= 0 && mUpdateWeight >= 0 && mReadWeight >= 0,
+                    "los pesos de mix no pueden ser negativos");
+            require(mInsertWeight + mUpdateWeight + mReadWeight > 0,
+                    "algún peso de mix debe ser mayor que 0");
+        }
+
+        private void require(boolean condition, String message) {
+            if (!condition) {
+                throw new IllegalArgumentException(message + ": " + this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "plates=%d orders=%d operations=%d threads=%d mix=%d/%d/%d",
+                    mPlates, mOrders, mOperations, mThreads, mInsertWeight, mUpdateWeight, mReadWeight);
+        }
+    }
+
+    /**
+     * Resultado de una prueba de carga.
+     */
+    public static class Report {
+        private final Config mConfig;
+        private final long mElapsedNanos;
+        private final long mErrors;
+        private final LatencyHistogram mInserts;
+        private final LatencyHistogram mUpdates;
+        private final LatencyHistogram mReads;
+        private final String mExecutor;
+
+        Report(Config config, long elapsedNanos, long errors, LatencyHistogram inserts,
+               LatencyHistogram updates, LatencyHistogram reads, String executor) {
+            mConfig = config;
+            mElapsedNanos = elapsedNanos;
+            mErrors = errors;
+            mInserts = inserts;
+            mUpdates = updates;
+            mReads = reads;
+            mExecutor = executor;
+        }
+
+        /** @return El número de operaciones realizadas. */
+        public long getOperations() {
+            return mInserts.getCount() + mUpdates.getCount() + mReads.getCount();
+        }
+
+        /** @return El número de operaciones que han fallado o no han terminado a tiempo. */
+        public long getErrors() {
+            return mErrors;
+        }
+
+        /** @return Las operaciones por segundo. */
+        public double getThroughput() {
+            return getOperations() / (mElapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        /** @return Las latencias de las inserciones. */
+        public LatencyHistogram getInserts() {
+            return mInserts;
+        }
+
+        /** @return Las latencias de las modificaciones. */
+        public LatencyHistogram getUpdates() {
+            return mUpdates;
+        }
+
+        /** @return Las latencias de las lecturas. */
+        public LatencyHistogram getReads() {
+            return mReads;
+        }
+
+        /** @return La cola y los tiempos del escritor y de los hilos de lectura durante la prueba. */
+        public String getExecutor() {
+            return mExecutor;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s\n%d ops in %.2fs: %.1f ops/s, %d errors\n"
+                            + "insert: %s\nupdate: %s\nread: %s\n%s",
+                    mConfig, getOperations(), mElapsedNanos / (double) TimeUnit.SECONDS.toNanos(1),
+                    getThroughput(), mErrors, mInserts, mUpdates, mReads, mExecutor);
+        }
+    }
+
+    public LoadHarness(PlateRepository plateRepository, OrdersRepository ordersRepository,
+                       OrderDetailsRepository ordersDetailsRepository) {
+        mPlateRepository = plateRepository;
+        mOrdersRepository = ordersRepository;
+        mOrdersDetailsRepository = ordersDetailsRepository;
+    }
+
+    /**
+     * Carga los datos iniciales y lanza la prueba.
+     * @param config Los parámetros de la prueba.
+     * @return El resultado de la prueba.
+     * @throws IllegalArgumentException si la configuración no es válida.
+     * @throws IllegalStateException si no se han podido cargar los datos iniciales.
+     */
+    public Report run(Config config) {
+        config.check();
+        Log.d(TAG, "run: " + config);
+        List<Integer> plateIds = new ArrayList<>();
+        List<Long> orderIds = new ArrayList<>();
+        seed(config, plateIds, orderIds);
+        if (plateIds.size() != config.mPlates || orderIds.size() != config.mOrders) {
+            // Una carga que no termina a tiempo devuelve una lista vacía.
+            throw new IllegalStateException(String.format(Locale.ROOT,
+                    "No se han cargado los datos iniciales: %d de %d platos, %d de %d pedidos",
+                    plateIds.size(), config.mPlates, orderIds.size(), config.mOrders));
+        }
+        FleetfeastRoomDatabase.getWriter().reset();
+        FleetfeastRoomDatabase.getReadExecutor().reset();
+
+        LatencyHistogram inserts = new LatencyHistogram();
+        LatencyHistogram updates = new LatencyHistogram();
+        LatencyHistogram reads = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(config.mThreads);
+        List<Future<?>> futures = new ArrayList<>(config.mThreads);
+        long start = System.nanoTime();
+        for (int t = 0; t < config.mThreads; t++) {
+            int operations = config.mOperations / config.mThreads
+                    + (t < config.mOperations % config.mThreads ? 1 : 0);
+            Random random = new Random(config.mSeed + t);
+            futures.add(workers.submit(() -> {
+                for (int i = 0; i < operations; i++) {
+                    if (!operation(config, random, plateIds, orderIds, inserts, updates, reads)) {
+                        errors.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                Log.d(TAG, e.toString());
+                errors.incrementAndGet();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        workers.shutdown();
+
+        Report report = new Report(config, elapsed, errors.get(), inserts, updates, reads,
+                "writer: " + FleetfeastRoomDatabase.getWriter()
+                        + "\nreads: " + FleetfeastRoomDatabase.getReadExecutor());
+        Log.d(TAG, report.toString());
+        return report;
+    }
+
+    /**
+     * Sustituye el contenido de la base de datos por los datos iniciales.
+     */
+    private void seed(Config config, List<Integer> plateIds, List<Long> orderIds) {
+        mOrdersDetailsRepository.deleteAll().join();
+        mOrdersRepository.deleteAll().join();
+        mPlateRepository.deleteAll().join();
+
+        List<Plate> plates = new ArrayList<>(config.mPlates);
+        for (int i = 0; i < config.mPlates; i++) {
+            plates.add(new Plate("load_plate_" + i, "Plato " + i, CATEGORIES[i % CATEGORIES.length],
+                    300 + (i % 20) * 50L));
+        }
+        for (long id : mPlateRepository.insertListAndWait(plates).getValue()) {
+            plateIds.add((int) id);
+        }
+
+        Random random = new Random(config.mSeed);
+        List<Orders> orders = new ArrayList<>(config.mOrders);
+        for (int i = 0; i < config.mOrders; i++) {
+            orders.add(newOrder(random, i));
+        }
+        orderIds.addAll(mOrdersRepository.insertListAndWait(orders).getValue());
+
+        List<OrderDetails> lines = new ArrayList<>(config.mOrders * LINES_PER_ORDER);
+        for (long orderId : orderIds) {
+            lines.addAll(newLines(random, plateIds, orderId));
+        }
+        mOrdersDetailsRepository.insertListAndWait(lines);
+    }
+
+    /**
+     * Lanza una operación elegida al azar según la mezcla y registra su latencia.
+     * @return true si la operación ha tenido éxito.
+     */
+    private boolean operation(Config config, Random random, List<Integer> plateIds, List<Long> orderIds,
+                              LatencyHistogram inserts, LatencyHistogram updates, LatencyHistogram reads) {
+        int pick = random.nextInt(config.mInsertWeight + config.mUpdateWeight + config.mReadWeight);
+        long orderId = orderIds.get(random.nextInt(orderIds.size()));
+        if (pick < config.mInsertWeight) {
+            Orders order = newOrder(random, random.nextInt(1000000));
+            List<OrderDetails> lines = newLines(random, plateIds, 0);
+            long start = System.nanoTime();
+            long id = mOrdersRepository.insertWithDetailsAndWait(order, lines);
+            inserts.record(System.nanoTime() - start);
+            return id > 0;
+        } else if (pick < config.mInsertWeight + config.mUpdateWeight) {
+            Orders order = newOrder(random, (int) orderId);
+            order.setId(orderId);
+            long start = System.nanoTime();
+            long updated = mOrdersRepository.updateAndWait(order);
+            updates.record(System.nanoTime() - start);
+            return updated == 1;
+        } else {
+            long start = System.nanoTime();
+            Orders order;
+            try {
+                order = mOrdersRepository.getOrderById(orderId).get(TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                FleetfeastRoomDatabase.getReadExecutor().recordTimeout("OrdersRepository.getOrderById");
+                Log.d(TAG, e.toString());
+                order = null;
+            } catch (InterruptedException | ExecutionException e) {
+                Log.d(TAG, e.toString());
+                order = null;
+            }
+            reads.record(System.nanoTime() - start);
+            return order != null;
+        }
+    }
+
+    private static Orders newOrder(Random random, int i) {
+        return new Orders("load_order_" + i, 600000000L + random.nextInt(100000000),
+                PickupTime.startOfTomorrow() + 20 * 60 + random.nextInt(180),
+                STATES[random.nextInt(STATES.length)]);
+    }
+
+    private static List<OrderDetails> newLines(Random random, List<Integer> plateIds, long orderId) {
+        List<OrderDetails> lines = new ArrayList<>(LINES_PER_ORDER);
+        int first = random.nextInt(plateIds.size());
+        for (int j = 0; j < LINES_PER_ORDER && j < plateIds.size(); j++) {
+            int plateId = plateIds.get((first + j) % plateIds.size());
+            lines.add(new OrderDetails(orderId, plateId, 1 + random.nextInt(4), 300 + (plateId % 20) * 50L));
+        }
+        return lines;
+    }
+}
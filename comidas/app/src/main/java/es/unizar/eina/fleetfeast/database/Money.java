@@ -0,0 +1,89 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Cantidad de dinero en euros guardada como un número entero de céntimos.
+ *
+ * Los precios se guardan en la base de datos en céntimos, de modo que las
+ * sumas y los totales son exactos y no hace falta redondear. Esta clase solo
+ * se usa para convertir desde y hacia el texto que escribe o ve el usuario.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public final class Money {
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    /**
+     * Crea una cantidad a partir de un número de céntimos.
+     * @param cents Los céntimos.
+     * @return La cantidad.
+     */
+    public static Money ofCents(long cents) {
+        return new Money(cents);
+    }
+
+    /**
+     * Crea una cantidad a partir del texto escrito por el usuario, por ejemplo
+     * "7.5" o "7,50". Se redondea al céntimo más cercano.
+     * @param text El texto con la cantidad en euros.
+     * @return La cantidad.
+     * @throws NumberFormatException si el texto no es un número.
+     */
+    public static Money parse(String text) {
+        BigDecimal euros = new BigDecimal(text.trim().replace(',', '.'));
+        return new Money(euros.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact());
+    }
+
+    /**
+     * Obtiene la cantidad en céntimos.
+     * @return Los céntimos.
+     */
+    public long getCents() {
+        return cents;
+    }
+
+    /**
+     * Suma otra cantidad a esta.
+     * @param other La cantidad a sumar.
+     * @return La suma de las dos cantidades.
+     */
+    public Money plus(Money other) {
+        return new Money(cents + other.cents);
+    }
+
+    /**
+     * Multiplica la cantidad por un número de unidades.
+     * @param quantity El número de unidades.
+     * @return La cantidad multiplicada.
+     */
+    public Money times(int quantity) {
+        return new Money(cents * quantity);
+    }
+
+    /**
+     * Devuelve la cantidad en euros con dos decimales, por ejemplo "7.50".
+     * @return La cantidad como texto.
+     */
+    @Override
+    public String toString() {
+        long abs = Math.abs(cents);
+        return (cents < 0 ? "-" : "") + abs / 100 + "." + (abs % 100 < 10 ? "0" : "") + abs % 100;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+}
@@ -3,6 +3,7 @@ package es.unizar.eina.fleetfeast.database;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /** Clase anotada como entidad que representa los detalles de un
@@ -11,7 +12,8 @@ import androidx.room.PrimaryKey;
  * @author Abel Romeo
  * @author Diego Roldán
  */
-@Entity(tableName = "orderDetails", primaryKeys = {"orderId", "plateId"})
+@Entity(tableName = "orderDetails", primaryKeys = {"orderId", "plateId"},
+        indices = {@Index(value = {"plateId"})})
 public class OrderDetails {
     @ColumnInfo(name = "orderId")
     private long orderId;
@@ -23,9 +25,8 @@ public class OrderDetails {
     @ColumnInfo(name = "quantity")
     private int quantity;
 
-    @NonNull
-    @ColumnInfo(name = "prize")
-    private float prize;
+    @ColumnInfo(name = "prizeCents")
+    private long prizeCents;
 
     /**
      * Constructor de la clase OrderDetails.
@@ -33,14 +34,14 @@ public class OrderDetails {
      * @param orderId   ID del pedido al que pertenecen los detalles.
      * @param plateId   ID del plato asociado a los detalles.
      * @param quantity  Cantidad de raciones solicitadas.
-     * @param prize  Precio de las raciones solicitadas.
+     * @param prizeCents  Precio de cada ración en céntimos.
      */
     public OrderDetails(@NonNull long orderId, @NonNull int plateId,
-                 @NonNull int quantity, @NonNull float prize) {
+                 @NonNull int quantity, long prizeCents) {
         this.orderId = orderId;
         this.plateId = plateId;
         this.quantity = quantity;
-        this.prize = prize;
+        this.prizeCents = prizeCents;
     }
 
     /**
@@ -62,7 +63,7 @@ public class OrderDetails {
      *
      * @param id El nuevo ID del pedido.
      */
-    public void setOrderId(int id) { this.orderId = id;}
+    public void setOrderId(long id) { this.orderId = id;}
 
     /**
      * Establece el ID del plato asociado a los detalles.
@@ -79,11 +80,18 @@ public class OrderDetails {
     public int getQuantity() { return this.quantity;}
 
     /**
-     * Obtiene el precio de las raciones solicitadas.
+     * Obtiene el precio de cada ración en céntimos.
+     *
+     * @return El precio de cada ración en céntimos.
+     */
+    public long getPrizeCents() { return this.prizeCents;}
+
+    /**
+     * Obtiene el precio de cada ración.
      *
-     * @return El precio de las raciones.
+     * @return El precio de cada ración.
      */
-    public float getPrize() { return this.prize;}
+    public Money getPrize() { return Money.ofCents(this.prizeCents);}
 
     /**
      * Modifica la cantidad de raciones solicitadas.
@@ -92,10 +100,10 @@ public class OrderDetails {
     public void setQuantity(int quantity) { this.quantity = quantity;}
 
     /**
-     * Modifica el precio de las raciones solicitadas.
-     * @param prize El nuevo precio de las raciones.
+     * Modifica el precio de cada ración.
+     * @param prizeCents El nuevo precio de cada ración en céntimos.
      */
-    public void setPrize(float prize) {
-        this.prize = prize;
+    public void setPrizeCents(long prizeCents) {
+        this.prizeCents = prizeCents;
     }
 }
@@ -50,6 +50,34 @@ public interface OrderDetailsDao {
     @Delete
     int delete(OrderDetails orderDet);
 
+    /**
+     * Inserta una lista de detalles de pedido en una única transacción.
+     *
+     * @param orderDets Los detalles de pedido a insertar.
+     * @return Los IDs de los detalles insertados, en el mismo orden que la lista
+     * recibida (-1 si alguno se ha ignorado).
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertList(List<OrderDetails> orderDets);
+
+    /**
+     * Actualiza una lista de detalles de pedido en una única transacción.
+     *
+     * @param orderDets Los detalles de pedido a actualizar.
+     * @return El número de detalles de pedido actualizados.
+     */
+    @Update
+    int updateList(List<OrderDetails> orderDets);
+
+    /**
+     * Elimina una lista de detalles de pedido en una única transacción.
+     *
+     * @param orderDets Los detalles de pedido a eliminar.
+     * @return El número de detalles de pedido eliminados.
+     */
+    @Delete
+    int deleteList(List<OrderDetails> orderDets);
+
     /**
      * Elimina todos los detalles de pedido de la base de datos.
      */
@@ -73,4 +101,16 @@ public interface OrderDetailsDao {
      */
     @Query("SELECT * FROM OrderDetails WHERE orderId = :orderId")
     LiveData<List<OrderDetails>> getOrdersDetailsByOrderId(long orderId);
+
+    /**
+     * Obtiene todas las líneas de un pedido junto con el nombre y la categoría
+     * de sus platos, con una única consulta.
+     *
+     * @param orderId El ID del pedido del que se quieren obtener las líneas.
+     * @return LiveData<List<OrderDetailsWithPlate>> con las líneas del pedido.
+     */
+    @Query("SELECT orderDetails.*, plate.name AS plateName, plate.category AS plateCategory " +
+            "FROM orderDetails LEFT JOIN plate ON plate.id = orderDetails.plateId " +
+            "WHERE orderDetails.orderId = :orderId")
+    LiveData<List<OrderDetailsWithPlate>> getOrderLinesByOrderId(long orderId);
 }
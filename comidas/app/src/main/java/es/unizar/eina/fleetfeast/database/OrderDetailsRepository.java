@@ -2,18 +2,20 @@ package es.unizar.eina.fleetfeast.database;
 
 
 import android.app.Application;
-import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repositorio de funciones de los detalles de los pedidos
  *
+ * Todas las operaciones se ejecutan en el hilo de la base de datos y devuelven
+ * un {@link CompletableFuture} que se completa en ese hilo con el resultado real
+ * de la operación. Los métodos *AndWait esperan a ese resultado.
+ *
  * @author Abel Romeo
  * @author Diego Roldán
  */
@@ -41,10 +43,12 @@ public class OrderDetailsRepository {
 
     /**
      * Elimina todos los detalles de los pedidos de la base de datos.
+     * @return un futuro que se completa cuando se han eliminado los detalles.
      */
-    public void deleteAll() {
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
+    public CompletableFuture<Void> deleteAll() {
+        return FleetfeastRoomDatabase.writeAsync("OrderDetailsRepository.deleteAll", () -> {
             mOrderDetDao.deleteAll();
+            return null;
         });
     }
 
@@ -56,58 +60,38 @@ public class OrderDetailsRepository {
         return mOrderDetDao.getOrdersDetailsByOrderId(orderId);
     }
 
+    /** Obtiene las líneas de un pedido junto con el nombre y la categoría de sus platos
+     * @param orderId identificador del pedido
+     * @return un objeto LiveData con la lista de líneas del pedido.
+     */
+    public LiveData<List<OrderDetailsWithPlate>> getOrderLinesByOrderId(long orderId) {
+        return mOrderDetDao.getOrderLinesByOrderId(orderId);
+    }
 
     /** Inserta los detalles de un pedido
      * @param orderDet detalles de pedido a insertar
-     * @return un valor entero largo con el identificador
-     * del pedido que se ha creado.
+     * @return un futuro con el identificador de los detalles que se han creado.
      */
-    public long insert(OrderDetails orderDet) {
-
-        float prize = orderDet.getPrize();
-        prize *= 100;
-        prize = Math.round(prize);
-        prize /= 100;
-        orderDet.setPrize(prize);
-
-        final long[] result = {0};
+    public CompletableFuture<Long> insert(OrderDetails orderDet) {
         // You must call this on a non-UI thread or your app will throw an exception. Room ensures
         // that you're not doing any long running operations on the main thread, blocking the UI.
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mOrderDetDao.insert(orderDet);
-        });
-        return result[0];
+        return FleetfeastRoomDatabase.writeAsync("OrderDetailsRepository.insert", () -> mOrderDetDao.insert(orderDet));
     }
 
     /** Modifica los detalles de un pedido
      * @param orderDet detalles de pedido a modificar
-     * @return un valor entero con el número de filas modificadas.
+     * @return un futuro con el número de filas modificadas.
      */
-    public int update(OrderDetails orderDet) {
-
-        float prize = orderDet.getPrize();
-        prize *= 100;
-        prize = Math.round(prize);
-        prize /= 100;
-        orderDet.setPrize(prize);
-
-        final int[] result = {0};
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mOrderDetDao.update(orderDet);
-        });
-        return result[0];
+    public CompletableFuture<Integer> update(OrderDetails orderDet) {
+        return FleetfeastRoomDatabase.writeAsync("OrderDetailsRepository.update", () -> mOrderDetDao.update(orderDet));
     }
 
     /** Elimina los detalles de un pedido
-     * @param orderDet
-     * @return un valor entero con el número de filas eliminadas.
+     * @param orderDet detalles de pedido a eliminar
+     * @return un futuro con el número de filas eliminadas.
      */
-    public int delete(OrderDetails orderDet) {
-        final int[] result = {0};
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mOrderDetDao.delete(orderDet);
-        });
-        return result[0];
+    public CompletableFuture<Integer> delete(OrderDetails orderDet) {
+        return FleetfeastRoomDatabase.writeAsync("OrderDetailsRepository.delete", () -> mOrderDetDao.delete(orderDet));
     }
 
     final long TIMEOUT = 10000;
@@ -118,25 +102,67 @@ public class OrderDetailsRepository {
      * del pedido que se ha creado.
      */
     public long insertAndWait(OrderDetails orderDet) {
+        return FleetfeastRoomDatabase.awaitWrite(insert(orderDet), "OrderDetailsRepository.insert",
+                TIMEOUT, 0L,
+                "OrdersDetailsRepository.insertAndWait");
+    }
 
-        float prize = orderDet.getPrize();
-        prize *= 100;
-        prize = Math.round(prize);
-        prize /= 100;
-        orderDet.setPrize(prize);
-
-        AtomicLong result = new AtomicLong();
-        Semaphore semaphore = new Semaphore(0);
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result.set(mOrderDetDao.insert(orderDet));
-            semaphore.release();
-        });
-        try {
-            semaphore.tryAcquire(TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.d("OrdersDetailsRepository", "insertAndWait: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return result.get();
+    /** Inserta una lista de detalles de pedido en una única transacción
+     * @param orderDets detalles de pedido a insertar
+     * @return un futuro con los identificadores de los detalles creados, en el
+     * mismo orden que la lista recibida (-1 para los detalles ignorados).
+     */
+    public CompletableFuture<List<Long>> insertList(List<OrderDetails> orderDets) {
+        return FleetfeastRoomDatabase.writeAsync("OrderDetailsRepository.insertList", () -> mOrderDetDao.insertList(orderDets));
+    }
+
+    /** Inserta una lista de detalles de pedido en una única transacción y espera
+     * a que se inserten
+     * @param orderDets detalles de pedido a insertar
+     * @return una lista con los identificadores de los detalles creados, en el
+     * mismo orden que la lista recibida (-1 para los detalles ignorados).
+     */
+    public List<Long> insertListAndWait(List<OrderDetails> orderDets) {
+        return FleetfeastRoomDatabase.awaitWrite(insertList(orderDets), "OrderDetailsRepository.insertList",
+                TIMEOUT, new ArrayList<>(),
+                "OrdersDetailsRepository.insertListAndWait");
+    }
+
+    /** Modifica una lista de detalles de pedido en una única transacción
+     * @param orderDets detalles de pedido a modificar
+     * @return un futuro con el número de filas modificadas.
+     */
+    public CompletableFuture<Integer> updateList(List<OrderDetails> orderDets) {
+        return FleetfeastRoomDatabase.writeAsync("OrderDetailsRepository.updateList", () -> mOrderDetDao.updateList(orderDets));
+    }
+
+    /** Modifica una lista de detalles de pedido en una única transacción y espera
+     * a que se modifiquen
+     * @param orderDets detalles de pedido a modificar
+     * @return un valor entero con el número de filas modificadas.
+     */
+    public int updateListAndWait(List<OrderDetails> orderDets) {
+        return FleetfeastRoomDatabase.awaitWrite(updateList(orderDets), "OrderDetailsRepository.updateList",
+                TIMEOUT, 0,
+                "OrdersDetailsRepository.updateListAndWait");
+    }
+
+    /** Elimina una lista de detalles de pedido en una única transacción
+     * @param orderDets detalles de pedido a eliminar
+     * @return un futuro con el número de filas eliminadas.
+     */
+    public CompletableFuture<Integer> deleteList(List<OrderDetails> orderDets) {
+        return FleetfeastRoomDatabase.writeAsync("OrderDetailsRepository.deleteList", () -> mOrderDetDao.deleteList(orderDets));
+    }
+
+    /** Elimina una lista de detalles de pedido en una única transacción y espera
+     * a que se eliminen
+     * @param orderDets detalles de pedido a eliminar
+     * @return un valor entero con el número de filas eliminadas.
+     */
+    public int deleteListAndWait(List<OrderDetails> orderDets) {
+        return FleetfeastRoomDatabase.awaitWrite(deleteList(orderDets), "OrderDetailsRepository.deleteList",
+                TIMEOUT, 0,
+                "OrdersDetailsRepository.deleteListAndWait");
     }
 }
@@ -0,0 +1,59 @@
+package es.unizar.eina.fleetfeast.database;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+
+/**
+ * Línea de un pedido junto con los datos del plato que se muestran en pantalla.
+ *
+ * Es el resultado de una consulta que une las tablas orderDetails y plate, de
+ * forma que pintar todas las líneas de un pedido requiere una única consulta en
+ * lugar de una búsqueda del plato por cada línea.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class OrderDetailsWithPlate {
+    @Embedded
+    private OrderDetails orderDetails;
+
+    @ColumnInfo(name = "plateName")
+    private String plateName;
+
+    @ColumnInfo(name = "plateCategory")
+    private String plateCategory;
+
+    /**
+     * Constructor de la clase OrderDetailsWithPlate.
+     *
+     * @param orderDetails  La línea del pedido.
+     * @param plateName     El nombre del plato, o null si el plato ya no existe.
+     * @param plateCategory La categoría del plato, o null si el plato ya no existe.
+     */
+    public OrderDetailsWithPlate(OrderDetails orderDetails, String plateName, String plateCategory) {
+        this.orderDetails = orderDetails;
+        this.plateName = plateName;
+        this.plateCategory = plateCategory;
+    }
+
+    /**
+     * Obtiene la línea del pedido.
+     *
+     * @return La línea del pedido.
+     */
+    public OrderDetails getOrderDetails() { return this.orderDetails;}
+
+    /**
+     * Obtiene el nombre del plato de la línea.
+     *
+     * @return El nombre del plato, o null si el plato ya no existe.
+     */
+    public String getPlateName() { return this.plateName;}
+
+    /**
+     * Obtiene la categoría del plato de la línea.
+     *
+     * @return La categoría del plato, o null si el plato ya no existe.
+     */
+    public String getPlateCategory() { return this.plateCategory;}
+}
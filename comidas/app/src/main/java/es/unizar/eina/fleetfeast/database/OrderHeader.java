@@ -0,0 +1,73 @@
+package es.unizar.eina.fleetfeast.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+/**
+ * Cabecera de un pedido: las columnas de la tabla orders que se escriben desde
+ * la aplicación.
+ *
+ * Se usa para actualizar pedidos sin tocar total_cents ni line_count, que
+ * mantienen los triggers de orderDetails. Si se actualizase la entidad
+ * {@link Orders} completa, el total y el número de líneas se sobrescribirían
+ * con los valores que tuviera el objeto en memoria.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class OrderHeader {
+    @ColumnInfo(name = "id")
+    private final long id;
+
+    @NonNull
+    @ColumnInfo(name = "name")
+    private final String name;
+
+    @ColumnInfo(name = "phone")
+    private final long phone;
+
+    @ColumnInfo(name = "pickupMinutes")
+    private final long pickupMinutes;
+
+    @NonNull
+    @ColumnInfo(name = "state")
+    private final String state;
+
+    /**
+     * Constructor de la clase OrderHeader.
+     *
+     * @param id            Identificador del pedido.
+     * @param name          Nombre del cliente del pedido.
+     * @param phone         Teléfono del cliente del pedido.
+     * @param pickupMinutes Fecha y hora de recogida, en minutos desde 1970.
+     * @param state         Estado del pedido.
+     */
+    public OrderHeader(long id, @NonNull String name, long phone, long pickupMinutes,
+                       @NonNull String state) {
+        this.id = id;
+        this.name = name;
+        this.phone = phone;
+        this.pickupMinutes = pickupMinutes;
+        this.state = state;
+    }
+
+    /**
+     * Crea la cabecera de un pedido.
+     *
+     * @param order El pedido.
+     */
+    public OrderHeader(Orders order) {
+        this(order.getId(), order.getName(), order.getPhone(), order.getPickupMinutes(),
+                order.getState());
+    }
+
+    public long getId() { return this.id; }
+
+    public String getName() { return this.name; }
+
+    public long getPhone() { return this.phone; }
+
+    public long getPickupMinutes() { return this.pickupMinutes; }
+
+    public String getState() { return this.state; }
+}
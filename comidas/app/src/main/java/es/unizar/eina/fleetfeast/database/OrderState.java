@@ -0,0 +1,31 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estados de un pedido. En la base de datos se guarda el nombre del estado.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public enum OrderState {
+    SOLICITADO, PREPARADO, RECOGIDO;
+
+    private static final Map<String, OrderState> BY_NAME = new HashMap<>();
+
+    static {
+        for (OrderState state : values()) {
+            BY_NAME.put(state.name(), state);
+        }
+    }
+
+    /**
+     * Busca un estado por su nombre sin lanzar excepciones, al contrario que valueOf.
+     * @param name El nombre guardado en el pedido.
+     * @return El estado, o null si el nombre no es ningún estado.
+     */
+    public static OrderState fromName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+}
@@ -0,0 +1,105 @@
+package es.unizar.eina.fleetfeast.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.Update;
+
+import java.util.List;
+
+/**
+ * Data Access Object para escribir un pedido junto con sus detalles.
+ *
+ * Agrupa la cabecera del pedido (entidad Orders) y todas sus líneas (entidad
+ * OrderDetails) en una única transacción, de forma que el resto de pantallas
+ * nunca ven un pedido a medio escribir y un pedido completo cuesta un único
+ * commit en lugar de uno por cada línea.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@Dao
+public abstract class OrderWithDetailsDao {
+
+    /**
+     * Inserta la cabecera de un pedido.
+     *
+     * @param order El pedido a insertar.
+     * @return El identificador del nuevo pedido.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    abstract long insertOrder(Orders order);
+
+    /**
+     * Actualiza la cabecera de un pedido sin tocar su total ni su número de
+     * líneas.
+     *
+     * @param order La cabecera del pedido a actualizar.
+     * @return El número de filas actualizadas.
+     */
+    @Update(entity = Orders.class)
+    abstract int updateOrder(OrderHeader order);
+
+    /**
+     * Inserta las líneas de un pedido.
+     *
+     * @param orderDets Las líneas a insertar.
+     * @return Los identificadores de las líneas insertadas.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    abstract List<Long> insertDetails(List<OrderDetails> orderDets);
+
+    /**
+     * Elimina todas las líneas de un pedido.
+     *
+     * @param orderId El identificador del pedido.
+     * @return El número de líneas eliminadas.
+     */
+    @Query("DELETE FROM orderDetails WHERE orderId = :orderId")
+    abstract int deleteDetailsByOrderId(long orderId);
+
+    /**
+     * Inserta un pedido y todas sus líneas en una única transacción.
+     *
+     * Las líneas recibidas se asocian al identificador generado para el pedido.
+     *
+     * @param order     El pedido a insertar.
+     * @param orderDets Las líneas del pedido.
+     * @return El identificador del nuevo pedido, o -1 si no se ha insertado.
+     */
+    @Transaction
+    public long insertOrderWithDetails(Orders order, List<OrderDetails> orderDets) {
+        long orderId = insertOrder(order);
+        if (orderId == -1) {
+            return -1;
+        }
+        for (OrderDetails orderDet : orderDets) {
+            orderDet.setOrderId(orderId);
+        }
+        insertDetails(orderDets);
+        return orderId;
+    }
+
+    /**
+     * Actualiza un pedido y sustituye todas sus líneas en una única transacción.
+     *
+     * @param order     El pedido a actualizar.
+     * @param orderDets Las nuevas líneas del pedido.
+     * @return El número de pedidos actualizados (debería ser 1).
+     */
+    @Transaction
+    public int updateOrderWithDetails(Orders order, List<OrderDetails> orderDets) {
+        int updated = updateOrder(new OrderHeader(order));
+        if (updated == 0) {
+            return 0;
+        }
+        deleteDetailsByOrderId(order.getId());
+        for (OrderDetails orderDet : orderDets) {
+            orderDet.setOrderId(order.getId());
+        }
+        insertDetails(orderDets);
+        return updated;
+    }
+}
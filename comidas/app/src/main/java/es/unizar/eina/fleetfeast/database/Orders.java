@@ -3,55 +3,91 @@ package es.unizar.eina.fleetfeast.database;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * Clase anotada como entidad que representa un pedido y que consta de nombre
  * de cliente, teléfono, fecha y hora y selección de platos
  *
+ * La hora de recogida se guarda como minutos desde 1970 (ver
+ * {@link PickupTime}) para que ordenar por fecha y buscar por rangos de fechas
+ * usen un índice.
+ *
+ * El importe total y el número de líneas del pedido (total_cents y
+ * line_count) los mantienen los triggers de orderDetails (ver
+ * {@link FleetfeastRoomDatabase#createOrderTotalsTriggers}); la aplicación
+ * nunca los escribe, y las actualizaciones usan {@link OrderHeader}.
+ *
+ * El nombre y el teléfono son los del pedido tal como se hizo; el cliente al
+ * que pertenece (customerId, ver {@link Customer}) lo asignan los triggers de
+ * orders (ver {@link FleetfeastRoomDatabase#createCustomerTriggers}) al
+ * insertar el pedido o cambiar su teléfono o su nombre.
+ *
+ * Los índices cubren las consultas habituales: filtrar por estado y ordenar
+ * por fecha, buscar por rango de fechas, ordenar por nombre (sin distinguir mayúsculas, igual que la
+ * columna), buscar por teléfono, ordenar por importe total y recorrer los
+ * pedidos de un cliente por fecha.
+ *
  * @author Abel Romeo
  * @author Diego Roldán
  */
-@Entity(tableName = "orders")
+@Entity(tableName = "orders",
+        indices = {@Index(value = {"state", "pickupMinutes"}),
+                   @Index(value = {"pickupMinutes"}),
+                   @Index(value = {"name"}),
+                   @Index(value = {"phone"}),
+                   @Index(value = {"total_cents"}),
+                   @Index(value = {"customerId", "pickupMinutes"})},
+        foreignKeys = {@ForeignKey(entity = Customer.class,
+                                   parentColumns = "id",
+                                   childColumns = "customerId",
+                                   onDelete = ForeignKey.SET_NULL)})
 public class  Orders{
     @PrimaryKey(autoGenerate = true)
     @ColumnInfo(name = "id")
     private long id;
 
     @NonNull
-    @ColumnInfo(name = "name")
+    @ColumnInfo(name = "name", collate = ColumnInfo.NOCASE)
     private String name;
 
     @NonNull
     @ColumnInfo(name = "phone")
     private long phone;
 
-    @NonNull
-    @ColumnInfo(name = "date")
-    // uuuu-MM-dd'T'HH:mm
-    private String date;
+    @ColumnInfo(name = "pickupMinutes")
+    private long pickupMinutes;
 
     @NonNull
     @ColumnInfo(name = "state")
     private String state;
 
+    @ColumnInfo(name = "total_cents", defaultValue = "0")
+    private long totalCents;
+
+    @ColumnInfo(name = "line_count", defaultValue = "0")
+    private int lineCount;
+
+    @ColumnInfo(name = "customerId")
+    private Long customerId;
 
     /**
      * Constructor de la clase Orders.
      *
      * @param name  Nombre del cliente del pedido.
      * @param phone Teléfono del cliente del pedido.
-     * @param date  Fecha y hora de recogida del pedido.
-     *              Formato: uuuu-MM-dd  HH:mm
+     * @param pickupMinutes Fecha y hora de recogida del pedido, en minutos
+     *              desde 1970 (ver {@link PickupTime}).
      * @param state Estado del pedido.
      */
-    public Orders(@NonNull String name, @NonNull long phone, @NonNull String date, @NonNull String state) {
+    public Orders(@NonNull String name, @NonNull long phone, long pickupMinutes, @NonNull String state) {
         this.name = name;
         this.phone = phone;
-        this.date = date;
+        this.pickupMinutes = pickupMinutes;
         this.state = state;
     }
 
@@ -104,10 +140,73 @@ public class  Orders{
     /**
      * Obtiene la fecha y hora de recogida del pedido.
      *
-     * @return La fecha y hora de recogida.
+     * @return La fecha y hora de recogida, en minutos desde 1970.
+     */
+    public long getPickupMinutes() {
+        return this.pickupMinutes;
+    }
+
+    /**
+     * Obtiene la fecha y hora de recogida del pedido como texto.
+     *
+     * @return La fecha y hora de recogida con formato "yyyy/MM/dd  HH:mm".
      */
     public String getDate() {
-        return this.date;
+        return PickupTime.format(this.pickupMinutes);
+    }
+
+    /**
+     * Obtiene el importe total del pedido.
+     *
+     * @return La suma de precio por cantidad de sus líneas, en céntimos.
+     */
+    public long getTotalCents() {
+        return this.totalCents;
+    }
+
+    /**
+     * Lo usa Room al leer el pedido; el valor lo mantienen los triggers.
+     *
+     * @param totalCents El importe total del pedido, en céntimos.
+     */
+    public void setTotalCents(long totalCents) {
+        this.totalCents = totalCents;
+    }
+
+    /**
+     * Obtiene el número de líneas del pedido.
+     *
+     * @return El número de platos distintos del pedido.
+     */
+    public int getLineCount() {
+        return this.lineCount;
+    }
+
+    /**
+     * Lo usa Room al leer el pedido; el valor lo mantienen los triggers.
+     *
+     * @param lineCount El número de líneas del pedido.
+     */
+    public void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Obtiene el cliente del pedido.
+     *
+     * @return El identificador del cliente, o null si el pedido aún no se ha guardado.
+     */
+    public Long getCustomerId() {
+        return this.customerId;
+    }
+
+    /**
+     * Lo usa Room al leer el pedido; el valor lo mantienen los triggers.
+     *
+     * @param customerId El identificador del cliente.
+     */
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
     }
 
     /**
@@ -1,12 +1,15 @@
 package es.unizar.eina.fleetfeast.database;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.DataSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import java.util.List;
 
@@ -35,11 +38,14 @@ public interface OrdersDao {
     /**
      * Actualiza un pedido existente en la base de datos.
      *
-     * @param order El objeto Orders que se va a actualizar.
+     * Solo se escriben las columnas de la cabecera; el total y el número de
+     * líneas los mantienen los triggers de orderDetails.
+     *
+     * @param order La cabecera del pedido que se va a actualizar.
      * @return El número de filas afectadas por la actualización.
      */
-    @Update
-    int update(Orders order);
+    @Update(entity = Orders.class)
+    int update(OrderHeader order);
 
     /**
      * Elimina un pedido existente de la base de datos.
@@ -50,6 +56,34 @@ public interface OrdersDao {
     @Delete
     int delete(Orders order);
 
+    /**
+     * Inserta una lista de pedidos en la base de datos en una única transacción.
+     *
+     * @param orders Los pedidos que se van a insertar.
+     * @return Los identificadores de los pedidos insertados, en el mismo orden
+     * que la lista recibida (-1 si alguno se ha ignorado).
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertList(List<Orders> orders);
+
+    /**
+     * Actualiza una lista de pedidos en la base de datos en una única transacción.
+     *
+     * @param orders Las cabeceras de los pedidos que se van a actualizar.
+     * @return El número de filas afectadas por la actualización.
+     */
+    @Update(entity = Orders.class)
+    int updateList(List<OrderHeader> orders);
+
+    /**
+     * Elimina una lista de pedidos de la base de datos en una única transacción.
+     *
+     * @param orders Los pedidos que se van a eliminar.
+     * @return El número de filas afectadas por la eliminación.
+     */
+    @Delete
+    int deleteList(List<Orders> orders);
+
     /**
      * Elimina todos los pedidos de la base de datos.
      */
@@ -63,4 +97,33 @@ public interface OrdersDao {
      */
     @Query("SELECT * FROM Orders ORDER BY name ASC")
     LiveData<List<Orders>> getOrderedOrders();
+
+    /**
+     * Obtiene un pedido a partir de su identificador.
+     *
+     * @param id El identificador del pedido.
+     * @return El pedido, o null si no existe.
+     */
+    @Query("SELECT * FROM orders WHERE id = :id")
+    Orders getOrderById(long id);
+
+    /**
+     * Obtiene el importe total de un pedido, mantenido por los triggers de
+     * orderDetails.
+     *
+     * @param orderId El identificador del pedido.
+     * @return El importe total observable, en céntimos.
+     */
+    @Query("SELECT total_cents FROM orders WHERE id = :orderId")
+    LiveData<Long> getTotalCents(long orderId);
+
+    /**
+     * Obtiene por páginas los pedidos que cumplen una consulta construida con
+     * {@link OrdersQuery}.
+     *
+     * @param query La consulta con el filtro por estado y la ordenación.
+     * @return Una fuente de datos paginada de pedidos.
+     */
+    @RawQuery(observedEntities = Orders.class)
+    DataSource.Factory<Integer, Orders> getPagedOrders(SupportSQLiteQuery query);
 }
@@ -0,0 +1,113 @@
+package es.unizar.eina.fleetfeast.database;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Constructor de la consulta de la lista de pedidos, filtrada por estado y
+ * ordenada por nombre, teléfono, fecha o importe total.
+ *
+ * La consulta se escribe de forma que SQLite pueda usar los índices de la
+ * tabla orders: sin filtro si se piden todos los estados, con una igualdad si
+ * se pide uno solo (índice (state, pickupMinutes)) y con IN en el resto de
+ * casos. El rango de fechas, si se indica, se compara con el número de
+ * minutos guardado, de modo que se resuelve recorriendo un índice. Los
+ * estados se pasan siempre como parámetros y la columna de ordenación solo
+ * puede ser una de las conocidas.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class OrdersQuery {
+    private static final String[] STATES = {"SOLICITADO", "PREPARADO", "RECOGIDO"};
+
+    private final Set<String> mStates = new LinkedHashSet<>();
+    private String mOrderBy = "name";
+    private long mFromMinutes = -1;
+    private long mToMinutes = -1;
+
+    /**
+     * Añade un estado a los pedidos que se quieren obtener.
+     * @param state El estado: "SOLICITADO", "PREPARADO" o "RECOGIDO".
+     * @return Este mismo constructor.
+     */
+    public OrdersQuery withState(String state) {
+        mStates.add(state);
+        return this;
+    }
+
+    /**
+     * Establece el criterio de ordenación de los pedidos.
+     * @param orderby "name", "phone", "date" o "total"; cualquier otro valor ordena por nombre.
+     * @return Este mismo constructor.
+     */
+    public OrdersQuery orderBy(String orderby) {
+        switch (orderby) {
+            case "phone":
+                mOrderBy = "phone";
+                break;
+            case "date":
+                mOrderBy = "pickupMinutes";
+                break;
+            case "total":
+                mOrderBy = "total_cents";
+                break;
+            default:
+                mOrderBy = "name";
+                break;
+        }
+        return this;
+    }
+
+    /**
+     * Limita los pedidos a los que se recogen en un rango de fechas, por
+     * ejemplo entre {@link PickupTime#startOfToday()} y
+     * {@link PickupTime#startOfTomorrow()} para los pedidos de hoy.
+     * @param fromMinutes Inicio del rango, incluido, en minutos desde 1970.
+     * @param toMinutes Fin del rango, excluido, en minutos desde 1970.
+     * @return Este mismo constructor.
+     */
+    public OrdersQuery between(long fromMinutes, long toMinutes) {
+        mFromMinutes = fromMinutes;
+        mToMinutes = toMinutes;
+        return this;
+    }
+
+    /**
+     * Construye la consulta.
+     * @return La consulta lista para pasarla al DAO.
+     */
+    public SupportSQLiteQuery build() {
+        StringBuilder sql = new StringBuilder("SELECT * FROM orders WHERE 1");
+        List<Object> args = new ArrayList<>();
+
+        if (mStates.isEmpty()) {
+            sql.append(" AND 0");
+        } else if (!mStates.containsAll(Arrays.asList(STATES))) {
+            if (mStates.size() == 1) {
+                sql.append(" AND state = ?");
+            } else {
+                sql.append(" AND state IN (");
+                for (int i = 0; i < mStates.size(); i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                sql.append(")");
+            }
+            args.addAll(mStates);
+        }
+        if (mFromMinutes >= 0 && mToMinutes >= 0) {
+            sql.append(" AND pickupMinutes >= ? AND pickupMinutes < ?");
+            args.add(mFromMinutes);
+            args.add(mToMinutes);
+        }
+
+        sql.append(" ORDER BY ").append(mOrderBy).append(" ASC, id ASC");
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+}
@@ -2,26 +2,36 @@ package es.unizar.eina.fleetfeast.database;
 
 
 import android.app.Application;
-import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.DataSource;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
   * Repositorio de funciones de los pedidos
   *
+  * Todas las operaciones se ejecutan en el hilo de la base de datos y devuelven
+  * un {@link CompletableFuture} que se completa en ese hilo con el resultado real
+  * de la operación. Los métodos *AndWait esperan a ese resultado.
+  *
+  * Las escrituras de un pedido que no es válido fallan con una
+  * {@link ValidationException}; las de una lista escriben los pedidos válidos y
+  * devuelven en un {@link BatchResult} los errores de los demás.
+  *
   * @author Abel Romeo
   * @author Diego Roldán
   */
 public class OrdersRepository {
 
     private OrdersDao mOrderDao;
+    private OrderWithDetailsDao mOrderWithDetailsDao;
     private LiveData<List<Orders>> mAllOrders;
 
     // Order that in order to unit test the OrderRepository, you have to remove the Application
@@ -32,6 +42,7 @@ public class OrdersRepository {
         FleetfeastRoomDatabase db =
                 FleetfeastRoomDatabase.getDatabase(application);
         mOrderDao = db.ordersDao();
+        mOrderWithDetailsDao = db.orderWithDetailsDao();
         mAllOrders = mOrderDao.getOrderedOrders();
     }
 
@@ -42,134 +53,134 @@ public class OrdersRepository {
         return mAllOrders;
     }
 
+    /** Devuelve un pedido dado un identificador sin bloquear al llamante
+     * @param id identificador del pedido
+     * @return un futuro con el pedido, o null si no existe
+     */
+    public CompletableFuture<Orders> getOrderById(long id) {
+        return FleetfeastRoomDatabase.readAsync("OrdersRepository.getOrderById", () -> mOrderDao.getOrderById(id));
+    }
+
+    /** Obtiene el importe total de un pedido.
+     * @param orderId El identificador del pedido.
+     * @return El importe total observable, en céntimos.
+     */
+    public LiveData<Long> getTotalCents(long orderId) {
+        return mOrderDao.getTotalCents(orderId);
+    }
+
+    /** Número de pedidos que se leen de la base de datos en cada página. */
+    private static final int PAGE_SIZE = 50;
+
+    /** Obtiene por páginas los pedidos en los estados indicados.
+     * La ordenación y el filtro se hacen en la consulta, de modo que solo se
+     * leen de la base de datos las páginas que se van mostrando.
+     * @param orderby Criterio de ordenación: "name", "phone", "date" o "total".
+     * @param states Los estados de los pedidos que se quieren obtener.
+     * @return Una lista paginada y observable de pedidos.
+     */
+    public LiveData<PagedList<Orders>> getPagedOrders(String orderby, List<String> states) {
+        OrdersQuery query = new OrdersQuery().orderBy(orderby);
+        for (String state : states) {
+            query.withState(state);
+        }
+        DataSource.Factory<Integer, Orders> factory = mOrderDao.getPagedOrders(query.build());
+        PagedList.Config config = new PagedList.Config.Builder()
+                .setPageSize(PAGE_SIZE)
+                .setEnablePlaceholders(false)
+                .build();
+        return new LivePagedListBuilder<>(factory, config).build();
+    }
+
     /**
      * Elimina todos los pedidos de la base de datos.
+     * @return un futuro que se completa cuando se han eliminado los pedidos.
      */
-    public void deleteAll() {
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
+    public CompletableFuture<Void> deleteAll() {
+        return FleetfeastRoomDatabase.writeAsync("OrdersRepository.deleteAll", () -> {
             mOrderDao.deleteAll();
+            return null;
         });
     }
 
     /** Inserta un pedido
      * @param order El pedido a insertar.
-     * @return un valor entero largo con el identificador
-     * del pedido que se ha creado.
-     */
-    public long insert(Orders order) {
-        String regex = "\\d{4}/\\d{2}/\\d{2}  \\d{2}:\\d{2}";
-        if (order == null
-                || order.getName().length() <= 0
-                || Long.toString(order.getPhone()).length() != 9
-                || order.getDate().length() != 17
-                || !order.getDate().matches(regex)
-                || (order.getState()!="SOLICITADO" && order.getState()!="PREPARADO" && order.getState()!="RECOGIDO")) {
-            return -1;
+     * @return un futuro con el identificador del pedido que se ha creado; si el
+     * pedido no es válido, falla con una {@link ValidationException}.
+     */
+    public CompletableFuture<Long> insert(Orders order) {
+        List<Validation.FieldError> errors = Validation.validateOrder(order);
+        if (!errors.isEmpty()) {
+            return ValidationException.failed(errors);
         }
 
-        final long[] result = {0};
         // You must call this on a non-UI thread or your app will throw an exception. Room ensures
         // that you're not doing any long running operations on the main thread, blocking the UI.
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mOrderDao.insert(order);
-        });
-        return result[0];
+        return FleetfeastRoomDatabase.writeAsync("OrdersRepository.insert", () -> mOrderDao.insert(order));
     }
 
      /** Modifica un pedido
      * @param order El pedido a modificar.
-     * @return un valor entero con el número de filas modificadas.
-     */
-    public int update(Orders order) {
-        String regex = "\\d{4}/\\d{2}/\\d{2}  \\d{2}:\\d{2}";
-        if (order == null
-                || order.getName().length() <= 0
-                || Long.toString(order.getPhone()).length() != 9
-                || order.getDate().length() != 17
-                || !order.getDate().matches(regex)
-                || (order.getState()!="SOLICITADO" && order.getState()!="PREPARADO" && order.getState()!="RECOGIDO")) {
-            return 0;
+     * @return un futuro con el número de filas modificadas; si el pedido no es
+     * válido, falla con una {@link ValidationException}.
+     */
+    public CompletableFuture<Integer> update(Orders order) {
+        List<Validation.FieldError> errors = Validation.validateOrder(order);
+        if (!errors.isEmpty()) {
+            return ValidationException.failed(errors);
         }
 
-        final int[] result = {0};
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mOrderDao.update(order);
-        });
-        return result[0];
+        return FleetfeastRoomDatabase.writeAsync("OrdersRepository.update", () -> mOrderDao.update(new OrderHeader(order)));
     }
 
     /** Elimina un pedido
      * @param order El pedido a eliminar.
-     * @return un valor entero con el número de filas eliminadas.
+     * @return un futuro con el número de filas eliminadas.
      */
-    public int delete(Orders order) {
-        final int[] result = {0};
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mOrderDao.delete(order);
-        });
-        return result[0];
+    public CompletableFuture<Integer> delete(Orders order) {
+        return FleetfeastRoomDatabase.writeAsync("OrdersRepository.delete", () -> mOrderDao.delete(order));
+    }
+
+    /** Inserta un pedido junto con todas sus líneas en una única transacción.
+     * @param order El pedido a insertar.
+     * @param orderDets Las líneas del pedido.
+     * @return un futuro con el identificador del pedido que se ha creado, o -1
+     * si no tiene líneas; si el pedido no es válido, falla con una
+     * {@link ValidationException}.
+     */
+    public CompletableFuture<Long> insertWithDetails(Orders order, List<OrderDetails> orderDets) {
+        List<Validation.FieldError> errors = Validation.validateOrder(order);
+        if (!errors.isEmpty()) {
+            return ValidationException.failed(errors);
+        }
+        if (orderDets.isEmpty()) {
+            return CompletableFuture.completedFuture(-1L);
+        }
+
+        return FleetfeastRoomDatabase.writeAsync("OrdersRepository.insertWithDetails", () ->
+                mOrderWithDetailsDao.insertOrderWithDetails(order, orderDets));
     }
 
     final long TIMEOUT = 10000;
     /** Inserta un pedido y espera a que se complete la operación
      * para devolver el identificador del pedido que se ha creado.
      * @param order El pedido a insertar.
-     * @return un valor entero largo con el identificador
+     * @return un valor entero largo con el identificador, o -1 si el pedido no es válido
      */
     public long insertAndWait(Orders order) {
-        String regex = "\\d{4}/\\d{2}/\\d{2}  \\d{2}:\\d{2}";
-        if (order == null
-            || order.getName().length() <= 0
-            || Long.toString(order.getPhone()).length() != 9
-            || order.getDate().length() != 17
-            || !order.getDate().matches(regex)
-            || (order.getState()!="SOLICITADO" && order.getState()!="PREPARADO" && order.getState()!="RECOGIDO")) {
-            return -1;
-        }
-        AtomicLong result = new AtomicLong();
-        Semaphore semaphore = new Semaphore(0);
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result.set(mOrderDao.insert(order));
-            semaphore.release();
-        });
-        try {
-            semaphore.tryAcquire(TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.d("OrdersRepository", "insertAndWait: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return result.get();
+        return FleetfeastRoomDatabase.awaitWrite(insert(order), "OrdersRepository.insert", TIMEOUT, 0L, -1L,
+                "OrdersRepository.insertAndWait");
     }
 
     /** Modifica un pedido y espera a que se complete la operación
      * para devolver el número de filas modificadas.
      * @param order El pedido a modificar.
-     * @return un valor entero con el número de filas modificadas.
+     * @return un valor entero con el número de filas modificadas, 0 si el
+     * pedido no es válido.
      */
     public long updateAndWait(Orders order) {
-        String regex = "\\d{4}/\\d{2}/\\d{2}  \\d{2}:\\d{2}";
-        if (order == null
-                || order.getName().length() <= 0
-                || Long.toString(order.getPhone()).length() != 9
-                || order.getDate().length() != 17
-                || !order.getDate().matches(regex)
-                || (order.getState()!="SOLICITADO" && order.getState()!="PREPARADO" && order.getState()!="RECOGIDO")) {
-            return 0;
-        }
-
-        AtomicLong result = new AtomicLong();
-        Semaphore semaphore = new Semaphore(0);
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result.set(mOrderDao.update(order));
-            semaphore.release();
-        });
-        try {
-            semaphore.tryAcquire(TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.d("OrdersRepository", "updateAndWait: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return result.get();
+        return FleetfeastRoomDatabase.awaitWrite(update(order), "OrdersRepository.update", TIMEOUT, 0,
+                "OrdersRepository.updateAndWait");
     }
 
     /** Elimina un pedido y espera a que se complete la operación
@@ -178,18 +189,122 @@ public class OrdersRepository {
      * @return un valor entero con el número de filas eliminadas.
      */
     public int deleteAndWait(Orders order) {
-        AtomicInteger result = new AtomicInteger();
-        Semaphore semaphore = new Semaphore(0);
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result.set(mOrderDao.delete(order));
-            semaphore.release();
+        return FleetfeastRoomDatabase.awaitWrite(delete(order), "OrdersRepository.delete", TIMEOUT, 0,
+                "OrdersRepository.deleteAndWait");
+    }
+
+    /** Inserta un pedido junto con todas sus líneas en una única transacción y
+     * espera a que se complete la operación.
+     * @param order El pedido a insertar.
+     * @param orderDets Las líneas del pedido.
+     * @return un valor entero largo con el identificador del pedido creado,
+     * o -1 si el pedido no es válido o no tiene líneas.
+     */
+    public long insertWithDetailsAndWait(Orders order, List<OrderDetails> orderDets) {
+        return FleetfeastRoomDatabase.awaitWrite(insertWithDetails(order, orderDets), "OrdersRepository.insertWithDetails",
+                TIMEOUT, -1L,
+                "OrdersRepository.insertWithDetailsAndWait");
+    }
+
+    /** Inserta una lista de pedidos en una única transacción.
+     * Los pedidos que no son válidos no se insertan.
+     * @param orders Los pedidos a insertar.
+     * @return un futuro con los identificadores de los pedidos creados, en el mismo
+     * orden que la lista recibida (-1 para los pedidos no válidos), y los errores
+     * de los pedidos no válidos.
+     */
+    public CompletableFuture<BatchResult<List<Long>>> insertList(List<Orders> orders) {
+        Map<Integer, List<Validation.FieldError>> errors = Validation.validateOrders(orders);
+        List<Orders> valid = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            if (!errors.containsKey(i)) {
+                valid.add(orders.get(i));
+            }
+        }
+        if (valid.isEmpty()) {
+            List<Long> ids = new ArrayList<>(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                ids.add(-1L);
+            }
+            return CompletableFuture.completedFuture(new BatchResult<>(ids, errors));
+        }
+
+        return FleetfeastRoomDatabase.writeAsync("OrdersRepository.insertList", () -> {
+            List<Long> inserted = mOrderDao.insertList(valid);
+            // La lista se crea dentro: si el lote falla, la escritura se repite.
+            List<Long> ids = new ArrayList<>(orders.size());
+            int next = 0;
+            for (int i = 0; i < orders.size(); i++) {
+                ids.add(errors.containsKey(i) ? -1L : inserted.get(next++));
+            }
+            return new BatchResult<>(ids, errors);
         });
-        try {
-            semaphore.tryAcquire(TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.d("OrdersRepository", "deleteAndWait: " + e.getMessage());
-            e.printStackTrace();
+    }
+
+    /** Inserta una lista de pedidos en una única transacción y espera a que se
+     * complete la operación. Los pedidos que no son válidos no se insertan.
+     * @param orders Los pedidos a insertar.
+     * @return los identificadores de los pedidos creados, en el mismo orden que
+     * la lista recibida (-1 para los pedidos no válidos), y los errores de los
+     * pedidos no válidos. Si la escritura falla, la lista está vacía y no
+     * hay errores.
+     */
+    public BatchResult<List<Long>> insertListAndWait(List<Orders> orders) {
+        return FleetfeastRoomDatabase.awaitWrite(insertList(orders), "OrdersRepository.insertList", TIMEOUT,
+                new BatchResult<>(new ArrayList<>(), Collections.emptyMap()),
+                "OrdersRepository.insertListAndWait");
+    }
+
+    /** Modifica una lista de pedidos en una única transacción.
+     * Los pedidos que no son válidos no se modifican.
+     * @param orders Los pedidos a modificar.
+     * @return un futuro con el número de filas modificadas y los errores de los
+     * pedidos no válidos.
+     */
+    public CompletableFuture<BatchResult<Integer>> updateList(List<Orders> orders) {
+        Map<Integer, List<Validation.FieldError>> errors = Validation.validateOrders(orders);
+        List<OrderHeader> valid = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            if (!errors.containsKey(i)) {
+                valid.add(new OrderHeader(orders.get(i)));
+            }
         }
-        return result.get();
+        if (valid.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchResult<>(0, errors));
+        }
+        return FleetfeastRoomDatabase.writeAsync("OrdersRepository.updateList", () ->
+                new BatchResult<>(mOrderDao.updateList(valid), errors));
+    }
+
+    /** Modifica una lista de pedidos en una única transacción y espera a que se
+     * complete la operación. Los pedidos que no son válidos no se modifican.
+     * @param orders Los pedidos a modificar.
+     * @return el número de filas modificadas y los errores de los pedidos no
+     * válidos. Si la escritura falla, el número de filas es 0 y no hay
+     * errores.
+     */
+    public BatchResult<Integer> updateListAndWait(List<Orders> orders) {
+        return FleetfeastRoomDatabase.awaitWrite(updateList(orders), "OrdersRepository.updateList", TIMEOUT,
+                new BatchResult<>(0, Collections.emptyMap()),
+                "OrdersRepository.updateListAndWait");
+    }
+
+    /** Elimina una lista de pedidos en una única transacción.
+     * @param orders Los pedidos a eliminar.
+     * @return un futuro con el número de filas eliminadas.
+     */
+    public CompletableFuture<Integer> deleteList(List<Orders> orders) {
+        return FleetfeastRoomDatabase.writeAsync("OrdersRepository.deleteList", () -> mOrderDao.deleteList(orders));
+    }
+
+    /** Elimina una lista de pedidos en una única transacción y espera a que se
+     * complete la operación.
+     * @param orders Los pedidos a eliminar.
+     * @return un valor entero con el número de filas eliminadas.
+     */
+    public int deleteListAndWait(List<Orders> orders) {
+        return FleetfeastRoomDatabase.awaitWrite(deleteList(orders), "OrdersRepository.deleteList",
+                TIMEOUT, 0,
+                "OrdersRepository.deleteListAndWait");
     }
 }
@@ -0,0 +1,107 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Conversión entre la hora de recogida de un pedido, guardada como minutos
+ * desde el 1 de enero de 1970 (UTC), y el texto "yyyy/MM/dd  HH:mm" en la
+ * zona horaria del dispositivo que se muestra al usuario.
+ *
+ * Guardar un número permite ordenar y buscar por rangos de fechas con un
+ * índice; el texto solo se genera al mostrar el pedido.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public final class PickupTime {
+    /** Valor que indica una hora de recogida no válida. */
+    public static final long INVALID = -1;
+
+    private static final Pattern FORMAT = Pattern.compile("\\d{4}/\\d{2}/\\d{2}\\s+\\d{2}:\\d{2}");
+
+    private static final ThreadLocal<SimpleDateFormat> PARSER = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy/MM/dd HH:mm", Locale.ROOT);
+            format.setLenient(false);
+            return format;
+        }
+    };
+
+    private static final ThreadLocal<SimpleDateFormat> FORMATTER = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyy/MM/dd  HH:mm", Locale.ROOT);
+        }
+    };
+
+    private PickupTime() {
+    }
+
+    /**
+     * Convierte el texto de una hora de recogida en minutos.
+     * @param text El texto, con formato "yyyy/MM/dd  HH:mm".
+     * @return Los minutos desde 1970, o {@link #INVALID} si el texto no es una fecha válida.
+     */
+    public static long parse(String text) {
+        if (text == null || !FORMAT.matcher(text.trim()).matches()) {
+            return INVALID;
+        }
+        try {
+            Date date = PARSER.get().parse(text.trim().replaceAll("\\s+", " "));
+            return TimeUnit.MILLISECONDS.toMinutes(date.getTime());
+        } catch (ParseException e) {
+            return INVALID;
+        }
+    }
+
+    /**
+     * Convierte una hora de recogida en el texto que se muestra al usuario.
+     * @param minutes Los minutos desde 1970.
+     * @return El texto, con formato "yyyy/MM/dd  HH:mm".
+     */
+    public static String format(long minutes) {
+        return FORMATTER.get().format(new Date(TimeUnit.MINUTES.toMillis(minutes)));
+    }
+
+    /**
+     * Convierte una hora de recogida en un calendario de la zona del dispositivo.
+     * @param minutes Los minutos desde 1970.
+     * @return El calendario.
+     */
+    public static Calendar toCalendar(long minutes) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(TimeUnit.MINUTES.toMillis(minutes));
+        return calendar;
+    }
+
+    /**
+     * Devuelve el primer minuto del día de hoy en la zona del dispositivo.
+     * Junto con {@link #startOfTomorrow()} sirve para buscar los pedidos del día.
+     * @return Los minutos desde 1970 al empezar el día de hoy.
+     */
+    public static long startOfToday() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return TimeUnit.MILLISECONDS.toMinutes(calendar.getTimeInMillis());
+    }
+
+    /**
+     * Devuelve el primer minuto del día de mañana en la zona del dispositivo.
+     * @return Los minutos desde 1970 al empezar el día de mañana.
+     */
+    public static long startOfTomorrow() {
+        Calendar calendar = toCalendar(startOfToday());
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return TimeUnit.MILLISECONDS.toMinutes(calendar.getTimeInMillis());
+    }
+}
@@ -33,9 +33,8 @@ public class Plate {
     @ColumnInfo(name = "category")
     private String category;
 
-    @NonNull
-    @ColumnInfo(name = "prize")
-    private Float prize;
+    @ColumnInfo(name = "prizeCents")
+    private long prizeCents;
 
     /**
      * Constructor de la clase Plate.
@@ -43,14 +42,14 @@ public class Plate {
      * @param name        El nombre del plato.
      * @param description La descripción del plato.
      * @param category    La categoría del plato.
-     * @param prize       El precio del plato.
+     * @param prizeCents  El precio del plato en céntimos.
      */
     public Plate(@NonNull String name, String description,
-                 @NonNull String category, @NonNull Float prize) {
+                 @NonNull String category, long prizeCents) {
         this.name = name;
         this.description = description;
         this.category = category;
-        this.prize = prize;
+        this.prizeCents = prizeCents;
     }
 
     /**
@@ -62,7 +61,7 @@ public class Plate {
         this.name = plate.getName();
         this.description = plate.getDescription();
         this.category = plate.getCategory();
-        this.prize = plate.getPrize();
+        this.prizeCents = plate.getPrizeCents();
     }
 
     /** Devuelve el identificador del plato
@@ -103,16 +102,22 @@ public class Plate {
         return this.category;
     }
 
+    /** Devuelve el precio del plato en céntimos
+     */
+    public long getPrizeCents(){
+        return this.prizeCents;
+    }
+
     /** Devuelve el precio del plato
      */
-    public Float getPrize(){
-        return this.prize;
+    public Money getPrize(){
+        return Money.ofCents(this.prizeCents);
     }
 
     /** Permite actualizar el precio de un plato
-     * @param prize El nuevo precio del plato.
+     * @param prizeCents El nuevo precio del plato en céntimos.
      */
-    public void setPrize(float prize) {
-        this.prize = prize;
+    public void setPrizeCents(long prizeCents) {
+        this.prizeCents = prizeCents;
     }
 }
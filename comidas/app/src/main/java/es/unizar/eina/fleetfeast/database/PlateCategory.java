@@ -0,0 +1,31 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Categorías de un plato. En la base de datos se guarda el nombre de la categoría.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public enum PlateCategory {
+    PRIMERO, SEGUNDO, POSTRE;
+
+    private static final Map<String, PlateCategory> BY_NAME = new HashMap<>();
+
+    static {
+        for (PlateCategory category : values()) {
+            BY_NAME.put(category.name(), category);
+        }
+    }
+
+    /**
+     * Busca una categoría por su nombre sin lanzar excepciones, al contrario que valueOf.
+     * @param name El nombre guardado en el plato.
+     * @return La categoría, o null si el nombre no es ninguna categoría.
+     */
+    public static PlateCategory fromName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+}
@@ -51,14 +51,46 @@ public interface PlateDao {
     int delete(Plate plate);
 
     /**
-     * Obtiene todos los platos ordenados por categoría de forma ascendente.
+     * Inserta una lista de platos en la base de datos en una única transacción.
+     *
+     * @param plates Los platos a insertar.
+     * @return Los identificadores de los platos insertados, en el mismo orden
+     * que la lista recibida (-1 si alguno se ha ignorado).
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertList(List<Plate> plates);
+
+    /**
+     * Actualiza una lista de platos en la base de datos en una única transacción.
+     *
+     * @param plates Los platos a actualizar.
+     * @return El número de filas actualizadas.
+     */
+    @Update
+    int updateList(List<Plate> plates);
+
+    /**
+     * Elimina una lista de platos de la base de datos en una única transacción.
+     *
+     * @param plates Los platos a eliminar.
+     * @return El número de filas eliminadas.
+     */
+    @Delete
+    int deleteList(List<Plate> plates);
+
+    /**
+     * Obtiene todos los platos en el orden de la carta: primeros, segundos,
+     * postres y el resto, y dentro de cada categoría por nombre.
+     *
+     * El orden de las categorías no es el alfabético, así que SQLite ordena
+     * la carta en memoria; la carta tiene como mucho unos cientos de platos.
      * @return Una lista observable de platos.
      */
     @Query("SELECT * FROM Plate ORDER BY CASE category "+
             "WHEN 'PRIMERO' THEN 1 "+
             "WHEN 'SEGUNDO' THEN 2 "+
             "WHEN 'POSTRE' THEN 3 "+
-            "ELSE 4 END")
+            "ELSE 4 END ASC, name ASC")
     LiveData<List<Plate>> getAllPlatesSortByCategory();
 
     /**
@@ -74,17 +106,6 @@ public interface PlateDao {
     @Query("SELECT * FROM Plate ORDER BY name ASC")
     LiveData<List<Plate>> getAllPlatesSortByName();
 
-    /**
-     * Obtiene todos los platos ordenados por categoría y nombre de forma ascendente.
-     * @return Una lista observable de platos.
-     */
-    @Query("SELECT * FROM Plate ORDER BY CASE category "+
-            "WHEN 'PRIMERO' THEN 1 "+
-            "WHEN 'SEGUNDO' THEN 2 "+
-            "WHEN 'POSTRE' THEN 3 "+
-            "ELSE 4 END ASC, name ASC")
-    LiveData<List<Plate>> getAllPlatesSortByCatAndName();
-
     /**
      * Obteine un plato de la base de datos a partir de su identificador.
      */
@@ -94,8 +115,39 @@ public interface PlateDao {
 
     /**
      * Obtiene los platos que no estan en un pedido dado
+     *
+     * Por cada plato se busca su línea en el pedido con la clave primaria
+     * (orderId, plateId) en lugar de construir la lista de platos del pedido.
      * @param orderid El identificador del pedido.
      */
-    @Query("SELECT * FROM Plate WHERE id NOT IN (SELECT plateid FROM OrderDetails WHERE orderid = :orderid)")
+    @Query("SELECT * FROM Plate WHERE NOT EXISTS " +
+            "(SELECT 1 FROM OrderDetails WHERE OrderDetails.orderId = :orderid AND OrderDetails.plateId = Plate.id)")
     LiveData<List<Plate>> getAllPlatesNotInOrder(long orderid);
+
+    /**
+     * Busca platos por nombre y descripción con el índice de texto completo.
+     *
+     * Solo se leen de plate las filas que encuentra el índice, como mucho
+     * limit, ordenadas por nombre.
+     * @param match La consulta MATCH, construida con {@link PlateSearch#toMatchQuery(String)}.
+     * @param limit El número máximo de platos.
+     * @return Una lista observable de platos.
+     */
+    @Query("SELECT plate.* FROM plate JOIN plate_fts ON plate.id = plate_fts.rowid " +
+            "WHERE plate_fts MATCH :match ORDER BY plate.name LIMIT :limit")
+    LiveData<List<Plate>> searchPlates(String match, int limit);
+
+    /**
+     * Busca, entre los platos que no están en un pedido dado, los que
+     * coinciden con una consulta del índice de texto completo.
+     * @param match La consulta MATCH, construida con {@link PlateSearch#toMatchQuery(String)}.
+     * @param orderid El identificador del pedido.
+     * @param limit El número máximo de platos.
+     * @return Una lista observable de platos.
+     */
+    @Query("SELECT plate.* FROM plate JOIN plate_fts ON plate.id = plate_fts.rowid " +
+            "WHERE plate_fts MATCH :match AND NOT EXISTS " +
+            "(SELECT 1 FROM OrderDetails WHERE OrderDetails.orderId = :orderid AND OrderDetails.plateId = plate.id) " +
+            "ORDER BY plate.name LIMIT :limit")
+    LiveData<List<Plate>> searchPlatesNotInOrder(String match, long orderid, int limit);
 }
@@ -0,0 +1,52 @@
+package es.unizar.eina.fleetfeast.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Índice de texto completo (FTS4) sobre el nombre y la descripción de los
+ * platos.
+ *
+ * La tabla no guarda el texto: su contenido es la tabla plate y Room crea los
+ * triggers que mantienen el índice al insertar, modificar y eliminar platos.
+ * El rowid de cada fila es el identificador del plato. El tokenizador
+ * unicode61 no distingue mayúsculas ni tildes, de modo que "pure" encuentra
+ * "Puré".
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@Fts4(contentEntity = Plate.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "plate_fts")
+public class PlateFts {
+    @NonNull
+    @ColumnInfo(name = "name")
+    private String name;
+
+    @ColumnInfo(name = "description")
+    private String description;
+
+    /**
+     * Constructor de la clase PlateFts.
+     * @param name        El nombre del plato.
+     * @param description La descripción del plato.
+     */
+    public PlateFts(@NonNull String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    /** Devuelve el nombre del plato */
+    @NonNull
+    public String getName() {
+        return this.name;
+    }
+
+    /** Devuelve la descripción del plato */
+    public String getDescription() {
+        return this.description;
+    }
+}
@@ -0,0 +1,60 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ordenación en memoria de listas de platos, con el mismo criterio que las
+ * consultas de {@link PlateDao}: las categorías en el orden del menú y después
+ * el nombre.
+ *
+ * No depende de Android, de modo que se puede medir y probar en la JVM.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public final class PlateOrdering {
+
+    private PlateOrdering() {
+    }
+
+    /**
+     * Ordena una lista de platos.
+     * @param plates La lista de platos.
+     * @param sort "name", "category" o "both".
+     * @return Una copia ordenada de la lista.
+     */
+    public static List<Plate> sort(List<Plate> plates, String sort) {
+        List<Plate> sorted = new ArrayList<>(plates);
+        Comparator<Plate> byCategory = Comparator.comparingInt(plate -> categoryRank(plate.getCategory()));
+        switch (sort) {
+            case "category":
+            case "both":
+                sorted.sort(byCategory.thenComparing(Plate::getName));
+                break;
+            default:
+                sorted.sort(Comparator.comparing(Plate::getName));
+                break;
+        }
+        return sorted;
+    }
+
+    /**
+     * Devuelve la posición de una categoría en el menú.
+     * @param category La categoría del plato.
+     * @return La posición de la categoría.
+     */
+    public static int categoryRank(String category) {
+        switch (category) {
+            case "PRIMERO":
+                return 1;
+            case "SEGUNDO":
+                return 2;
+            case "POSTRE":
+                return 3;
+            default:
+                return 4;
+        }
+    }
+}
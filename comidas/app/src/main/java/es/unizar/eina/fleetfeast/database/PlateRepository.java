@@ -2,20 +2,26 @@ package es.unizar.eina.fleetfeast.database;
 
 
 import android.app.Application;
-import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repositorio de funciones de los platos
  *
+ * Todas las operaciones se ejecutan en el hilo de la base de datos y devuelven
+ * un {@link CompletableFuture} que se completa en ese hilo con el resultado real
+ * de la operación. Los métodos *AndWait esperan a ese resultado.
+ *
+ * Las escrituras de un plato que no es válido fallan con una
+ * {@link ValidationException}; las de una lista escriben los platos válidos y
+ * devuelven en un {@link BatchResult} los errores de los demás.
+ *
  * @author Abel Romeo
  * @author Diego Roldán
  */
@@ -43,10 +49,12 @@ public class PlateRepository {
     }
 
     /** Elimina todos los platos de la base de datos
+     * @return un futuro que se completa cuando se han eliminado los platos.
      */
-    public void deleteAll() {
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
+    public CompletableFuture<Void> deleteAll() {
+        return FleetfeastRoomDatabase.writeAsync("PlateRepository.deleteAll", () -> {
             mPlateDao.deleteAll();
+            return null;
         });
     }
 
@@ -59,94 +67,57 @@ public class PlateRepository {
             case "name":
                 return mPlateDao.getAllPlatesSortByName();
             case "category":
-                return mPlateDao.getAllPlatesSortByCategory();
             case "both":
-                return mPlateDao.getAllPlatesSortByCatAndName();
+                // La carta ya ordena por nombre dentro de cada categoría.
+                return mPlateDao.getAllPlatesSortByCategory();
         }
         return mPlateDao.getAllPlatesSortByName();
     }
 
     /** Inserta un plato
      * @param plate plato a insertar
-     * @return un valor entero largo con el identificador del plato que se ha creado.
-     */
-    public long insert(Plate plate) {
-        if (plate == null
-                || plate.getName().length() == 0
-                || (plate.getCategory() != "PRIMERO" && plate.getCategory() != "SEGUNDO" && plate.getCategory() != "POSTRE")
-                || plate.getPrize() < 0.0f) {
-            return -1;
+     * @return un futuro con el identificador del plato que se ha creado; si el
+     * plato no es válido, falla con una {@link ValidationException}.
+     */
+    public CompletableFuture<Long> insert(Plate plate) {
+        List<Validation.FieldError> errors = Validation.validatePlate(plate);
+        if (!errors.isEmpty()) {
+            return ValidationException.failed(errors);
         }
 
-        float prize = plate.getPrize();
-        prize *= 100;
-        prize = Math.round(prize);
-        prize /= 100;
-        plate.setPrize(prize);
-
-        final long[] result = {0};
         // You must call this on a non-UI thread or your app will throw an exception. Room ensures
         // that you're not doing any long running operations on the main thread, blocking the UI.
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mPlateDao.insert(plate);
-        });
-        return result[0];
+        return FleetfeastRoomDatabase.writeAsync("PlateRepository.insert", () -> mPlateDao.insert(plate));
     }
 
     /** Modifica un plato
      * @param plate plato a modificar
-     * @return un valor entero con el número de filas modificadas.
-     */
-    public int update(Plate plate) {
-        if (plate == null
-                || plate.getName().length() == 0
-                || (plate.getCategory() != "PRIMERO" && plate.getCategory() != "SEGUNDO" && plate.getCategory() != "POSTRE")
-                || plate.getPrize() < 0.0f) {
-            return -1;
+     * @return un futuro con el número de filas modificadas; si el plato no es
+     * válido, falla con una {@link ValidationException}.
+     */
+    public CompletableFuture<Integer> update(Plate plate) {
+        List<Validation.FieldError> errors = Validation.validatePlate(plate);
+        if (!errors.isEmpty()) {
+            return ValidationException.failed(errors);
         }
 
-        float prize = plate.getPrize();
-        prize *= 100;
-        prize = Math.round(prize);
-        prize /= 100;
-        plate.setPrize(prize);
-
-        final int[] result = {0};
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mPlateDao.update(plate);
-        });
-        return result[0];
+        return FleetfeastRoomDatabase.writeAsync("PlateRepository.update", () -> mPlateDao.update(plate));
     }
 
     /** Elimina un plato
      * @param plate plato a eliminar
-     * @return un valor entero con el número de filas eliminadas.
+     * @return un futuro con el número de filas eliminadas.
      */
-    public int delete(Plate plate) {
-        final int[] result = {0};
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mPlateDao.delete(plate);
-        });
-        return result[0];
+    public CompletableFuture<Integer> delete(Plate plate) {
+        return FleetfeastRoomDatabase.writeAsync("PlateRepository.delete", () -> mPlateDao.delete(plate));
     }
 
-    /** Devuelve un plato dado un identificador
+    /** Devuelve un plato dado un identificador sin bloquear al llamante
      * @param id identificador del plato
-     * @return un plato
-     */
-    public Plate getPlateById(int id) {
-        final CountDownLatch latch = new CountDownLatch(1);
-        final Plate[] result = {null};
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result[0] = mPlateDao.getPlateById(id);
-            latch.countDown(); // Indicar que la operación ha finalizado
-        });
-        try {
-            latch.await(); // Bloquear el hilo principal hasta que la operación se complete
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-        return result[0];
+     * @return un futuro con el plato, o null si no existe
+     */
+    public CompletableFuture<Plate> getPlateById(int id) {
+        return FleetfeastRoomDatabase.readAsync("PlateRepository.getPlateById", () -> mPlateDao.getPlateById(id));
     }
 
     /** Devuelve una lista de platos que no están en un pedido dado
@@ -157,74 +128,47 @@ public class PlateRepository {
         return mPlateDao.getAllPlatesNotInOrder(orderid);
     }
 
+    /** Número máximo de platos que devuelve una búsqueda. */
+    static final int SEARCH_LIMIT = 200;
+
+    /** Busca platos por nombre y descripción
+     * @param match consulta MATCH, construida con {@link PlateSearch#toMatchQuery(String)}
+     * @return una lista de como mucho {@link #SEARCH_LIMIT} platos, ordenada por nombre
+     */
+    public LiveData<List<Plate>> searchPlates(String match) {
+        return mPlateDao.searchPlates(match, SEARCH_LIMIT);
+    }
+
+    /** Busca platos por nombre y descripción entre los que no están en un pedido dado
+     * @param match consulta MATCH, construida con {@link PlateSearch#toMatchQuery(String)}
+     * @param orderid identificador del pedido
+     * @return una lista de como mucho {@link #SEARCH_LIMIT} platos, ordenada por nombre
+     */
+    public LiveData<List<Plate>> searchPlatesNotInOrder(String match, long orderid) {
+        return mPlateDao.searchPlatesNotInOrder(match, orderid, SEARCH_LIMIT);
+    }
+
 
      private final long TIMEOUT = 10000;
     /** Inserta un plato y espera a que se complete la operación
      * para devolver el identificador del plato que se ha creado.
      * @param plate plato a insertar
-     * @return un valor entero largo con el identificador
+     * @return un valor entero largo con el identificador, o -1 si el plato no es válido
      */
     public long insertAndWait(Plate plate) {
-        if (plate == null
-                || plate.getName().length() == 0
-                || (plate.getCategory() != "PRIMERO" && plate.getCategory() != "SEGUNDO" && plate.getCategory() != "POSTRE")
-                || plate.getPrize() < 0.0f) {
-            return -1;
-        }
-
-        float prize = plate.getPrize();
-        prize *= 100;
-        prize = Math.round(prize);
-        prize /= 100;
-        plate.setPrize(prize);
-
-        AtomicLong result = new AtomicLong();
-        Semaphore semaphore = new Semaphore(0);
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result.set(mPlateDao.insert(plate));
-            semaphore.release();
-        });
-        try {
-            semaphore.tryAcquire(TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.d("PlateRepository", "insertAndWait: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return result.get();
+        return FleetfeastRoomDatabase.awaitWrite(insert(plate), "PlateRepository.insert", TIMEOUT, 0L, -1L,
+                "PlateRepository.insertAndWait");
     }
 
     /** Modifica un plato y espera a que se complete la operación
      * para devolver el número de filas modificadas.
      * @param plate plato a modificar
-     * @return un valor entero con el número de filas modificadas.
+     * @return un valor entero con el número de filas modificadas, 0 si el
+     * plato no es válido.
      */
     public int updateAndWait(Plate plate) {
-        if (plate == null
-                || plate.getName().length() == 0
-                || (plate.getCategory() != "PRIMERO" && plate.getCategory() != "SEGUNDO" && plate.getCategory() != "POSTRE")
-                || plate.getPrize() < 0.0f) {
-            return 0;
-        }
-
-        float prize = plate.getPrize();
-        prize *= 100;
-        prize = Math.round(prize);
-        prize /= 100;
-        plate.setPrize(prize);
-
-        AtomicInteger result = new AtomicInteger();
-        Semaphore semaphore = new Semaphore(0);
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result.set(mPlateDao.update(plate));
-            semaphore.release();
-        });
-        try {
-            semaphore.tryAcquire(TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.d("PlateRepository", "updateAndWait: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return result.get();
+        return FleetfeastRoomDatabase.awaitWrite(update(plate), "PlateRepository.update", TIMEOUT, 0,
+                "PlateRepository.updateAndWait");
     }
 
     /** Elimina un plato y espera a que se complete la operación
@@ -233,19 +177,107 @@ public class PlateRepository {
      * @return un valor entero con el número de filas eliminadas.
      */
     public int deleteAndWait(Plate plate) {
-        AtomicInteger result = new AtomicInteger();
-        Semaphore semaphore = new Semaphore(0);
-        FleetfeastRoomDatabase.databaseWriteExecutor.execute(() -> {
-            result.set(mPlateDao.delete(plate));
-            semaphore.release();
+        return FleetfeastRoomDatabase.awaitWrite(delete(plate), "PlateRepository.delete", TIMEOUT, 0,
+                "PlateRepository.deleteAndWait");
+    }
+
+    /** Inserta una lista de platos en una única transacción.
+     * Los platos que no son válidos no se insertan.
+     * @param plates platos a insertar
+     * @return un futuro con los identificadores de los platos creados, en el mismo
+     * orden que la lista recibida (-1 para los platos no válidos), y los errores
+     * de los platos no válidos.
+     */
+    public CompletableFuture<BatchResult<List<Long>>> insertList(List<Plate> plates) {
+        Map<Integer, List<Validation.FieldError>> errors = Validation.validatePlates(plates);
+        List<Plate> valid = new ArrayList<>(plates.size());
+        for (int i = 0; i < plates.size(); i++) {
+            if (!errors.containsKey(i)) {
+                valid.add(plates.get(i));
+            }
+        }
+        if (valid.isEmpty()) {
+            List<Long> ids = new ArrayList<>(plates.size());
+            for (int i = 0; i < plates.size(); i++) {
+                ids.add(-1L);
+            }
+            return CompletableFuture.completedFuture(new BatchResult<>(ids, errors));
+        }
+
+        return FleetfeastRoomDatabase.writeAsync("PlateRepository.insertList", () -> {
+            List<Long> inserted = mPlateDao.insertList(valid);
+            // La lista se crea dentro: si el lote falla, la escritura se repite.
+            List<Long> ids = new ArrayList<>(plates.size());
+            int next = 0;
+            for (int i = 0; i < plates.size(); i++) {
+                ids.add(errors.containsKey(i) ? -1L : inserted.get(next++));
+            }
+            return new BatchResult<>(ids, errors);
         });
-        try {
-            semaphore.tryAcquire(TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.d("PlateRepository", "deleteAndWait: " + e.getMessage());
-            e.printStackTrace();
+    }
+
+    /** Inserta una lista de platos en una única transacción y espera a que se
+     * complete la operación. Los platos que no son válidos no se insertan.
+     * @param plates platos a insertar
+     * @return los identificadores de los platos creados, en el mismo orden que
+     * la lista recibida (-1 para los platos no válidos), y los errores de los
+     * platos no válidos. Si la escritura falla, la lista está vacía y no hay
+     * errores.
+     */
+    public BatchResult<List<Long>> insertListAndWait(List<Plate> plates) {
+        return FleetfeastRoomDatabase.awaitWrite(insertList(plates), "PlateRepository.insertList", TIMEOUT,
+                new BatchResult<>(new ArrayList<>(), Collections.emptyMap()),
+                "PlateRepository.insertListAndWait");
+    }
+
+    /** Modifica una lista de platos en una única transacción.
+     * Los platos que no son válidos no se modifican.
+     * @param plates platos a modificar
+     * @return un futuro con el número de filas modificadas y los errores de los
+     * platos no válidos.
+     */
+    public CompletableFuture<BatchResult<Integer>> updateList(List<Plate> plates) {
+        Map<Integer, List<Validation.FieldError>> errors = Validation.validatePlates(plates);
+        List<Plate> valid = new ArrayList<>(plates.size());
+        for (int i = 0; i < plates.size(); i++) {
+            if (!errors.containsKey(i)) {
+                valid.add(plates.get(i));
+            }
+        }
+        if (valid.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchResult<>(0, errors));
         }
-        return result.get();
+        return FleetfeastRoomDatabase.writeAsync("PlateRepository.updateList", () ->
+                new BatchResult<>(mPlateDao.updateList(valid), errors));
     }
-}
 
+    /** Modifica una lista de platos en una única transacción y espera a que se
+     * complete la operación. Los platos que no son válidos no se modifican.
+     * @param plates platos a modificar
+     * @return el número de filas modificadas y los errores de los platos no
+     * válidos. Si la escritura falla, el número de filas es 0 y no hay errores.
+     */
+    public BatchResult<Integer> updateListAndWait(List<Plate> plates) {
+        return FleetfeastRoomDatabase.awaitWrite(updateList(plates), "PlateRepository.updateList", TIMEOUT,
+                new BatchResult<>(0, Collections.emptyMap()),
+                "PlateRepository.updateListAndWait");
+    }
+
+    /** Elimina una lista de platos en una única transacción.
+     * @param plates platos a eliminar
+     * @return un futuro con el número de filas eliminadas.
+     */
+    public CompletableFuture<Integer> deleteList(List<Plate> plates) {
+        return FleetfeastRoomDatabase.writeAsync("PlateRepository.deleteList", () -> mPlateDao.deleteList(plates));
+    }
+
+    /** Elimina una lista de platos en una única transacción y espera a que se
+     * complete la operación.
+     * @param plates platos a eliminar
+     * @return un valor entero con el número de filas eliminadas.
+     */
+    public int deleteListAndWait(List<Plate> plates) {
+        return FleetfeastRoomDatabase.awaitWrite(deleteList(plates), "PlateRepository.deleteList", TIMEOUT, 0,
+                "PlateRepository.deleteListAndWait");
+    }
+}
@@ -0,0 +1,46 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Traduce el texto que escribe el usuario en el buscador de platos a una
+ * consulta MATCH de {@link PlateFts}.
+ *
+ * Cada palabra se busca como prefijo ("pol" encuentra "Pollo") y todas las
+ * palabras tienen que aparecer, en el nombre o en la descripción. Se quitan
+ * los signos de puntuación y se pasa todo a minúsculas, de modo que el texto
+ * del usuario no puede formar operadores de FTS (comillas, *, -, OR, NEAR...).
+ *
+ * No depende de Android, de modo que se puede medir y probar en la JVM.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public final class PlateSearch {
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private PlateSearch() {
+    }
+
+    /**
+     * Construye la consulta MATCH a partir del texto del buscador.
+     * @param text El texto escrito por el usuario.
+     * @return La consulta, o null si el texto no tiene ninguna palabra.
+     */
+    public static String toMatchQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append(word).append('*');
+            }
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+}
@@ -0,0 +1,294 @@
+package es.unizar.eina.fleetfeast.database;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Estadísticas de las sentencias SQL ejecutadas por la base de datos.
+ *
+ * Las sentencias se agrupan por forma: el SQL con los literales sustituidos
+ * por ? y las listas IN (?, ?, ...) reducidas a IN (?), de modo que una misma
+ * consulta con distintos argumentos cuenta como una sola. Por cada forma se
+ * guarda un {@link LatencyHistogram} y, la primera vez que es lenta, la
+ * salida de EXPLAIN QUERY PLAN. Las últimas sentencias lentas se guardan
+ * además en un registro de tamaño limitado.
+ *
+ * Solo se recogen si se activan con {@link #setEnabled(boolean)} antes de
+ * abrir la base de datos; las mide {@link TimingOpenHelperFactory}.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class QueryStats {
+    /** Una sentencia es lenta si tarda más que un fotograma. */
+    static final long SLOW_QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+    private static final int SLOW_LOG_SIZE = 100;
+    private static final int MAX_SHAPES = 500;
+    private static final String OTHER_SHAPE = "<other>";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w`])-?\\d+(?:\\.\\d+)?(?![\\w`])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static volatile boolean sEnabled;
+    private static final QueryStats INSTANCE = new QueryStats();
+
+    private final Map<String, Shape> mShapes = new ConcurrentHashMap<>();
+    private final ArrayDeque<SlowQuery> mSlowQueries = new ArrayDeque<>(SLOW_LOG_SIZE);
+
+    /**
+     * Estadísticas de una forma de sentencia.
+     */
+    static class Shape {
+        final String mSql;
+        final LatencyHistogram mLatency = new LatencyHistogram();
+        final AtomicBoolean mPlanCaptured = new AtomicBoolean();
+        volatile String mPlan;
+
+        Shape(String sql) {
+            mSql = sql;
+        }
+    }
+
+    /**
+     * Una sentencia lenta del registro.
+     */
+    static class SlowQuery {
+        final String mSql;
+        final String mArgs;
+        final long mNanos;
+        final long mTimeMillis;
+
+        SlowQuery(String sql, String args, long nanos, long timeMillis) {
+            mSql = sql;
+            mArgs = args;
+            mNanos = nanos;
+            mTimeMillis = timeMillis;
+        }
+    }
+
+    /**
+     * Activa o desactiva la recogida de estadísticas. Solo tiene efecto si se
+     * llama antes de abrir la base de datos por primera vez.
+     * @param enabled true para medir las sentencias.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * @return true si se miden las sentencias.
+     */
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * @return Las estadísticas de la base de datos de la aplicación.
+     */
+    public static QueryStats getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registra la ejecución de una sentencia.
+     * @param sql   El SQL tal como se ha ejecutado.
+     * @param args  Los argumentos, o null si no tiene.
+     * @param nanos La duración en nanosegundos.
+     * @return true si la sentencia es lenta y todavía no se ha capturado el
+     * plan de su forma; en ese caso el llamante debe pasarlo a
+     * {@link #setPlan(String, String)}.
+     */
+    boolean record(String sql, Object[] args, long nanos) {
+        String shape = shapeOf(sql);
+        Shape stats = mShapes.get(shape);
+        if (stats == null) {
+            if (mShapes.size() >= MAX_SHAPES) {
+                shape = OTHER_SHAPE;
+            }
+            stats = mShapes.get(shape);
+            if (stats == null) {
+                Shape created = new Shape(shape);
+                stats = mShapes.putIfAbsent(shape, created);
+                if (stats == null) {
+                    stats = created;
+                }
+            }
+        }
+        stats.mLatency.record(nanos);
+
+        if (nanos < SLOW_QUERY_NANOS) {
+            return false;
+        }
+        synchronized (mSlowQueries) {
+            if (mSlowQueries.size() == SLOW_LOG_SIZE) {
+                mSlowQueries.removeFirst();
+            }
+            mSlowQueries.addLast(new SlowQuery(shape, argsShapeOf(args), nanos, System.currentTimeMillis()));
+        }
+        return !OTHER_SHAPE.equals(shape) && stats.mPlanCaptured.compareAndSet(false, true);
+    }
+
+    /**
+     * Guarda el plan de ejecución de la forma de una sentencia.
+     * @param sql  El SQL tal como se ha ejecutado.
+     * @param plan La salida de EXPLAIN QUERY PLAN, una línea por paso.
+     */
+    void setPlan(String sql, String plan) {
+        Shape stats = mShapes.get(shapeOf(sql));
+        if (stats != null) {
+            stats.mPlan = plan;
+        }
+    }
+
+    /**
+     * Borra todas las estadísticas recogidas.
+     */
+    public void reset() {
+        mShapes.clear();
+        synchronized (mSlowQueries) {
+            mSlowQueries.clear();
+        }
+    }
+
+    /**
+     * Devuelve las formas de sentencia ordenadas por tiempo total, de mayor a menor.
+     */
+    List<Shape> getShapes() {
+        List<Shape> shapes = new ArrayList<>(mShapes.values());
+        Collections.sort(shapes, (a, b) -> Long.compare(
+                b.mLatency.getMean() * b.mLatency.getCount(),
+                a.mLatency.getMean() * a.mLatency.getCount()));
+        return shapes;
+    }
+
+    /**
+     * Exporta las estadísticas en JSON: por cada forma el número de
+     * ejecuciones, las latencias en nanosegundos y el plan, y el registro de
+     * sentencias lentas.
+     * @return Las estadísticas en JSON.
+     * @throws JSONException Si no se puede construir el JSON.
+     */
+    public JSONObject toJson() throws JSONException {
+        JSONArray shapes = new JSONArray();
+        for (Shape shape : getShapes()) {
+            LatencyHistogram latency = shape.mLatency;
+            JSONObject json = new JSONObject()
+                    .put("sql", shape.mSql)
+                    .put("count", latency.getCount())
+                    .put("meanNanos", latency.getMean())
+                    .put("p50Nanos", latency.getPercentile(50))
+                    .put("p95Nanos", latency.getPercentile(95))
+                    .put("p99Nanos", latency.getPercentile(99))
+                    .put("maxNanos", latency.getMax());
+            if (shape.mPlan != null) {
+                json.put("plan", shape.mPlan);
+            }
+            shapes.put(json);
+        }
+
+        JSONArray slow = new JSONArray();
+        synchronized (mSlowQueries) {
+            for (SlowQuery query : mSlowQueries) {
+                slow.put(new JSONObject()
+                        .put("sql", query.mSql)
+                        .put("args", query.mArgs)
+                        .put("nanos", query.mNanos)
+                        .put("timeMillis", query.mTimeMillis));
+            }
+        }
+
+        return new JSONObject()
+                .put("slowQueryNanos", SLOW_QUERY_NANOS)
+                .put("shapes", shapes)
+                .put("slowQueries", slow);
+    }
+
+    /**
+     * Escribe las estadísticas en JSON en un fichero, para analizarlas fuera
+     * de la aplicación (por ejemplo, con adb pull).
+     * @param file El fichero de destino; se sobrescribe.
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    public void writeTo(File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(toJson().toString(2));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Resume en una línea por forma las sentencias que más tiempo suman.
+     * @return Las diez primeras formas con su histograma.
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        List<Shape> shapes = getShapes();
+        for (int i = 0; i < shapes.size() && i < 10; i++) {
+            summary.append(shapes.get(i).mLatency).append("  ").append(shapes.get(i).mSql).append('\n');
+        }
+        synchronized (mSlowQueries) {
+            summary.append(mSlowQueries.size()).append(" slow queries");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Forma de una sentencia: literales sustituidos por ?, listas IN (?, ?, ...)
+     * reducidas a IN (?) y espacios normalizados.
+     */
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("IN (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    /**
+     * Tipos de los argumentos, sin sus valores, por ejemplo [long, text, null].
+     */
+    static String argsShapeOf(Object[] args) {
+        if (args == null || args.length == 0) {
+            return "[]";
+        }
+        StringBuilder shape = new StringBuilder("[");
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                shape.append(", ");
+            }
+            Object arg = args[i];
+            if (arg == null) {
+                shape.append("null");
+            } else if (arg instanceof Long || arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+                shape.append("long");
+            } else if (arg instanceof Double || arg instanceof Float) {
+                shape.append("double");
+            } else if (arg instanceof byte[]) {
+                shape.append("blob");
+            } else {
+                shape.append("text");
+            }
+        }
+        return shape.append(']').toString();
+    }
+}
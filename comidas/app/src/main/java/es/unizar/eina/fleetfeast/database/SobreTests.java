@@ -16,9 +16,6 @@ public class SobreTests {
     OrdersRepository mOrdersRepository;
     OrderDetailsRepository mOrdersDetailsRepository;
 
-    final int NUM_PLATES = 100;
-    final int NUM_ORDERS = 2000;
-
     public SobreTests(PlateViewModel mPlateViewModel, OrderViewModel mOrdersViewModel,
                       OrderDetailsViewModel mOrdersDetailsViewModel) {
         this.mPlateRepository = mPlateViewModel.getRepository();
@@ -50,17 +47,20 @@ public class SobreTests {
         mPlateRepository.deleteAll();
         long res;
         try {
+            int inserted = 0;
             int des_len = 1;
             String description = "";
             while (true) {
-                res = mPlateRepository.insertAndWait(new Plate("vol_test_len_" + des_len, description, "PRIMERO", 10.0f));
+                res = mPlateRepository.insertAndWait(new Plate("vol_test_len_" + des_len, description, "PRIMERO", 1000));
                 if (res == -1) {
                     throw new Exception("maxDescriptionSize: insertAndWait returned -1");
                 }
                 des_len += 1024;
                 description += "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
-                System.out.print("inserted plate with description.length:" + des_len);
-                System.out.println("\treturned id: " + res);
+                inserted++;
+                if (inserted % 100 == 0) {
+                    Log.d("SobrecargaTests", "maxDescriptionSize: description.length " + des_len + ", id " + res);
+                }
             }
         }
         catch (Exception e) {
@@ -74,9 +74,13 @@ public class SobreTests {
      * Inserta datos hasta que la base de datos se llene.
      *         19468 pedidos con 1 orderdetails cada uno.
      *         974 platos.
+     * @param config Proporción de platos y pedidos: por cada plato se insertan
+     *               orders / plates pedidos.
      */
-    public void testMaxData() {
-        Log.d("VolumenTests", "testMaxData");
+    public void testMaxData(LoadHarness.Config config) {
+        config.check();
+        int ordersPerPlate = Math.max(1, config.mOrders / config.mPlates);
+        Log.d("SobrecargaTests", "testMaxData: " + config);
         mPlateRepository.deleteAll();
         mOrdersRepository.deleteAll();
         mOrdersDetailsRepository.deleteAll();
@@ -84,21 +88,22 @@ public class SobreTests {
         try {
             int plates_added = 0, orders_added = 0;
             while (true) {
-                long plate_id = mPlateRepository.insertAndWait(new Plate("vol_test_max_" + plates_added, "PRIMERO", "PRIMERO", 10.0f));
+                long plate_id = mPlateRepository.insertAndWait(new Plate("vol_test_max_" + plates_added, "PRIMERO", "PRIMERO", 1000));
                 plates_added++;
-                System.out.println("inserted plate " + plates_added);
 
-                for (int j = 0; j < NUM_ORDERS / NUM_PLATES; j++) {
+                for (int j = 0; j < ordersPerPlate; j++) {
                     long order_id = mOrdersRepository.insertAndWait(new Orders("vol_test_max_" + orders_added,
-                            900000000 + orders_added, "2024/01/12  21:00", "SOLICITADO"));
-                    mOrdersDetailsRepository.insertAndWait(new OrderDetails(order_id, (int) plate_id, 1, 10.0f));
+                            900000000 + orders_added, PickupTime.parse("2024/01/12  21:00"), "SOLICITADO"));
+                    mOrdersDetailsRepository.insertAndWait(new OrderDetails(order_id, (int) plate_id, 1, 1000));
                     orders_added++;
-                    System.out.println("inserted order " + orders_added);
+                    if (orders_added % 1000 == 0) {
+                        Log.d("SobrecargaTests", "testMaxData: " + plates_added + " plates, " + orders_added + " orders");
+                    }
                 }
             }
         }
         catch (Exception e) {
-            Log.d("VolumenTests", "testMaxData: " + e.getMessage());
+            Log.d("SobrecargaTests", "testMaxData: " + e.getMessage());
             e.printStackTrace();
         }
     }
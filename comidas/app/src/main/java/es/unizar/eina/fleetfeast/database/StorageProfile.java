@@ -0,0 +1,148 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Perfiles de almacenamiento de SQLite: modo de diario, sincronización con
+ * el disco y, sin WAL, caché de páginas y ficheros temporales.
+ *
+ * <ul>
+ *     <li>DEFAULT: no cambia nada; Room elige el modo de diario (AUTOMATIC:
+ *     WAL salvo en dispositivos con poca RAM) y Android el resto. Es el
+ *     perfil por defecto.</li>
+ *     <li>DURABLE: WAL con synchronous=FULL; cada commit llega al disco antes
+ *     de confirmarse.</li>
+ *     <li>RUSH_HOUR: WAL con synchronous=NORMAL. Un corte de corriente puede
+ *     perder los últimos commits, pero no corromper la base de datos, y un
+ *     cierre inesperado de la aplicación no pierde nada.</li>
+ *     <li>LOW_MEMORY: diario clásico (sin el fichero -shm de WAL), 512 KB de
+ *     caché y temporales en disco.</li>
+ * </ul>
+ *
+ * El modo de diario lo gestiona Room; el resto son PRAGMA que se aplican al
+ * abrir la base de datos. Room 2.3 solo avisa de la apertura de la conexión
+ * principal y Android no deja configurar las demás, así que solo se usan
+ * PRAGMA que sirven en esa conexión: synchronous, que solo importa a quien
+ * escribe, y la caché y los temporales de LOW_MEMORY, que sin WAL tiene una
+ * única conexión para las lecturas y las escrituras. Con WAL, la caché de las
+ * conexiones de lectura queda siempre con los valores de Android.
+ *
+ * El perfil se elige en el menú de la aplicación, se guarda en las
+ * preferencias y se aplica la siguiente vez que se abre la base de datos.
+ * StorageProfileBenchmark, en el módulo microbenchmark, mide la velocidad de
+ * inserción y de carga de la lista de pedidos con cada perfil.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public enum StorageProfile {
+    DEFAULT(null, null, null, null),
+    DURABLE(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, "FULL", null, null),
+    RUSH_HOUR(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING, "NORMAL", null, null),
+    LOW_MEMORY(RoomDatabase.JournalMode.TRUNCATE, "FULL", -512, "FILE");
+
+    private static final String PREFERENCES = "storage";
+    private static final String PROFILE = "profile";
+
+    private final RoomDatabase.JournalMode mJournalMode;
+    private final String mSynchronous;
+    private final Integer mCacheSize;
+    private final String mTempStore;
+
+    /**
+     * Los valores null dejan el valor por defecto de Room o de Android.
+     * @param journalMode El modo de diario.
+     * @param synchronous El valor de PRAGMA synchronous.
+     * @param cacheSize   El valor de PRAGMA cache_size: en páginas si es
+     *                    positivo, en KB si es negativo. Solo sin WAL.
+     * @param tempStore   El valor de PRAGMA temp_store. Solo sin WAL.
+     */
+    StorageProfile(RoomDatabase.JournalMode journalMode, String synchronous, Integer cacheSize,
+                   String tempStore) {
+        mJournalMode = journalMode;
+        mSynchronous = synchronous;
+        mCacheSize = cacheSize;
+        mTempStore = tempStore;
+    }
+
+    /**
+     * Configura un constructor de Room con este perfil.
+     * @param builder El constructor de la base de datos.
+     * @return El mismo constructor.
+     */
+    public <T extends RoomDatabase> RoomDatabase.Builder<T> applyTo(RoomDatabase.Builder<T> builder) {
+        if (mJournalMode != null) {
+            builder.setJournalMode(mJournalMode);
+        }
+        if (mSynchronous == null && mCacheSize == null && mTempStore == null) {
+            return builder;
+        }
+        return builder.addCallback(new RoomDatabase.Callback() {
+            @Override
+            public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                applyPragmas(db);
+            }
+        });
+    }
+
+    /**
+     * Aplica los PRAGMA del perfil a la conexión principal.
+     * @param db La conexión.
+     */
+    void applyPragmas(SupportSQLiteDatabase db) {
+        if (mSynchronous != null) {
+            pragma(db, "synchronous = " + mSynchronous);
+        }
+        if (mCacheSize != null) {
+            pragma(db, "cache_size = " + mCacheSize);
+        }
+        if (mTempStore != null) {
+            pragma(db, "temp_store = " + mTempStore);
+        }
+    }
+
+    /**
+     * Algunos PRAGMA devuelven una fila y Android no los admite en execSQL,
+     * así que todos se ejecutan como consulta.
+     */
+    private static void pragma(SupportSQLiteDatabase db, String pragma) {
+        try (Cursor cursor = db.query("PRAGMA " + pragma)) {
+            cursor.moveToFirst();
+        }
+    }
+
+    /**
+     * Devuelve el perfil elegido por el usuario.
+     * @param context El contexto de la aplicación.
+     * @return El perfil guardado en las preferencias, o DEFAULT si no hay ninguno.
+     */
+    public static StorageProfile load(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        String name = preferences.getString(PROFILE, DEFAULT.name());
+        for (StorageProfile profile : values()) {
+            if (profile.name().equals(name)) {
+                return profile;
+            }
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * Guarda el perfil elegido por el usuario. Se aplica la siguiente vez que
+     * se abre la base de datos, es decir, al reiniciar la aplicación.
+     * @param context El contexto de la aplicación.
+     * @param profile El perfil.
+     */
+    public static void save(Context context, StorageProfile profile) {
+        context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE)
+                .edit()
+                .putString(PROFILE, profile.name())
+                .apply();
+    }
+}
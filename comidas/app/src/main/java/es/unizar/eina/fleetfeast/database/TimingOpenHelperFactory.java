@@ -0,0 +1,574 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.CancellationSignal;
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteProgram;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Fábrica de conexiones que mide cada sentencia SQL y la registra en
+ * {@link QueryStats}.
+ *
+ * Envuelve la fábrica real, del mismo modo que Room envuelve la suya para
+ * {@code RoomDatabase.QueryCallback}: ese callback solo avisa de la sentencia
+ * antes de ejecutarla y no da su duración, así que la medida se toma aquí.
+ * Las consultas se miden hasta que el cursor ha leído su primera ventana de
+ * filas, que es cuando SQLite ejecuta realmente la consulta.
+ *
+ * Cuando una forma de sentencia es lenta por primera vez se obtiene su plan
+ * con EXPLAIN QUERY PLAN sobre la misma conexión.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+class TimingOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    private static final String TAG = "QueryStats";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final SupportSQLiteOpenHelper.Factory mDelegate;
+    private final QueryStats mStats;
+
+    TimingOpenHelperFactory(SupportSQLiteOpenHelper.Factory delegate, QueryStats stats) {
+        mDelegate = delegate;
+        mStats = stats;
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteOpenHelper create(@NonNull SupportSQLiteOpenHelper.Configuration configuration) {
+        return new TimingOpenHelper(mDelegate.create(configuration), mStats);
+    }
+
+    /**
+     * Registra una sentencia y, si es la primera vez que su forma es lenta,
+     * captura su plan.
+     */
+    static void record(SupportSQLiteDatabase db, QueryStats stats, String sql, Object[] args, long nanos) {
+        if (stats.record(sql, args, nanos)) {
+            stats.setPlan(sql, explain(db, sql, args));
+            Log.w(TAG, String.format(Locale.ROOT, "slow query (%.1f ms): %s",
+                    nanos / 1e6, QueryStats.shapeOf(sql)));
+        }
+    }
+
+    /**
+     * Obtiene el plan de una sentencia, una línea por paso, o una explicación
+     * si la sentencia no tiene plan.
+     */
+    private static String explain(SupportSQLiteDatabase db, String sql, Object[] args) {
+        String verb = WHITESPACE.split(sql.trim(), 2)[0].toUpperCase(Locale.ROOT);
+        if (!verb.equals("SELECT") && !verb.equals("WITH") && !verb.equals("INSERT")
+                && !verb.equals("REPLACE") && !verb.equals("UPDATE") && !verb.equals("DELETE")) {
+            return "(no plan for " + verb + ")";
+        }
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.query(new SimpleSQLiteQuery("EXPLAIN QUERY PLAN " + sql, args))) {
+            int detail = cursor.getColumnIndex("detail");
+            while (cursor.moveToNext()) {
+                if (plan.length() > 0) {
+                    plan.append('\n');
+                }
+                plan.append(cursor.getString(detail));
+            }
+        } catch (RuntimeException e) {
+            return "(no plan: " + e.getMessage() + ")";
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Programa que solo guarda los argumentos, para saber con qué argumentos
+     * se ha ejecutado una consulta de Room.
+     */
+    static class ArgsCapture implements SupportSQLiteProgram {
+        private final List<Object> mArgs = new ArrayList<>();
+
+        private void set(int index, Object value) {
+            while (mArgs.size() < index) {
+                mArgs.add(null);
+            }
+            mArgs.set(index - 1, value);
+        }
+
+        Object[] toArray() {
+            return mArgs.toArray();
+        }
+
+        @Override
+        public void bindNull(int index) {
+            set(index, null);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            set(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            set(index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            set(index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            set(index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mArgs.clear();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    static class TimingOpenHelper implements SupportSQLiteOpenHelper {
+        private final SupportSQLiteOpenHelper mDelegate;
+        private final QueryStats mStats;
+        private volatile TimingDatabase mWrapper;
+
+        TimingOpenHelper(SupportSQLiteOpenHelper delegate, QueryStats stats) {
+            mDelegate = delegate;
+            mStats = stats;
+        }
+
+        @Override
+        public String getDatabaseName() {
+            return mDelegate.getDatabaseName();
+        }
+
+        @Override
+        public void setWriteAheadLoggingEnabled(boolean enabled) {
+            mDelegate.setWriteAheadLoggingEnabled(enabled);
+        }
+
+        @Override
+        public SupportSQLiteDatabase getWritableDatabase() {
+            return wrap(mDelegate.getWritableDatabase());
+        }
+
+        @Override
+        public SupportSQLiteDatabase getReadableDatabase() {
+            return wrap(mDelegate.getReadableDatabase());
+        }
+
+        /**
+         * Room pide la base de datos en cada operación: se reutiliza el
+         * envoltorio mientras la conexión sea la misma.
+         */
+        private SupportSQLiteDatabase wrap(SupportSQLiteDatabase db) {
+            TimingDatabase wrapper = mWrapper;
+            if (wrapper == null || wrapper.mDelegate != db) {
+                wrapper = new TimingDatabase(db, mStats);
+                mWrapper = wrapper;
+            }
+            return wrapper;
+        }
+
+        @Override
+        public void close() {
+            mDelegate.close();
+        }
+    }
+
+    static class TimingDatabase implements SupportSQLiteDatabase {
+        private final SupportSQLiteDatabase mDelegate;
+        private final QueryStats mStats;
+
+        TimingDatabase(SupportSQLiteDatabase delegate, QueryStats stats) {
+            mDelegate = delegate;
+            mStats = stats;
+        }
+
+        /**
+         * Mide una consulta hasta que el cursor ha leído la primera ventana.
+         */
+        private Cursor timeQuery(Cursor cursor, long start, String sql, Object[] args) {
+            cursor.getCount();
+            record(mDelegate, mStats, sql, args, System.nanoTime() - start);
+            return cursor;
+        }
+
+        @Override
+        public SupportSQLiteStatement compileStatement(String sql) {
+            return new TimingStatement(mDelegate, mDelegate.compileStatement(sql), sql, mStats);
+        }
+
+        @Override
+        public Cursor query(String query) {
+            long start = System.nanoTime();
+            return timeQuery(mDelegate.query(query), start, query, null);
+        }
+
+        @Override
+        public Cursor query(String query, Object[] bindArgs) {
+            long start = System.nanoTime();
+            return timeQuery(mDelegate.query(query, bindArgs), start, query, bindArgs);
+        }
+
+        @Override
+        public Cursor query(SupportSQLiteQuery query) {
+            Object[] args = argsOf(query);
+            long start = System.nanoTime();
+            return timeQuery(mDelegate.query(query), start, query.getSql(), args);
+        }
+
+        @Override
+        public Cursor query(SupportSQLiteQuery query, CancellationSignal cancellationSignal) {
+            Object[] args = argsOf(query);
+            long start = System.nanoTime();
+            return timeQuery(mDelegate.query(query, cancellationSignal), start, query.getSql(), args);
+        }
+
+        /**
+         * Argumentos de una consulta de Room, obtenidos antes de medirla.
+         */
+        private static Object[] argsOf(SupportSQLiteQuery query) {
+            ArgsCapture capture = new ArgsCapture();
+            query.bindTo(capture);
+            return capture.toArray();
+        }
+
+        @Override
+        public long insert(String table, int conflictAlgorithm, ContentValues values) throws SQLException {
+            long start = System.nanoTime();
+            long id = mDelegate.insert(table, conflictAlgorithm, values);
+            long nanos = System.nanoTime() - start;
+            List<Object> args = new ArrayList<>(values.size());
+            StringBuilder columns = new StringBuilder();
+            StringBuilder placeholders = new StringBuilder();
+            for (String column : values.keySet()) {
+                if (args.size() > 0) {
+                    columns.append(", ");
+                    placeholders.append(", ");
+                }
+                columns.append(column);
+                placeholders.append('?');
+                args.add(values.get(column));
+            }
+            String sql = "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")";
+            record(mDelegate, mStats, sql, args.toArray(), nanos);
+            return id;
+        }
+
+        @Override
+        public int delete(String table, String whereClause, Object[] whereArgs) {
+            long start = System.nanoTime();
+            int rows = mDelegate.delete(table, whereClause, whereArgs);
+            String sql = "DELETE FROM " + table + (whereClause == null ? "" : " WHERE " + whereClause);
+            record(mDelegate, mStats, sql, whereArgs, System.nanoTime() - start);
+            return rows;
+        }
+
+        @Override
+        public int update(String table, int conflictAlgorithm, ContentValues values, String whereClause,
+                          Object[] whereArgs) {
+            long start = System.nanoTime();
+            int rows = mDelegate.update(table, conflictAlgorithm, values, whereClause, whereArgs);
+            long nanos = System.nanoTime() - start;
+            // La misma sentencia que forma Android: primero los valores y
+            // después los argumentos del WHERE, para que EXPLAIN tenga todos.
+            List<Object> args = new ArrayList<>(values.size() + (whereArgs == null ? 0 : whereArgs.length));
+            StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+            for (String column : values.keySet()) {
+                if (args.size() > 0) {
+                    sql.append(", ");
+                }
+                sql.append(column).append(" = ?");
+                args.add(values.get(column));
+            }
+            if (whereClause != null) {
+                sql.append(" WHERE ").append(whereClause);
+            }
+            if (whereArgs != null) {
+                Collections.addAll(args, whereArgs);
+            }
+            record(mDelegate, mStats, sql.toString(), args.toArray(), nanos);
+            return rows;
+        }
+
+        @Override
+        public void execSQL(String sql) throws SQLException {
+            long start = System.nanoTime();
+            mDelegate.execSQL(sql);
+            record(mDelegate, mStats, sql, null, System.nanoTime() - start);
+        }
+
+        @Override
+        public void execSQL(String sql, Object[] bindArgs) throws SQLException {
+            long start = System.nanoTime();
+            mDelegate.execSQL(sql, bindArgs);
+            record(mDelegate, mStats, sql, bindArgs, System.nanoTime() - start);
+        }
+
+        @Override
+        public void beginTransaction() {
+            mDelegate.beginTransaction();
+        }
+
+        @Override
+        public void beginTransactionNonExclusive() {
+            mDelegate.beginTransactionNonExclusive();
+        }
+
+        @Override
+        public void beginTransactionWithListener(SQLiteTransactionListener transactionListener) {
+            mDelegate.beginTransactionWithListener(transactionListener);
+        }
+
+        @Override
+        public void beginTransactionWithListenerNonExclusive(SQLiteTransactionListener transactionListener) {
+            mDelegate.beginTransactionWithListenerNonExclusive(transactionListener);
+        }
+
+        @Override
+        public void endTransaction() {
+            mDelegate.endTransaction();
+        }
+
+        @Override
+        public void setTransactionSuccessful() {
+            mDelegate.setTransactionSuccessful();
+        }
+
+        @Override
+        public boolean inTransaction() {
+            return mDelegate.inTransaction();
+        }
+
+        @Override
+        public boolean isDbLockedByCurrentThread() {
+            return mDelegate.isDbLockedByCurrentThread();
+        }
+
+        @Override
+        public boolean yieldIfContendedSafely() {
+            return mDelegate.yieldIfContendedSafely();
+        }
+
+        @Override
+        public boolean yieldIfContendedSafely(long sleepAfterYieldDelay) {
+            return mDelegate.yieldIfContendedSafely(sleepAfterYieldDelay);
+        }
+
+        @Override
+        public int getVersion() {
+            return mDelegate.getVersion();
+        }
+
+        @Override
+        public void setVersion(int version) {
+            mDelegate.setVersion(version);
+        }
+
+        @Override
+        public long getMaximumSize() {
+            return mDelegate.getMaximumSize();
+        }
+
+        @Override
+        public long setMaximumSize(long numBytes) {
+            return mDelegate.setMaximumSize(numBytes);
+        }
+
+        @Override
+        public long getPageSize() {
+            return mDelegate.getPageSize();
+        }
+
+        @Override
+        public void setPageSize(long numBytes) {
+            mDelegate.setPageSize(numBytes);
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return mDelegate.isReadOnly();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return mDelegate.isOpen();
+        }
+
+        @Override
+        public boolean needUpgrade(int newVersion) {
+            return mDelegate.needUpgrade(newVersion);
+        }
+
+        @Override
+        public String getPath() {
+            return mDelegate.getPath();
+        }
+
+        @Override
+        public void setLocale(Locale locale) {
+            mDelegate.setLocale(locale);
+        }
+
+        @Override
+        public void setMaxSqlCacheSize(int cacheSize) {
+            mDelegate.setMaxSqlCacheSize(cacheSize);
+        }
+
+        @Override
+        public void setForeignKeyConstraintsEnabled(boolean enable) {
+            mDelegate.setForeignKeyConstraintsEnabled(enable);
+        }
+
+        @Override
+        public boolean enableWriteAheadLogging() {
+            return mDelegate.enableWriteAheadLogging();
+        }
+
+        @Override
+        public void disableWriteAheadLogging() {
+            mDelegate.disableWriteAheadLogging();
+        }
+
+        @Override
+        public boolean isWriteAheadLoggingEnabled() {
+            return mDelegate.isWriteAheadLoggingEnabled();
+        }
+
+        @Override
+        public List<Pair<String, String>> getAttachedDbs() {
+            return mDelegate.getAttachedDbs();
+        }
+
+        @Override
+        public boolean isDatabaseIntegrityOk() {
+            return mDelegate.isDatabaseIntegrityOk();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mDelegate.close();
+        }
+    }
+
+    /**
+     * Sentencia compilada que guarda sus argumentos y mide cada ejecución.
+     * Room reutiliza las sentencias, así que los argumentos se guardan de
+     * nuevo en cada enlace.
+     */
+    static class TimingStatement implements SupportSQLiteStatement {
+        private final SupportSQLiteDatabase mDb;
+        private final SupportSQLiteStatement mDelegate;
+        private final String mSql;
+        private final QueryStats mStats;
+        private final ArgsCapture mArgs = new ArgsCapture();
+
+        TimingStatement(SupportSQLiteDatabase db, SupportSQLiteStatement delegate, String sql, QueryStats stats) {
+            mDb = db;
+            mDelegate = delegate;
+            mSql = sql;
+            mStats = stats;
+        }
+
+        @Override
+        public void execute() {
+            long start = System.nanoTime();
+            mDelegate.execute();
+            record(mDb, mStats, mSql, mArgs.toArray(), System.nanoTime() - start);
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            long start = System.nanoTime();
+            int rows = mDelegate.executeUpdateDelete();
+            record(mDb, mStats, mSql, mArgs.toArray(), System.nanoTime() - start);
+            return rows;
+        }
+
+        @Override
+        public long executeInsert() {
+            long start = System.nanoTime();
+            long id = mDelegate.executeInsert();
+            record(mDb, mStats, mSql, mArgs.toArray(), System.nanoTime() - start);
+            return id;
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            long start = System.nanoTime();
+            long value = mDelegate.simpleQueryForLong();
+            record(mDb, mStats, mSql, mArgs.toArray(), System.nanoTime() - start);
+            return value;
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            long start = System.nanoTime();
+            String value = mDelegate.simpleQueryForString();
+            record(mDb, mStats, mSql, mArgs.toArray(), System.nanoTime() - start);
+            return value;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mArgs.bindNull(index);
+            mDelegate.bindNull(index);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mArgs.bindLong(index, value);
+            mDelegate.bindLong(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mArgs.bindDouble(index, value);
+            mDelegate.bindDouble(index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mArgs.bindString(index, value);
+            mDelegate.bindString(index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mArgs.bindBlob(index, value);
+            mDelegate.bindBlob(index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mArgs.clearBindings();
+            mDelegate.clearBindings();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mDelegate.close();
+        }
+    }
+}
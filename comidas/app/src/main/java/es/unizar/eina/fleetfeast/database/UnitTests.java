@@ -42,18 +42,18 @@ public class UnitTests {
         List<Plate> plates = new ArrayList<>();
         List<String> results = new ArrayList<>();
         // casos de prueba positivos
-        plates.add(new Plate("canelones", "canelones con canela", "PRIMERO", 11.5f));
+        plates.add(new Plate("canelones", "canelones con canela", "PRIMERO", 1150));
         results.add(">0");
-        plates.add(new Plate("canelones", "canelones con canela", "SEGUNDO", 11.5f));
+        plates.add(new Plate("canelones", "canelones con canela", "SEGUNDO", 1150));
         results.add(">0");
-        plates.add(new Plate("canelones", "canelones con canela", "POSTRE", 11.5f));
+        plates.add(new Plate("canelones", "canelones con canela", "POSTRE", 1150));
         results.add(">0");
         // casos de prueba negativos
-        plates.add(new Plate("", "error", "POSTRE", 11.5f));
+        plates.add(new Plate("", "error", "POSTRE", 1150));
         results.add("-1");
-        plates.add(new Plate("error", "error", "OTRO", 11.5f));
+        plates.add(new Plate("error", "error", "OTRO", 1150));
         results.add("-1");
-        plates.add(new Plate("error", "error", "OTRO", -11.5f));
+        plates.add(new Plate("error", "error", "OTRO", -1150));
         results.add("-1");
 
         boolean error = false;
@@ -85,10 +85,10 @@ public class UnitTests {
     private boolean testPlateUpdate() {
         List<Plate> plates = new ArrayList<>();
         List<String> results = new ArrayList<>();
-        long id = mPlateRepository.insertAndWait(new Plate("prueba", "prueba", "PRIMERO", 2.5f));
+        long id = mPlateRepository.insertAndWait(new Plate("prueba", "prueba", "PRIMERO", 250));
 
         // casos de prueba positivos
-        Plate plate = new Plate("canelones", "canelones con canela", "PRIMERO", 11.5f);
+        Plate plate = new Plate("canelones", "canelones con canela", "PRIMERO", 1150);
         plate.setId((int)id);
         results.add("1");
         plates.add(plate);
@@ -102,22 +102,22 @@ public class UnitTests {
         plates.add(plate);
 
         // casos de prueba negativos
-        plate = new Plate("", "error", "POSTRE", 11.5f);
+        plate = new Plate("", "error", "POSTRE", 1150);
         plate.setId((int)id);
         results.add("0");
         plates.add(plate);
 
-        plate = new Plate("error", "error", "OTRO", 11.5f);
+        plate = new Plate("error", "error", "OTRO", 1150);
         plate.setId((int)id);
         results.add("0");
         plates.add(plate);
 
-        plate = new Plate("error", "error", "POSTRE", -11.5f);
+        plate = new Plate("error", "error", "POSTRE", -1150);
         plate.setId((int)id);
         results.add("0");
         plates.add(plate);
 
-        plate = new Plate("error", "error", "PRIMERO", 11.5f);
+        plate = new Plate("error", "error", "PRIMERO", 1150);
         plate.setId(-1);
         results.add("0");
         plates.add(plate);
@@ -150,7 +150,7 @@ public class UnitTests {
         List<Plate> plates = new ArrayList<>();
         List<String> results = new ArrayList<>();
 
-        Plate plate = new Plate("prueba", "prueba", "PRIMERO", 2.5f);
+        Plate plate = new Plate("prueba", "prueba", "PRIMERO", 250);
         long id = mPlateRepository.insertAndWait(plate);
 
         // casos de prueba positivos
@@ -200,22 +200,22 @@ public class UnitTests {
         List<Orders> orders = new ArrayList<>();
         List<String> results = new ArrayList<>();
         // casos de prueba positivos
-        orders.add(new Orders("pedido", 123456789, "2024/01/04  21:30", "SOLICITADO"));
+        orders.add(new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "SOLICITADO"));
         results.add(">0");
-        orders.add(new Orders("pedido", 123456789, "2024/01/04  21:30", "PREPARADO"));
+        orders.add(new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "PREPARADO"));
         results.add(">0");
-        orders.add(new Orders("pedido", 123456789, "2024/01/04  21:30", "RECOGIDO"));
+        orders.add(new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "RECOGIDO"));
         results.add(">0");
         // casos de prueba negativos
-        orders.add(new Orders("", 123456789, "2024/01/04  21:30", "RECOGIDO"));
+        orders.add(new Orders("", 123456789, PickupTime.parse("2024/01/04  21:30"), "RECOGIDO"));
         results.add("-1");
-        orders.add(new Orders("pedido", 123, "2024/01/04  21:30", "RECOGIDO"));
+        orders.add(new Orders("pedido", 123, PickupTime.parse("2024/01/04  21:30"), "RECOGIDO"));
         results.add("-1");
-        orders.add(new Orders("pedido", 123456789, "21:30  2024/01/04", "RECOGIDO"));
+        orders.add(new Orders("pedido", 123456789, PickupTime.parse("21:30  2024/01/04"), "RECOGIDO"));
         results.add("-1");
-        orders.add(new Orders("pedido", 123456789, "21:30  2024/00001/04", "RECOGIDO"));
+        orders.add(new Orders("pedido", 123456789, PickupTime.parse("21:30  2024/00001/04"), "RECOGIDO"));
         results.add("-1");
-        orders.add(new Orders("pedido", 123456789, "2024/01/04  21:30", "pedido"));
+        orders.add(new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "pedido"));
         results.add("-1");
 
         boolean error = false;
@@ -245,10 +245,10 @@ public class UnitTests {
         List<Orders> orders = new ArrayList<>();
         List<String> results = new ArrayList<>();
 
-        long id = mOrdersRepository.insertAndWait(new Orders("pedido", 123456789, "2024/01/04  21:30", "RECOGIDO"));
+        long id = mOrdersRepository.insertAndWait(new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "RECOGIDO"));
 
         // casos de prueba positivos
-        Orders order = new Orders("pedido", 123456789, "2024/01/04  21:30", "SOLICITADO");
+        Orders order = new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "SOLICITADO");
         order.setId((int) id);
         results.add("1");
         orders.add(order);
@@ -262,32 +262,32 @@ public class UnitTests {
         orders.add(order);
 
         // casos de prueba negativos
-        order = new Orders("", 123456789, "2024/01/04  21:30", "RECOGIDO");
+        order = new Orders("", 123456789, PickupTime.parse("2024/01/04  21:30"), "RECOGIDO");
         order.setId((int)id);
         results.add("0");
         orders.add(order);
 
-        order = new Orders("pedido", 123, "2024/01/04  21:30", "RECOGIDO");
+        order = new Orders("pedido", 123, PickupTime.parse("2024/01/04  21:30"), "RECOGIDO");
         order.setId((int)id);
         results.add("0");
         orders.add(order);
 
-        order = new Orders("pedido", 123456789, "21:30  2024/01/04", "RECOGIDO");
+        order = new Orders("pedido", 123456789, PickupTime.parse("21:30  2024/01/04"), "RECOGIDO");
         order.setId((int)id);
         results.add("0");
         orders.add(order);
 
-        order = new Orders("pedido", 123456789, "21:30  2024/00001/04", "RECOGIDO");
+        order = new Orders("pedido", 123456789, PickupTime.parse("21:30  2024/00001/04"), "RECOGIDO");
         order.setId((int)id);
         results.add("0");
         orders.add(order);
 
-        order = new Orders("pedido", 123456789, "2024/01/04  21:30", "pedido");
+        order = new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "pedido");
         order.setId((int)id);
         results.add("0");
         orders.add(order);
 
-        order = new Orders("pedido", 123456789, "2024/01/04  21:30", "SOLICITADO");
+        order = new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "SOLICITADO");
         order.setId(-1);
         results.add("0");
         orders.add(order);
@@ -320,7 +320,7 @@ public class UnitTests {
         List<String> results = new ArrayList<>();
 
         // casos de prueba positivos
-        Orders order = new Orders("pedido", 123456789, "2024/01/04  21:30", "SOLICITADO");
+        Orders order = new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "SOLICITADO");
         long id = mOrdersRepository.insertAndWait(order);
 
         order.setId(id);
@@ -328,7 +328,7 @@ public class UnitTests {
         orders.add(order);
 
         // casos de prueba negativos
-        order = new Orders("pedido", 123456789, "2024/01/04  21:30", "SOLICITADO");
+        order = new Orders("pedido", 123456789, PickupTime.parse("2024/01/04  21:30"), "SOLICITADO");
         order.setId(-1);
         results.add("0");
         orders.add(order);
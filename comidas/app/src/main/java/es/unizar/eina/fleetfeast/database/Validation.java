@@ -0,0 +1,229 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reglas de validación de los pedidos y los platos antes de escribirlos en la
+ * base de datos. Todos los repositorios validan a través de esta clase.
+ *
+ * No depende de Android, de modo que se puede medir y probar en la JVM.
+ *
+ * Las comprobaciones no reservan memoria: el teléfono se compara por rango,
+ * sin pasarlo a texto, y los estados y las categorías se buscan en un mapa
+ * con su nombre ({@link OrderState#fromName}, {@link PlateCategory#fromName}).
+ * isValidOrder e isValidPlate solo dicen si la entidad es válida;
+ * validateOrder y validatePlate dicen además qué campos fallan, y
+ * validateOrders y validatePlates hacen lo mismo con una lista entera. Los
+ * repositorios devuelven esos errores en una {@link ValidationException} o en
+ * un {@link BatchResult}. Los errores son constantes, así que una entidad
+ * válida no crea ningún objeto.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public final class Validation {
+    /** Menor teléfono válido: nueve cifras sin cero delante. */
+    static final long MIN_PHONE = 100000000L;
+    /** Mayor teléfono válido. */
+    static final long MAX_PHONE = 999999999L;
+
+    /**
+     * Campo de un pedido o de un plato al que se refiere un error.
+     */
+    public enum Field {
+        ENTITY, NAME, PHONE, PICKUP, STATE, CATEGORY, PRICE
+    }
+
+    /**
+     * Error de validación de un campo.
+     */
+    public static final class FieldError {
+        private final Field mField;
+        private final String mMessage;
+
+        private FieldError(Field field, String message) {
+            mField = field;
+            mMessage = message;
+        }
+
+        /** @return El campo que no es válido. */
+        public Field getField() {
+            return mField;
+        }
+
+        /** @return La explicación del error, para mostrarla al usuario. */
+        public String getMessage() {
+            return mMessage;
+        }
+
+        @Override
+        public String toString() {
+            return mField + ": " + mMessage;
+        }
+    }
+
+    public static final FieldError MISSING = new FieldError(Field.ENTITY, "No hay nada que guardar");
+    public static final FieldError EMPTY_NAME = new FieldError(Field.NAME, "El nombre no puede estar vacío");
+    public static final FieldError BAD_PHONE = new FieldError(Field.PHONE, "El teléfono debe tener 9 cifras");
+    public static final FieldError BAD_PICKUP = new FieldError(Field.PICKUP, "La hora de recogida no es válida");
+    public static final FieldError BAD_STATE = new FieldError(Field.STATE,
+            "El estado debe ser SOLICITADO, PREPARADO o RECOGIDO");
+    public static final FieldError BAD_CATEGORY = new FieldError(Field.CATEGORY,
+            "La categoría debe ser PRIMERO, SEGUNDO o POSTRE");
+    public static final FieldError NEGATIVE_PRICE = new FieldError(Field.PRICE, "El precio no puede ser negativo");
+
+    private Validation() {
+    }
+
+    /** Comprueba si un pedido es válido para ser insertado o modificado.
+     * @param order El pedido a comprobar.
+     * @return true si el pedido es válido, false en caso contrario.
+     */
+    public static boolean isValidOrder(Orders order) {
+        return order != null
+                && isValidName(order.getName())
+                && isValidPhone(order.getPhone())
+                && order.getPickupMinutes() > 0
+                && OrderState.fromName(order.getState()) != null;
+    }
+
+    /** Comprueba si un plato es válido para ser insertado o modificado.
+     * @param plate El plato a comprobar.
+     * @return true si el plato es válido, false en caso contrario.
+     */
+    public static boolean isValidPlate(Plate plate) {
+        return plate != null
+                && isValidName(plate.getName())
+                && PlateCategory.fromName(plate.getCategory()) != null
+                && plate.getPrizeCents() >= 0;
+    }
+
+    /** Comprueba todos los campos de un pedido.
+     * @param order El pedido a comprobar.
+     * @return Los errores encontrados, en el orden de los campos; una lista
+     * vacía si el pedido es válido.
+     */
+    public static List<FieldError> validateOrder(Orders order) {
+        if (order == null) {
+            return Collections.singletonList(MISSING);
+        }
+        List<FieldError> errors = Collections.emptyList();
+        if (!isValidName(order.getName())) {
+            errors = add(errors, EMPTY_NAME);
+        }
+        if (!isValidPhone(order.getPhone())) {
+            errors = add(errors, BAD_PHONE);
+        }
+        if (order.getPickupMinutes() <= 0) {
+            errors = add(errors, BAD_PICKUP);
+        }
+        if (OrderState.fromName(order.getState()) == null) {
+            errors = add(errors, BAD_STATE);
+        }
+        return errors;
+    }
+
+    /** Comprueba todos los campos de un plato.
+     * @param plate El plato a comprobar.
+     * @return Los errores encontrados, en el orden de los campos; una lista
+     * vacía si el plato es válido.
+     */
+    public static List<FieldError> validatePlate(Plate plate) {
+        if (plate == null) {
+            return Collections.singletonList(MISSING);
+        }
+        List<FieldError> errors = Collections.emptyList();
+        if (!isValidName(plate.getName())) {
+            errors = add(errors, EMPTY_NAME);
+        }
+        if (PlateCategory.fromName(plate.getCategory()) == null) {
+            errors = add(errors, BAD_CATEGORY);
+        }
+        if (plate.getPrizeCents() < 0) {
+            errors = add(errors, NEGATIVE_PRICE);
+        }
+        return errors;
+    }
+
+    /** Comprueba una lista de pedidos.
+     * @param orders Los pedidos a comprobar.
+     * @return Los errores de cada pedido no válido, por su posición en la
+     * lista; un mapa vacío si todos son válidos.
+     */
+    public static Map<Integer, List<FieldError>> validateOrders(List<Orders> orders) {
+        Map<Integer, List<FieldError>> errors = Collections.emptyMap();
+        for (int i = 0; i < orders.size(); i++) {
+            Orders order = orders.get(i);
+            if (!isValidOrder(order)) {
+                errors = put(errors, i, validateOrder(order));
+            }
+        }
+        return errors;
+    }
+
+    /** Comprueba una lista de platos.
+     * @param plates Los platos a comprobar.
+     * @return Los errores de cada plato no válido, por su posición en la
+     * lista; un mapa vacío si todos son válidos.
+     */
+    public static Map<Integer, List<FieldError>> validatePlates(List<Plate> plates) {
+        Map<Integer, List<FieldError>> errors = Collections.emptyMap();
+        for (int i = 0; i < plates.size(); i++) {
+            Plate plate = plates.get(i);
+            if (!isValidPlate(plate)) {
+                errors = put(errors, i, validatePlate(plate));
+            }
+        }
+        return errors;
+    }
+
+    /** Junta los mensajes de una lista de errores, uno por línea.
+     * @param errors Los errores.
+     * @return El texto para mostrar al usuario.
+     */
+    public static String describe(List<FieldError> errors) {
+        StringBuilder text = new StringBuilder();
+        for (FieldError error : errors) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(error.getMessage());
+        }
+        return text.toString();
+    }
+
+    private static boolean isValidName(String name) {
+        return name != null && name.length() > 0;
+    }
+
+    private static boolean isValidPhone(long phone) {
+        return phone >= MIN_PHONE && phone <= MAX_PHONE;
+    }
+
+    /**
+     * Añade un error; la lista solo se crea con el primero.
+     */
+    private static List<FieldError> add(List<FieldError> errors, FieldError error) {
+        if (errors.isEmpty()) {
+            errors = new ArrayList<>(2);
+        }
+        errors.add(error);
+        return errors;
+    }
+
+    /**
+     * Añade los errores de una posición; el mapa solo se crea con la primera.
+     */
+    private static Map<Integer, List<FieldError>> put(Map<Integer, List<FieldError>> errors, int index,
+                                                 List<FieldError> entityErrors) {
+        if (errors.isEmpty()) {
+            errors = new TreeMap<>();
+        }
+        errors.put(index, entityErrors);
+        return errors;
+    }
+}
@@ -0,0 +1,36 @@
+package es.unizar.eina.fleetfeast.database;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Excepción con la que falla la escritura de un pedido o de un plato que no es
+ * válido. Lleva los errores de {@link Validation}, campo a campo.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class ValidationException extends IllegalArgumentException {
+    private final List<Validation.FieldError> mErrors;
+
+    ValidationException(List<Validation.FieldError> errors) {
+        super(Validation.describe(errors));
+        mErrors = errors;
+    }
+
+    /**
+     * Crea el futuro de una escritura que no se hace porque la entidad no es válida.
+     * @param errors Los errores de la entidad.
+     * @return Un futuro completado con una {@link ValidationException}.
+     */
+    static <T> CompletableFuture<T> failed(List<Validation.FieldError> errors) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new ValidationException(errors));
+        return future;
+    }
+
+    /** @return Los errores que impidieron la escritura, en el orden de los campos. */
+    public List<Validation.FieldError> getErrors() {
+        return mErrors;
+    }
+}
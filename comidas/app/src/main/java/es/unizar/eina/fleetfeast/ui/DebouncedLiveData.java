@@ -0,0 +1,51 @@
+package es.unizar.eina.fleetfeast.ui;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.MutableLiveData;
+
+/**
+ * LiveData que retrasa la publicación de los valores que recibe.
+ *
+ * Cada llamada a {@link #setDebounced(Object)} descarta el valor pendiente y
+ * vuelve a esperar, de modo que una ráfaga de cambios (por ejemplo, varias
+ * pulsaciones seguidas en los filtros de una lista) publica solo el último.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+class DebouncedLiveData<T> extends MutableLiveData<T> {
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final long mDelay;
+    private T mPending;
+    private final Runnable mPublish = () -> setValue(mPending);
+
+    /**
+     * Constructor de la clase DebouncedLiveData.
+     * @param initial El valor inicial, que se publica sin esperar.
+     * @param delayMillis El tiempo de espera en milisegundos.
+     */
+    DebouncedLiveData(T initial, long delayMillis) {
+        super(initial);
+        mDelay = delayMillis;
+    }
+
+    /**
+     * Publica un valor cuando haya pasado el tiempo de espera sin recibir otro.
+     * Debe llamarse desde el hilo principal.
+     * @param value El nuevo valor.
+     */
+    void setDebounced(T value) {
+        mPending = value;
+        mHandler.removeCallbacks(mPublish);
+        mHandler.postDelayed(mPublish, mDelay);
+    }
+
+    /**
+     * Descarta el valor pendiente de publicar, si lo hay.
+     */
+    void cancel() {
+        mHandler.removeCallbacks(mPublish);
+    }
+}
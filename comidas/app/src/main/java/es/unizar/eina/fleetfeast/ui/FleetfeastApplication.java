@@ -0,0 +1,26 @@
+package es.unizar.eina.fleetfeast.ui;
+
+import android.app.Application;
+
+import es.unizar.eina.fleetfeast.BuildConfig;
+import es.unizar.eina.fleetfeast.database.QueryStats;
+
+/**
+ * Aplicación FleetFeast.
+ *
+ * Configura lo que tiene que estar decidido antes de abrir la base de datos.
+ * Se hace aquí y no en una pantalla porque la base de datos se puede abrir
+ * desde cualquiera de ellas (por ejemplo, al restaurar el proceso en
+ * {@link OrderEdit}) o desde los datos de prueba de los benchmarks.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class FleetfeastApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        QueryStats.setEnabled(BuildConfig.QUERY_STATS);
+    }
+}
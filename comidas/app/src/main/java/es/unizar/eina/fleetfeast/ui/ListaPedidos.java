@@ -22,13 +22,14 @@ import android.widget.Toast;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
 
 import es.unizar.eina.fleetfeast.R;
 import es.unizar.eina.fleetfeast.database.OrderDetails;
 import es.unizar.eina.fleetfeast.database.Orders;
 import es.unizar.eina.fleetfeast.database.Plate;
+import es.unizar.eina.fleetfeast.database.Validation;
 import es.unizar.eina.send.SendAbstraction;
 import es.unizar.eina.send.SendAbstractionImpl;
 
@@ -61,6 +62,7 @@ public class ListaPedidos extends AppCompatActivity {
     RadioButton mRadioButtonOrderName;
     RadioButton mRadioButtonOrderPhone;
     RadioButton mRadioButtonOrderDate;
+    RadioButton mRadioButtonOrderTotal;
 
     CheckBox mCheckBoxFilterSolicitado;
     CheckBox mCheckBoxFilterPreparado;
@@ -85,6 +87,7 @@ public class ListaPedidos extends AppCompatActivity {
         mRadioButtonOrderName = findViewById(R.id.radioButton_order);
         mRadioButtonOrderPhone = findViewById(R.id.radioButton2_order);
         mRadioButtonOrderDate = findViewById(R.id.radioButton3_order);
+        mRadioButtonOrderTotal = findViewById(R.id.radioButton4_order);
 
         mCheckBoxFilterSolicitado = findViewById(R.id.checkBox);
         mCheckBoxFilterPreparado = findViewById(R.id.checkBox2);
@@ -93,6 +96,7 @@ public class ListaPedidos extends AppCompatActivity {
         mRadioButtonOrderName.setChecked(true);
         mRadioButtonOrderPhone.setChecked(false);
         mRadioButtonOrderDate.setChecked(false);
+        mRadioButtonOrderTotal.setChecked(false);
 
         mCheckBoxFilterSolicitado.setChecked(true);
         mCheckBoxFilterPreparado.setChecked(true);
@@ -105,6 +109,10 @@ public class ListaPedidos extends AppCompatActivity {
         mRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
         mOrderViewModel = new ViewModelProvider(this).get(OrderViewModel.class);
+        mOrderViewModel.getPagedOrders().observe(this, orders -> {
+            // Update the cached copy of the notes in the adapter.
+            mOrderAdapter.submitList(orders);
+        });
 
         updateList();
         mCheckBoxFilterSolicitado.setOnCheckedChangeListener((buttonView, isChecked) -> {
@@ -125,6 +133,9 @@ public class ListaPedidos extends AppCompatActivity {
         mRadioButtonOrderDate.setOnCheckedChangeListener((buttonView, isChecked) -> {
             updateList();
         });
+        mRadioButtonOrderTotal.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            updateList();
+        });
 
         mFab = findViewById(R.id.fab);
         mFab.setOnClickListener(view -> {
@@ -136,11 +147,21 @@ public class ListaPedidos extends AppCompatActivity {
 
     /**
      * Actualiza la lista de pedidos.
+     * La ordenación y el filtro por estado se hacen en la base de datos, que
+     * devuelve los pedidos por páginas. La lista se observa una sola vez: aquí
+     * solo se cambia el filtro del ViewModel.
      */
     private void updateList() {
-        boolean solicitado = mCheckBoxFilterSolicitado.isChecked();
-        boolean preparado = mCheckBoxFilterPreparado.isChecked();
-        boolean recogido = mCheckBoxFilterRecogido.isChecked();
+        List<String> states = new ArrayList<>();
+        if (mCheckBoxFilterSolicitado.isChecked()) {
+            states.add("SOLICITADO");
+        }
+        if (mCheckBoxFilterPreparado.isChecked()) {
+            states.add("PREPARADO");
+        }
+        if (mCheckBoxFilterRecogido.isChecked()) {
+            states.add("RECOGIDO");
+        }
 
         String orderby;
         if (mRadioButtonOrderName.isChecked()) {
@@ -149,49 +170,12 @@ public class ListaPedidos extends AppCompatActivity {
             orderby = "phone";
         } else if (mRadioButtonOrderDate.isChecked()) {
             orderby = "date";
+        } else if (mRadioButtonOrderTotal.isChecked()) {
+            orderby = "total";
         } else {
             orderby = "none";
         }
-        mOrderViewModel.getAllOrders().observe(this, orders -> {
-            // Update the cached copy of the notes in the adapter.
-//            eliminateEmptyOrders(orders);
-            List<Orders> filteredList = orderAndFilter(orders, orderby, solicitado,
-                    preparado, recogido);
-            mOrderAdapter.submitList(filteredList);
-        });
-    }
-
-
-    /**
-     * Ordena y filtra la lista de pedidos.
-     * @param ordersList La lista de pedidos.
-     * @param orderby El criterio de ordenación.
-     * @param solicitado El filtro de pedidos solicitados.
-     * @param preparado El filtro de pedidos preparados.
-     * @param recogido El filtro de pedidos recogidos.
-     * @return La lista de pedidos ordenada y filtrada.
-     */
-    private List<Orders> orderAndFilter(List<Orders> ordersList, String orderby,
-                                        boolean solicitado, boolean preparado, boolean recogido) {
-        List<Orders> filteredList = new java.util.ArrayList<Orders>();
-        if (orderby.equals("name")) {
-            ordersList.sort(Comparator.comparing(Orders::getName));
-        } else if (orderby.equals("phone")) {
-            ordersList.sort(Comparator.comparing(Orders::getPhone));
-        } else if (orderby.equals("date")) {
-            ordersList.sort(Comparator.comparing(Orders::getDate));
-        }
-
-        for (Orders o : ordersList) {
-            if (solicitado && o.getState().equals("SOLICITADO")) {
-                filteredList.add(o);
-            } else if (preparado && o.getState().equals("PREPARADO")) {
-                filteredList.add(o);
-            } else if (recogido && o.getState().equals("RECOGIDO")) {
-                filteredList.add(o);
-            }
-        }
-        return filteredList;
+        mOrderViewModel.setOrderListFilter(new OrderListFilter(orderby, states));
     }
 
     /**
@@ -218,14 +202,19 @@ public class ListaPedidos extends AppCompatActivity {
         if (resultCode == RESULT_OK) {
             switch (requestCode) {
                 case ACTIVITY_CREATE:
+                    createOrderWithDetails(extras);
+                    break;
                 case ACTIVITY_EDIT:
                     long id = extras.getLong(OrderEdit.ORDER_ID);
                     Orders updatedOrder = new Orders(
                             extras.getString(OrderEdit.ORDER_NAME),
                             extras.getInt(OrderEdit.ORDER_PHONE),
-                            extras.getString(OrderEdit.ORDER_DATE),
+                            extras.getLong(OrderEdit.ORDER_DATE),
                             extras.getString(OrderEdit.ORDER_STATE)
                     );
+                    if (ValidationErrors.show(this, Validation.validateOrder(updatedOrder))) {
+                        break;
+                    }
                     OrderDetailsViewModel mOrderDetailsViewModel = new ViewModelProvider(this)
                             .get(OrderDetailsViewModel.class);
 
@@ -239,7 +228,7 @@ public class ListaPedidos extends AppCompatActivity {
                                 Orders orderToDelete = new Orders(
                                         extras.getString(OrderEdit.ORDER_NAME),
                                         extras.getInt(OrderEdit.ORDER_PHONE),
-                                        extras.getString(OrderEdit.ORDER_DATE),
+                                        extras.getLong(OrderEdit.ORDER_DATE),
                                         extras.getString(OrderEdit.ORDER_STATE)
                                 );
                                 orderToDelete.setId(id);
@@ -262,6 +251,39 @@ public class ListaPedidos extends AppCompatActivity {
         }
     }
 
+    /**
+     * Inserta un pedido nuevo junto con todas sus líneas en una única transacción.
+     * Si el pedido no tiene ningún plato no se guarda.
+     * @param extras Datos devueltos por la pantalla de edición del pedido.
+     */
+    private void createOrderWithDetails(Bundle extras) {
+        int[] plateIds = extras.getIntArray(OrderEdit.ORDER_PLATE_IDS);
+        int[] quantities = extras.getIntArray(OrderEdit.ORDER_QUANTITIES);
+        long[] prizes = extras.getLongArray(OrderEdit.ORDER_PRIZES);
+        if (plateIds == null || quantities == null || prizes == null || plateIds.length == 0) {
+            Toast.makeText(
+                    getApplicationContext(),
+                    R.string.order_not_saved,
+                    Toast.LENGTH_LONG).show();
+            return;
+        }
+
+        Orders newOrder = new Orders(
+                extras.getString(OrderEdit.ORDER_NAME),
+                extras.getInt(OrderEdit.ORDER_PHONE),
+                extras.getLong(OrderEdit.ORDER_DATE),
+                extras.getString(OrderEdit.ORDER_STATE)
+        );
+        if (ValidationErrors.show(this, Validation.validateOrder(newOrder))) {
+            return;
+        }
+        List<OrderDetails> orderDetails = new java.util.ArrayList<OrderDetails>();
+        for (int i = 0; i < plateIds.length; i++) {
+            orderDetails.add(new OrderDetails(-1, plateIds[i], quantities[i], prizes[i]));
+        }
+        mOrderViewModel.insertWithDetails(newOrder, orderDetails);
+    }
+
     /**
      * Maneja la selección de elementos en el menú contextual.
      * @param item El elemento del menú seleccionado.
@@ -306,7 +328,7 @@ public class ListaPedidos extends AppCompatActivity {
         Intent intent = new Intent(this, OrderEdit.class);
         intent.putExtra(OrderEdit.ORDER_NAME, current.getName());
         intent.putExtra(OrderEdit.ORDER_PHONE, current.getPhone());
-        intent.putExtra(OrderEdit.ORDER_DATE, current.getDate());
+        intent.putExtra(OrderEdit.ORDER_DATE, current.getPickupMinutes());
         intent.putExtra(OrderEdit.ORDER_STATE, current.getState());
         intent.putExtra(OrderEdit.ORDER_ID, current.getId());
         System.out.println("EDITANDO order_id: " + current.getId());
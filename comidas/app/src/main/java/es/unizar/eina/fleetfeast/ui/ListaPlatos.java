@@ -7,18 +7,19 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.widget.EditText;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
 import android.widget.Toast;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.util.Comparator;
-import java.util.List;
-
 import es.unizar.eina.fleetfeast.database.Plate;
+import es.unizar.eina.fleetfeast.database.Validation;
 import es.unizar.eina.fleetfeast.R;
 
 /**
@@ -44,6 +45,8 @@ public class ListaPlatos extends AppCompatActivity {
     RadioButton mRadioCat;
     RadioButton mRadioBoth;
 
+    EditText mSearch;
+
     PlateListAdapter mAdapter;
 
     FloatingActionButton mFab;
@@ -61,6 +64,7 @@ public class ListaPlatos extends AppCompatActivity {
         mRadioName = findViewById(R.id.radioButton);
         mRadioCat = findViewById(R.id.radioButton2);
         mRadioBoth = findViewById(R.id.radioButton3);
+        mSearch = findViewById(R.id.search);
 
         mRadioName.setChecked(true);
         mRadioCat.setChecked(false);
@@ -71,37 +75,46 @@ public class ListaPlatos extends AppCompatActivity {
 
         mRadioName.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (isChecked) {
-//                updateList("name");
-                mPlateViewModel.getAllPlatesSortBy("name").observe(this, plates -> {
-                    // Update the cached copy of the notes in the adapter.
-                    mAdapter.submitList(plates);
-                });
+                mPlateViewModel.setSort("name");
             }
         });
         mRadioCat.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (isChecked) {
-//                updateList("category");
-                mPlateViewModel.getAllPlatesSortBy("category").observe(this, plates -> {
-                    // Update the cached copy of the notes in the adapter.
-                    mAdapter.submitList(plates);
-                });
+                mPlateViewModel.setSort("category");
             }
         });
         mRadioBoth.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (isChecked) {
-//                updateList("both");
-                mPlateViewModel.getAllPlatesSortBy("both").observe(this, plates -> {
-                    // Update the cached copy of the notes in the adapter.
-                    mAdapter.submitList(plates);
-                });
+                mPlateViewModel.setSort("both");
+            }
+        });
+
+        mSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                mPlateViewModel.setSearch(s.toString());
             }
         });
-        updateList("name");
 
         mAdapter = new PlateListAdapter(new PlateListAdapter.PlateDiff());
         mRecyclerView.setAdapter(mAdapter);
         mRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
+        // La lista se observa una sola vez; los botones y el buscador solo
+        // cambian la consulta del ViewModel.
+        mPlateViewModel.getSortedPlates().observe(this, plates -> {
+            // Update the cached copy of the notes in the adapter.
+            mAdapter.submitList(plates);
+        });
+
         mFab = findViewById(R.id.fab);
         mFab.setOnClickListener(view -> {
             createPlate();
@@ -110,39 +123,6 @@ public class ListaPlatos extends AppCompatActivity {
         registerForContextMenu(mRecyclerView);
     }
 
-    /**
-     * Actualiza la lista de pedidos y la muestra en pantalla.
-     */
-    private void updateList(String orderby) {
-
-        System.out.println("is going to order by: " + orderby);
-        mPlateViewModel.getAllPlates().observe(this, plates -> {
-            // Update the cached copy of the notes in the adapter.
-            List<Plate> filteredList = orderAndFilter(plates, orderby);
-            mAdapter.submitList(filteredList);
-        });
-    }
-
-    /**
-     * Ordena y filtra la lista de pedidos.
-     * @param plateList La lista de pedidos.
-     * @param orderby El criterio de ordenación.
-     * @return La lista de pedidos ordenada y filtrada.
-     */
-    private List<Plate> orderAndFilter(List<Plate> plateList, String orderby) {
-        if (orderby.equals("name")) {
-            plateList.sort(Comparator.comparing(Plate::getName));
-
-        } else if (orderby.equals("category")) {
-            plateList.sort(Comparator.comparing(Plate::getCategory));
-
-        } else if (orderby.equals("both")) {
-            plateList.sort(Comparator.comparing(Plate::getCategory).thenComparing(Plate::getName));
-        }
-        return plateList;
-    }
-
-
     /**
      * Crea el menu de opciones en la barra de accion.
      * @param menu El menu de opciones.
@@ -190,18 +170,24 @@ public class ListaPlatos extends AppCompatActivity {
                     Plate newPlate = new Plate(extras.getString(PlateEdit.PLATE_NAME)
                             , extras.getString(PlateEdit.PLATE_DESCRIPTION)
                             , extras.getString(PlateEdit.PLATE_CATEGORY)
-                            , extras.getFloat(PlateEdit.PLATE_PRIZE));
+                            , extras.getLong(PlateEdit.PLATE_PRIZE));
+                    if (ValidationErrors.show(this, Validation.validatePlate(newPlate))) {
+                        break;
+                    }
                     mPlateViewModel.insert(newPlate);
                     break;
                 case ACTIVITY_EDIT:
                     int id = extras.getInt(PlateEdit.PLATE_ID);
-                    float prize = extras.getFloat(PlateEdit.PLATE_PRIZE);
+                    long prize = extras.getLong(PlateEdit.PLATE_PRIZE);
 
                     Plate updatedPlate = new Plate(extras.getString(PlateEdit.PLATE_NAME)
                             , extras.getString(PlateEdit.PLATE_DESCRIPTION)
                             , extras.getString(PlateEdit.PLATE_CATEGORY)
                             , prize);
                     updatedPlate.setId(id);
+                    if (ValidationErrors.show(this, Validation.validatePlate(updatedPlate))) {
+                        break;
+                    }
                     mPlateViewModel.update(updatedPlate);
                     break;
             }
@@ -247,7 +233,7 @@ public class ListaPlatos extends AppCompatActivity {
         intent.putExtra(PlateEdit.PLATE_NAME, current.getName());
         intent.putExtra(PlateEdit.PLATE_DESCRIPTION, current.getDescription());
         intent.putExtra(PlateEdit.PLATE_CATEGORY, current.getCategory());
-        intent.putExtra(PlateEdit.PLATE_PRIZE, current.getPrize());
+        intent.putExtra(PlateEdit.PLATE_PRIZE, current.getPrizeCents());
         intent.putExtra(PlateEdit.PLATE_ID, current.getId());
         startActivityForResult(intent, ACTIVITY_EDIT);
     }
@@ -1,30 +1,54 @@
 package es.unizar.eina.fleetfeast.ui;
 
+import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 import es.unizar.eina.fleetfeast.R;
+import es.unizar.eina.fleetfeast.database.OrderDetails;
 import es.unizar.eina.fleetfeast.database.Plate;
 
 /**
+ * Pantalla para añadir platos a un pedido.
+ *
+ * Si el pedido ya existe en la base de datos, cada plato añadido se inserta
+ * directamente como una línea del pedido. Si el pedido todavía no se ha
+ * guardado (identificador -1), los platos elegidos se devuelven a la
+ * actividad llamadora como resultado, para que el pedido completo se escriba
+ * en una única transacción al guardarlo.
+ *
  * @author Abel Romeo
  * @author Diego Roldán
  */
 public class ListaPlatosParaAnadir extends AppCompatActivity {
+
+    public static final String EXCLUDED_PLATE_IDS = "excluded_plate_ids";
+    public static final String PLATE_IDS = "plate_ids";
+    public static final String PLATE_PRIZES = "plate_prizes";
+    public static final String PLATE_NAMES = "plate_names";
+    public static final String PLATE_CATEGORIES = "plate_categories";
+
     private PlateViewModel mPlateViewModel;
+    private OrderDetailsViewModel mOrderDetailsViewMolder;
     private int orderid;
 
+    private final List<Integer> mExcludedPlateIds = new ArrayList<>();
+    private final List<Plate> mSelectedPlates = new ArrayList<>();
+
     RecyclerView mRecyclerView;
 
     RadioGroup mRadioGroup;
@@ -32,6 +56,8 @@ public class ListaPlatosParaAnadir extends AppCompatActivity {
     RadioButton mRadioCat;
     RadioButton mRadioBoth;
 
+    EditText mSearch;
+
     Button mButton;
 
     PlateListAdapterParaAnadir mAdapter;
@@ -50,6 +76,7 @@ public class ListaPlatosParaAnadir extends AppCompatActivity {
         mRadioName = findViewById(R.id.radioButton);
         mRadioCat = findViewById(R.id.radioButton2);
         mRadioBoth = findViewById(R.id.radioButton3);
+        mSearch = findViewById(R.id.search);
         mButton = findViewById(R.id.button_save2);
 
         mRadioName.setChecked(true);
@@ -57,7 +84,7 @@ public class ListaPlatosParaAnadir extends AppCompatActivity {
         mRadioBoth.setChecked(false);
 
         mPlateViewModel = new ViewModelProvider(this).get(PlateViewModel.class);
-        OrderDetailsViewModel mOrderDetailsViewMolder = new ViewModelProvider(this).get(OrderDetailsViewModel.class);
+        mOrderDetailsViewMolder = new ViewModelProvider(this).get(OrderDetailsViewModel.class);
 
         Bundle extras = getIntent().getExtras();
         do {
@@ -66,99 +93,134 @@ public class ListaPlatosParaAnadir extends AppCompatActivity {
 
         long orderidL = extras.getLong(OrderEdit.ORDER_ID);
         orderid = (int) orderidL;
+        int[] excluded = extras.getIntArray(EXCLUDED_PLATE_IDS);
+        if (excluded != null) {
+            for (int plateId : excluded) {
+                mExcludedPlateIds.add(plateId);
+            }
+        }
 
-        mAdapter = new PlateListAdapterParaAnadir(new PlateListAdapterParaAnadir.PlateDiff(), mOrderDetailsViewMolder, orderid);
+        mAdapter = new PlateListAdapterParaAnadir(new PlateListAdapterParaAnadir.PlateDiff(), this::addPlate);
         mRecyclerView.setAdapter(mAdapter);
         mRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
         mRadioName.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (isChecked) {
-                updateList("name");
+                mPlateViewModel.setSort("name");
             }
         });
 
         mRadioCat.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (isChecked) {
-                updateList("category");
+                mPlateViewModel.setSort("category");
             }
         });
 
         mRadioBoth.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (isChecked) {
-                updateList("both");
+                mPlateViewModel.setSort("both");
+            }
+        });
+
+        mSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                mPlateViewModel.setSearch(s.toString());
             }
         });
-//
 
         mButton.setOnClickListener(v -> {
+            if (isDraft()) {
+                returnSelectedPlates();
+            }
             finish();
         });
 
 
-        mPlateViewModel.getAllPlatesNotInOrder(orderid).observe(this, plates -> {
-            List<Plate> filteredList = orderAndFilter(plates, "name");
-            mAdapter.submitList(filteredList);
-        });
+        updateList();
     }
 
     /**
-     * Función que actualiza la lista de platos
-     * @param orderby Tipo de ordenación
+     * Indica si los platos se añaden a un pedido que todavía no se ha guardado.
+     * @return true si el pedido no existe aún en la base de datos.
      */
-    private void updateList(String orderby) {
-        mPlateViewModel.getAllPlatesNotInOrder(orderid).observe(this, plates -> {
-            List<Plate> filteredList = orderAndFilter(plates, orderby);
-            mAdapter.submitList(filteredList);
-        });
+    private boolean isDraft() {
+        return orderid == -1;
     }
 
-    /** Función que ordena y filtra la lista de platos
-     * @param plateList Lista de platos
-     * @param orderby Tipo de ordenación
-     * @return Lista de platos ordenada y filtrada
+    /**
+     * Función que empieza a observar la lista de platos. Se llama una sola
+     * vez: los botones de ordenación y el buscador solo cambian la consulta del
+     * ViewModel.
+     */
+    private void updateList() {
+        LiveData<List<Plate>> source = isDraft()
+                ? mPlateViewModel.getSortedPlates()
+                : mPlateViewModel.getSortedPlatesNotInOrder(orderid);
+        source.observe(this, plates -> mAdapter.submitList(withoutChosen(plates)));
+    }
+
+    /**
+     * Elimina de la lista los platos que ya forman parte del pedido en borrador.
+     * @param plates Lista de platos
+     * @return Lista de platos que aún se pueden añadir
      */
-    private List<Plate> orderAndFilter(List<Plate> plateList, String orderby) {
-        if (orderby.equals("name")) {
-            plateList.sort(Comparator.comparing(Plate::getName));
-        } else if (orderby.equals("category")) {
-            plateList.sort(Comparator.comparing(Plate::getCategory, new PlateCategoryComparator()));
-        } else if (orderby.equals("both")) {
-            plateList.sort(Comparator.comparing(Plate::getCategory, new PlateCategoryComparator())
-                    .thenComparing(Plate::getName));
+    private List<Plate> withoutChosen(List<Plate> plates) {
+        if (!isDraft()) {
+            return plates;
         }
-        return plateList;
+        List<Plate> available = new ArrayList<>(plates.size());
+        for (Plate plate : plates) {
+            if (!mExcludedPlateIds.contains(plate.getId())) {
+                available.add(plate);
+            }
+        }
+        return available;
     }
 
     /**
-     * Clase que compara las categorías de los platos
+     * Añade un plato al pedido.
+     * @param plate Plato añadido
      */
-    private static class PlateCategoryComparator implements Comparator<String> {
-        @Override
-        public int compare(String category1, String category2) {
-            // Asigna un valor numérico a cada categoría
-            int value1 = getCategoryValue(category1);
-            int value2 = getCategoryValue(category2);
-
-            // Compara los valores numéricos
-            return Integer.compare(value1, value2);
+    private void addPlate(Plate plate) {
+        if (isDraft()) {
+            mSelectedPlates.add(plate);
+            mExcludedPlateIds.add(plate.getId());
+            List<Plate> remaining = new ArrayList<>(mAdapter.getCurrentList());
+            remaining.remove(plate);
+            mAdapter.submitList(remaining);
+        } else {
+            mOrderDetailsViewMolder.insert(new OrderDetails(orderid, plate.getId(), 1, plate.getPrizeCents()));
         }
+    }
 
-        /**
-         * Función que asigna un valor numérico a cada categoría
-         * @param category Categoría del plato
-         * @return Valor numérico de la categoría
-         */
-        private int getCategoryValue(String category) {
-            switch (category) {
-                case "PRIMERO":
-                    return 1;
-                case "SEGUNDO":
-                    return 2;
-                case "POSTRE":
-                    return 3;
-                default:
-                    return 0; // Valor predeterminado para otras categorías
-            }
+    /**
+     * Devuelve a la actividad llamadora los platos elegidos para el pedido en borrador.
+     */
+    private void returnSelectedPlates() {
+        int[] plateIds = new int[mSelectedPlates.size()];
+        long[] prizes = new long[mSelectedPlates.size()];
+        String[] names = new String[mSelectedPlates.size()];
+        String[] categories = new String[mSelectedPlates.size()];
+        for (int i = 0; i < mSelectedPlates.size(); i++) {
+            plateIds[i] = mSelectedPlates.get(i).getId();
+            prizes[i] = mSelectedPlates.get(i).getPrizeCents();
+            names[i] = mSelectedPlates.get(i).getName();
+            categories[i] = mSelectedPlates.get(i).getCategory();
         }
+        Intent replyIntent = new Intent();
+        replyIntent.putExtra(PLATE_IDS, plateIds);
+        replyIntent.putExtra(PLATE_PRIZES, prizes);
+        replyIntent.putExtra(PLATE_NAMES, names);
+        replyIntent.putExtra(PLATE_CATEGORIES, categories);
+        setResult(RESULT_OK, replyIntent);
     }
 }
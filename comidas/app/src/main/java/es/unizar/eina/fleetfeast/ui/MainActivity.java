@@ -1,5 +1,6 @@
 package es.unizar.eina.fleetfeast.ui;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 
@@ -11,15 +12,23 @@ import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+import es.unizar.eina.fleetfeast.BuildConfig;
 import es.unizar.eina.fleetfeast.R;
+import es.unizar.eina.fleetfeast.database.BenchmarkData;
+import es.unizar.eina.fleetfeast.database.LoadHarness;
 import es.unizar.eina.fleetfeast.database.OrderDetails;
 import es.unizar.eina.fleetfeast.database.Orders;
+import es.unizar.eina.fleetfeast.database.PickupTime;
 import es.unizar.eina.fleetfeast.database.Plate;
+import es.unizar.eina.fleetfeast.database.QueryStats;
 import es.unizar.eina.fleetfeast.database.SobreTests;
+import es.unizar.eina.fleetfeast.database.StorageProfile;
 import es.unizar.eina.fleetfeast.database.UnitTests;
 import es.unizar.eina.fleetfeast.database.VolumenTests;
 
@@ -46,6 +55,13 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
     static final int DELETE_PLATES_ID = Menu.FIRST + 4;
     static final int DELETE_ORDERS_ID = Menu.FIRST + 5;
     static final int DEFAULT_ID = Menu.FIRST + 6;
+    static final int TEST_LOAD_ID = Menu.FIRST + 7;
+    static final int EXPORT_QUERY_STATS_ID = Menu.FIRST + 8;
+    static final int STORAGE_PROFILE_ID = Menu.FIRST + 9;
+
+    /** Extras con los que el módulo macrobenchmark pide datos de prueba. */
+    public static final String SEED_PLATES = "seed_plates";
+    public static final String SEED_ORDERS = "seed_orders";
 
 
     PlateViewModel mPlateViewModel;
@@ -77,6 +93,26 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
         textTestView.setText("");
         textTestView.setVisibility(View.INVISIBLE);
+
+        // Solo en la variante benchmark: datos de prueba pedidos por el módulo macrobenchmark.
+        if (BuildConfig.BENCHMARK_SEED && savedInstanceState == null
+                && getIntent().hasExtra(SEED_ORDERS)) {
+            seedBenchmarkData(getIntent().getIntExtra(SEED_PLATES, 200),
+                    getIntent().getIntExtra(SEED_ORDERS, 10000));
+        }
+    }
+
+    /**
+     * Sustituye la base de datos por los datos de prueba de los benchmarks y
+     * muestra "seed OK" al terminar.
+     * @param plates El número de platos.
+     * @param orders El número de pedidos.
+     */
+    private void seedBenchmarkData(int plates, int orders) {
+        textTestView.setText("seed...");
+        textTestView.setVisibility(View.VISIBLE);
+        BenchmarkData.seed(getApplication(), plates, orders).whenComplete((result, error) ->
+                runOnUiThread(() -> textTestView.setText(error == null ? "seed OK" : "seed ERROR")));
     }
 
     @Override
@@ -104,6 +140,11 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         menu.add(Menu.NONE, DELETE_PLATES_ID, Menu.NONE,"delete all plates");
         menu.add(Menu.NONE, DELETE_ORDERS_ID, Menu.NONE,"delete all orders");
         menu.add(Menu.NONE, DEFAULT_ID, Menu.NONE,"add default values");
+        menu.add(Menu.NONE, TEST_LOAD_ID, Menu.NONE,"load test");
+        if (QueryStats.isEnabled()) {
+            menu.add(Menu.NONE, EXPORT_QUERY_STATS_ID, Menu.NONE,"export query stats");
+        }
+        menu.add(Menu.NONE, STORAGE_PROFILE_ID, Menu.NONE,"storage profile");
         return result;
     }
 
@@ -129,12 +170,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
                 return true;
             case TEST_VOL_ID:
                 System.out.println("volumen test");
-                if (new VolumenTests(mPlateViewModel,mOrderViewModel,mOrderDetailsViewModel).run()) {
-                    testOK();
-                }
-                else {
-                    textTestView.setText("test ERROR");
-                }
+                runVolumeTest();
                 return true;
             case TEST_MAX_ID:
                 System.out.println("max test");
@@ -166,10 +202,96 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
                 defaultValues();
                 testOK();
                 return true;
+            case TEST_LOAD_ID:
+                System.out.println("load test");
+                runLoadTest();
+                return true;
+            case EXPORT_QUERY_STATS_ID:
+                System.out.println("export query stats");
+                exportQueryStats();
+                return true;
+            case STORAGE_PROFILE_ID:
+                System.out.println("storage profile");
+                chooseStorageProfile();
+                return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * Lanza la prueba de volumen en otro hilo, ya que espera a cada escritura
+     * en la base de datos, y muestra el resultado al terminar.
+     */
+    private void runVolumeTest() {
+        VolumenTests tests = new VolumenTests(mPlateViewModel, mOrderViewModel, mOrderDetailsViewModel);
+        new Thread(() -> {
+            try {
+                boolean ok = tests.run();
+                runOnUiThread(() -> {
+                    if (ok) {
+                        testOK();
+                    } else {
+                        textTestView.setText("test ERROR");
+                    }
+                });
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                runOnUiThread(() -> textTestView.setText("test ERROR: " + e.getMessage()));
+            }
+        }, "VolumenTests").start();
+    }
+
+    /**
+     * Lanza la prueba de carga en otro hilo y muestra el informe con el
+     * rendimiento y las latencias al terminar.
+     */
+    private void runLoadTest() {
+        VolumenTests tests = new VolumenTests(mPlateViewModel, mOrderViewModel, mOrderDetailsViewModel);
+        new Thread(() -> {
+            try {
+                LoadHarness.Report report = tests.runLoad(new LoadHarness.Config());
+                runOnUiThread(() -> textTestView.setText(report.toString()));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                runOnUiThread(() -> textTestView.setText("load ERROR: " + e.getMessage()));
+            }
+        }, "LoadHarness").start();
+    }
+
+    /**
+     * Guarda las estadísticas de las sentencias SQL en query-stats.json, en la
+     * carpeta de ficheros externos de la aplicación, y muestra un resumen.
+     */
+    private void exportQueryStats() {
+        File file = new File(getExternalFilesDir(null), "query-stats.json");
+        try {
+            QueryStats.getInstance().writeTo(file);
+            textTestView.setText(file.getPath() + "\n" + QueryStats.getInstance());
+        } catch (IOException e) {
+            textTestView.setText("export ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Muestra los perfiles de almacenamiento y guarda el elegido, que se
+     * aplica al reiniciar la aplicación.
+     */
+    private void chooseStorageProfile() {
+        StorageProfile[] profiles = StorageProfile.values();
+        String[] names = new String[profiles.length];
+        for (int i = 0; i < profiles.length; i++) {
+            names[i] = profiles[i].name();
+        }
+        StorageProfile current = StorageProfile.load(this);
+        textTestView.setText("storage profile: " + current);
+        new AlertDialog.Builder(this)
+                .setTitle("storage profile")
+                .setSingleChoiceItems(names, current.ordinal(), (dialog, which) -> {
+                    StorageProfile.save(this, profiles[which]);
+                    textTestView.setText("storage profile: " + profiles[which] + " (restart to apply)");
+                    dialog.dismiss();
+                })
+                .show();
+    }
+
     void testOK() {
         textTestView.setText("test OK");
         textTestView.setVisibility(View.VISIBLE);
@@ -187,42 +309,42 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         List<Long> plate_ids = new ArrayList<>();
         List<Long> order_ids = new ArrayList<>();
 
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Hamburguesa", "Carne", "SEGUNDO", 7.5f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Ensalada de Pollo", "Pollo", "PRIMERO", 6.0f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Tiramisú", "Postre", "POSTRE", 4.5f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Pasta Carbonara", "Pasta", "SEGUNDO", 8.2f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Pizza Margarita", "Mozzarella y Tomate", "SEGUNDO", 9.5f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Sopa de Tomate", "Tomate fresco con hierbas", "PRIMERO", 5.8f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Brownie de Chocolate", "Con nueces", "POSTRE", 3.9f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Tacos de Pescado", "Tortillas de maíz con pescado fresco", "SEGUNDO", 10.0f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Ensalada César", "Pollo a la parrilla con aderezo César", "PRIMERO", 7.7f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Mousse de Frambuesa", "Postre suave y afrutado", "POSTRE", 4.2f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Lasagna", "Capas de pasta con carne y queso", "SEGUNDO", 11.75f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Sopa de Lentejas", "Lentejas con vegetales", "PRIMERO", 5.5f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Cheesecake", "Pastel de queso con base de galleta", "POSTRE", 6.8f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Pollo al Curry", "Pollo en salsa de curry con arroz", "SEGUNDO", 9.2f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Ensalada Griega", "Lechuga, tomate, pepino y queso feta", "PRIMERO", 8.0f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Helado de Vainilla", "Con sirope de chocolate", "POSTRE", 4.0f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Tacos de Carne Asada", "Tortillas con carne asada y guacamole", "SEGUNDO", 10.5f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Gazpacho", "Sopa fría de tomate y verduras", "PRIMERO", 6.5f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Muffin de Arándanos", "Con trozos de arándanos", "POSTRE", 3.5f)));
-        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Pescado a la Parrilla", "Filete de pescado con limón y hierbas", "SEGUNDO", 12.0f)));
-
-        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Abel", 123456789, "2023/12/30  21:30", "SOLICITADO")));
-        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Diego", 123456789, "2024/01/04  20:00", "SOLICITADO")));
-        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Marta", 123456789, "2023/12/31  23:00", "SOLICITADO")));
-        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Ana", 987654321, "2023/12/20  22:45", "RECOGIDO")));
-        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Carlos", 987654321, "2023/12/19  20:30", "RECOGIDO")));
-        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Luisa", 987654321, "2023/12/18  22:15", "RECOGIDO")));
-        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Elena", 987654321, "2023/12/23  19:30", "PREPARADO")));
-        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Juan", 987654321, "2023/12/23  20:45", "PREPARADO")));
-        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Laura", 987654321, "2023/12/23  22:00", "PREPARADO")));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Hamburguesa", "Carne", "SEGUNDO", 750)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Ensalada de Pollo", "Pollo", "PRIMERO", 600)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Tiramisú", "Postre", "POSTRE", 450)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Pasta Carbonara", "Pasta", "SEGUNDO", 820)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Pizza Margarita", "Mozzarella y Tomate", "SEGUNDO", 950)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Sopa de Tomate", "Tomate fresco con hierbas", "PRIMERO", 580)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Brownie de Chocolate", "Con nueces", "POSTRE", 390)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Tacos de Pescado", "Tortillas de maíz con pescado fresco", "SEGUNDO", 1000)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Ensalada César", "Pollo a la parrilla con aderezo César", "PRIMERO", 770)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Mousse de Frambuesa", "Postre suave y afrutado", "POSTRE", 420)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Lasagna", "Capas de pasta con carne y queso", "SEGUNDO", 1175)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Sopa de Lentejas", "Lentejas con vegetales", "PRIMERO", 550)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Cheesecake", "Pastel de queso con base de galleta", "POSTRE", 680)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Pollo al Curry", "Pollo en salsa de curry con arroz", "SEGUNDO", 920)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Ensalada Griega", "Lechuga, tomate, pepino y queso feta", "PRIMERO", 800)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Helado de Vainilla", "Con sirope de chocolate", "POSTRE", 400)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Tacos de Carne Asada", "Tortillas con carne asada y guacamole", "SEGUNDO", 1050)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Gazpacho", "Sopa fría de tomate y verduras", "PRIMERO", 650)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Muffin de Arándanos", "Con trozos de arándanos", "POSTRE", 350)));
+        plate_ids.add(mPlateViewModel.insertAndWait(new Plate("Pescado a la Parrilla", "Filete de pescado con limón y hierbas", "SEGUNDO", 1200)));
+
+        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Abel", 123456789, PickupTime.parse("2023/12/30  21:30"), "SOLICITADO")));
+        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Diego", 123456789, PickupTime.parse("2024/01/04  20:00"), "SOLICITADO")));
+        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Marta", 123456789, PickupTime.parse("2023/12/31  23:00"), "SOLICITADO")));
+        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Ana", 987654321, PickupTime.parse("2023/12/20  22:45"), "RECOGIDO")));
+        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Carlos", 987654321, PickupTime.parse("2023/12/19  20:30"), "RECOGIDO")));
+        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Luisa", 987654321, PickupTime.parse("2023/12/18  22:15"), "RECOGIDO")));
+        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Elena", 987654321, PickupTime.parse("2023/12/23  19:30"), "PREPARADO")));
+        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Juan", 987654321, PickupTime.parse("2023/12/23  20:45"), "PREPARADO")));
+        order_ids.add(mOrderViewModel.insertAndWait(new Orders("Laura", 987654321, PickupTime.parse("2023/12/23  22:00"), "PREPARADO")));
 
         for (int i = 0; i < order_ids.size();) {
             Random rand = new Random();
             int randomNum = rand.nextInt(plate_ids.size());
             int randomCant = rand.nextInt(4)+1;
-            float randomPrice = rand.nextFloat()*10+1.5f;
+            long randomPrice = 150 + rand.nextInt(1000);
             mOrderDetailsViewModel.insert(new OrderDetails(order_ids.get(i), Math.toIntExact(plate_ids.get(randomNum)), randomCant, randomPrice));
             if (rand.nextInt(2) == 1) {
                i++;
@@ -1,18 +1,18 @@
 package es.unizar.eina.fleetfeast.ui;
 
+import android.text.TextUtils;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
-import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
 
 import es.unizar.eina.fleetfeast.database.OrderDetails;
-import es.unizar.eina.fleetfeast.database.Plate;
-import es.unizar.eina.fleetfeast.database.PlateDao;
-import es.unizar.eina.fleetfeast.database.PlateDao_Impl;
-import es.unizar.eina.fleetfeast.database.PlateRepository;
+import es.unizar.eina.fleetfeast.database.OrderDetailsWithPlate;
 
 /**
  * Adaptador para la lista de pedidos en la interfaz de usuario.
@@ -25,6 +25,21 @@ import es.unizar.eina.fleetfeast.database.PlateRepository;
  * vistas de elementos de la lista, y proporciona un método para obtener el
  * pedido actualmente seleccionado en la lista.
  *
+ * Cada elemento es una línea del pedido junto con el nombre de su plato,
+ * obtenidos con una única consulta, por lo que pintar una fila no requiere
+ * ningún acceso adicional a la base de datos.
+ *
+ * {@link OrderDetailsDiff#getChangePayload} indica qué ha cambiado de una
+ * línea (cantidad, precio o nombre del plato) y
+ * {@link #onBindViewHolder(OrderDetailsViewHolder, int, List)} escribe solo ese
+ * texto sobre el mismo ViewHolder: al cambiar la cantidad no se vuelve a
+ * vincular la fila entera ni se anima su sustitución. Los identificadores son
+ * estables (el plato de la línea, que no se repite dentro de un pedido).
+ *
+ * Los botones + y - leen la línea de la lista al pulsarse, ya que tras una
+ * actualización parcial la fila puede mostrar un objeto más nuevo que el que
+ * se vinculó.
+ *
  * Utiliza una clase interna `NoteDiff` que implementa la interfaz
  * `DiffUtil.ItemCallback` para comparar elementos y determinar si son los
  * mismos o contienen los mismos contenidos.
@@ -32,22 +47,38 @@ import es.unizar.eina.fleetfeast.database.PlateRepository;
  * @author Abel Romeo
  * @author Diego Roldán
  */
-public class OrderDetailsListAdapter extends ListAdapter<OrderDetails, OrderDetailsViewHolder> {
+public class OrderDetailsListAdapter extends ListAdapter<OrderDetailsWithPlate, OrderDetailsViewHolder> {
+    /** Cambios de una línea, como payload de {@link OrderDetailsDiff#getChangePayload}. */
+    static final int PAYLOAD_NAME = 1;
+    static final int PAYLOAD_QUANTITY = 1 << 1;
+    static final int PAYLOAD_PRICE = 1 << 2;
+
     private int position;
-    PlateViewModel mPlateViewModel;
-    OrderDetailsViewModel mOrderDetailsViewMolder;
+    OnQuantityChangedListener mListener;
+
+    /**
+     * Interfaz que recibe los cambios de cantidad de las líneas del pedido.
+     */
+    interface OnQuantityChangedListener {
+        /**
+         * Se llama cuando el usuario cambia la cantidad de raciones de una línea.
+         * @param line La línea modificada, con la nueva cantidad.
+         */
+        void onQuantityChanged(OrderDetailsWithPlate line);
+    }
+
     /**
      * Constructor de la clase `OrderListAdapter`.
      *
      * @param diffCallback El objeto que implementa la lógica de comparación
      *                     de diferencias entre elementos.
+     * @param mListener El receptor de los cambios de cantidad.
      */
-    public OrderDetailsListAdapter(@NonNull DiffUtil.ItemCallback<OrderDetails> diffCallback,
-                                   PlateViewModel mPlateViewModel,
-                                   OrderDetailsViewModel mOrderDetailsViewMolder) {
+    public OrderDetailsListAdapter(@NonNull DiffUtil.ItemCallback<OrderDetailsWithPlate> diffCallback,
+                                   OnQuantityChangedListener mListener) {
         super(diffCallback);
-        this.mPlateViewModel = mPlateViewModel;
-        this.mOrderDetailsViewMolder = mOrderDetailsViewMolder;
+        this.mListener = mListener;
+        setHasStableIds(true);
     }
 
     /**
@@ -78,34 +109,7 @@ public class OrderDetailsListAdapter extends ListAdapter<OrderDetails, OrderDeta
      */
     @Override
     public OrderDetailsViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        return OrderDetailsViewHolder.create(parent);
-    }
-
-
-    /**
-     * Obtiene el plato actual.
-     * @return El plato actual.
-     */
-    public OrderDetails getCurrent() {
-        return getItem(getPosition());
-    }
-
-    /**
-     * Vincula los datos del pedido actual a la vista de elementos
-     * correspondiente.
-     *
-     * @param holder   El `OrderViewHolder` que contiene la vista de elementos.
-     * @param position La posición del elemento en la lista.
-     */
-    @Override
-    public void onBindViewHolder(OrderDetailsViewHolder holder, int position) {
-        OrderDetails current = getItem(position);
-
-        Plate plate = mPlateViewModel.getPlateById(current.getPlateId());
-        System.out.println("PLATO: "+plate);
-        holder.bind_name(plate.getName());
-        holder.bind_quantity(""+current.getQuantity());
-        holder.bind_price(current.getPrize()+"€");
+        OrderDetailsViewHolder holder = OrderDetailsViewHolder.create(parent);
 
         // Establece un clic largo en la vista de elementos para realizar una acción cuando se mantiene presionado.
         holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
@@ -120,12 +124,7 @@ public class OrderDetailsListAdapter extends ListAdapter<OrderDetails, OrderDeta
         holder.mAddButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                int quantity = current.getQuantity();
-                if (quantity < 99) {
-                    current.setQuantity(quantity + 1);
-                    holder.bind_quantity("" + current.getQuantity());
-                    mOrderDetailsViewMolder.update(current);
-                }
+                changeQuantity(holder, 1);
             }
         });
 
@@ -133,21 +132,106 @@ public class OrderDetailsListAdapter extends ListAdapter<OrderDetails, OrderDeta
         holder.mRestButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                int quantity = current.getQuantity();
-                if (quantity > 0) {
-                    current.setQuantity(quantity - 1);
-                    holder.bind_quantity("" + current.getQuantity());
-                    mOrderDetailsViewMolder.update(current);
-                }
+                changeQuantity(holder, -1);
             }
         });
+        return holder;
+    }
+
+    /**
+     * Cambia la cantidad de raciones de la línea de una fila, entre 0 y 99.
+     *
+     * @param holder La fila.
+     * @param delta  Las raciones que se suman (o restan, si es negativo).
+     */
+    private void changeQuantity(OrderDetailsViewHolder holder, int delta) {
+        int position = holder.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        OrderDetailsWithPlate line = getItem(position);
+        OrderDetails current = line.getOrderDetails();
+        int quantity = current.getQuantity() + delta;
+        if (quantity >= 0 && quantity <= 99) {
+            current.setQuantity(quantity);
+            holder.bind_quantity("" + quantity);
+            mListener.onQuantityChanged(line);
+        }
+    }
+
+    /**
+     * Devuelve el identificador estable de una línea: su plato, que no se
+     * repite dentro de un pedido.
+     *
+     * @param position La posición del elemento en la lista.
+     * @return El identificador del plato de la línea.
+     */
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getOrderDetails().getPlateId();
+    }
+
+
+    /**
+     * Obtiene el plato actual.
+     * @return El plato actual.
+     */
+    public OrderDetailsWithPlate getCurrent() {
+        return getItem(getPosition());
+    }
+
+    /**
+     * Vincula los datos del pedido actual a la vista de elementos
+     * correspondiente.
+     *
+     * @param holder   El `OrderViewHolder` que contiene la vista de elementos.
+     * @param position La posición del elemento en la lista.
+     */
+    @Override
+    public void onBindViewHolder(OrderDetailsViewHolder holder, int position) {
+        OrderDetailsWithPlate line = getItem(position);
+        OrderDetails current = line.getOrderDetails();
+
+        holder.bind_name(line.getPlateName() != null ? line.getPlateName() : "");
+        holder.bind_quantity(""+current.getQuantity());
+        holder.bind_price(current.getPrize()+"€");
+    }
+
+    /**
+     * Escribe solo los textos de la línea que han cambiado.
+     *
+     * @param holder   El `OrderViewHolder` que contiene la vista de elementos.
+     * @param position La posición del elemento en la lista.
+     * @param payloads Los cambios indicados por {@link OrderDetailsDiff#getChangePayload}.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull OrderDetailsViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        int changes = 0;
+        for (Object payload : payloads) {
+            changes |= (Integer) payload;
+        }
+        OrderDetailsWithPlate line = getItem(position);
+        OrderDetails current = line.getOrderDetails();
+        if ((changes & PAYLOAD_NAME) != 0) {
+            holder.bind_name(line.getPlateName() != null ? line.getPlateName() : "");
+        }
+        if ((changes & PAYLOAD_QUANTITY) != 0) {
+            holder.bind_quantity(""+current.getQuantity());
+        }
+        if ((changes & PAYLOAD_PRICE) != 0) {
+            holder.bind_price(current.getPrize()+"€");
+        }
     }
 
     /**
      * Clase interna que implementa la interfaz `DiffUtil.ItemCallback`
      * para comparar elementos.
      */
-    static class OrderDetailsDiff extends DiffUtil.ItemCallback<OrderDetails> {
+    static class OrderDetailsDiff extends DiffUtil.ItemCallback<OrderDetailsWithPlate> {
 
         /**
          * Compara si los elementos son los mismos.
@@ -158,9 +242,10 @@ public class OrderDetailsListAdapter extends ListAdapter<OrderDetails, OrderDeta
          * `false` de lo contrario.
          */
         @Override
-        public boolean areItemsTheSame(@NonNull OrderDetails oldItem,
-                                       @NonNull OrderDetails newItem) {
-            return oldItem.getOrderId() == newItem.getOrderId() && oldItem.getPlateId() == newItem.getPlateId();
+        public boolean areItemsTheSame(@NonNull OrderDetailsWithPlate oldItem,
+                                       @NonNull OrderDetailsWithPlate newItem) {
+            return oldItem.getOrderDetails().getOrderId() == newItem.getOrderDetails().getOrderId()
+                    && oldItem.getOrderDetails().getPlateId() == newItem.getOrderDetails().getPlateId();
         }
 
         /**
@@ -172,10 +257,34 @@ public class OrderDetailsListAdapter extends ListAdapter<OrderDetails, OrderDeta
          * `false` de lo contrario.
          */
         @Override
-        public boolean areContentsTheSame(@NonNull OrderDetails oldItem,
-                                          @NonNull OrderDetails newItem) {
-            // Solo nos preocupamos por las diferencias en la representación visual, es decir, cambios en el nombre.
-            return oldItem.getQuantity() == newItem.getQuantity();
+        public boolean areContentsTheSame(@NonNull OrderDetailsWithPlate oldItem,
+                                          @NonNull OrderDetailsWithPlate newItem) {
+            // Solo nos preocupamos por las diferencias en la representación visual: nombre, cantidad y precio.
+            return getChangePayload(oldItem, newItem) == null;
+        }
+
+        /**
+         * Indica qué ha cambiado de una línea.
+         *
+         * @param oldItem El antiguo elemento.
+         * @param newItem El nuevo elemento.
+         * @return Los cambios como combinación de PAYLOAD_NAME, PAYLOAD_QUANTITY
+         * y PAYLOAD_PRICE, o null si la fila no cambia.
+         */
+        @Override
+        public Object getChangePayload(@NonNull OrderDetailsWithPlate oldItem,
+                                       @NonNull OrderDetailsWithPlate newItem) {
+            int changes = 0;
+            if (!TextUtils.equals(oldItem.getPlateName(), newItem.getPlateName())) {
+                changes |= PAYLOAD_NAME;
+            }
+            if (oldItem.getOrderDetails().getQuantity() != newItem.getOrderDetails().getQuantity()) {
+                changes |= PAYLOAD_QUANTITY;
+            }
+            if (oldItem.getOrderDetails().getPrizeCents() != newItem.getOrderDetails().getPrizeCents()) {
+                changes |= PAYLOAD_PRICE;
+            }
+            return changes == 0 ? null : changes;
         }
     }
 }
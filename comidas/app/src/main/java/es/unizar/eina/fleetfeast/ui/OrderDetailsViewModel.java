@@ -4,11 +4,14 @@ import android.app.Application;
 
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import es.unizar.eina.fleetfeast.database.OrderDetails;
 import es.unizar.eina.fleetfeast.database.OrderDetailsRepository;
+import es.unizar.eina.fleetfeast.database.OrderDetailsWithPlate;
 import es.unizar.eina.fleetfeast.database.Orders;
 import es.unizar.eina.fleetfeast.database.OrdersRepository;
 import es.unizar.eina.fleetfeast.database.Plate;
@@ -24,6 +27,7 @@ public class OrderDetailsViewModel extends AndroidViewModel {
 
     private OrderDetailsRepository mRepository;
     private final LiveData<List<OrderDetails>> mAllOrdersDetails;
+    private final QuantityWriteCoalescer mQuantityWrites = new QuantityWriteCoalescer(this::update);
 
     /**
      * Constructor para OrderDetailsViewModel.
@@ -36,6 +40,14 @@ public class OrderDetailsViewModel extends AndroidViewModel {
         mAllOrdersDetails = mRepository.getAllOrdersDetails();
     }
 
+    /**
+     * Escribe las cantidades pendientes al destruir el ViewModel.
+     */
+    @Override
+    protected void onCleared() {
+        mQuantityWrites.flush();
+    }
+
     /**
      * Recupera el repositorio de pedidos.
      * @return OrderDetailsRepository que representa el repositorio de pedidos.
@@ -60,33 +72,66 @@ public class OrderDetailsViewModel extends AndroidViewModel {
     LiveData<List<OrderDetails>> getOrdersDetailsByOrderId(long orderId) {
         return mRepository.getOrdersDetailsByOrderId(orderId);
     }
+    /**
+     * Recupera LiveData con las líneas de un pedido junto con los datos de sus platos.
+     * @param orderId El id del pedido del que se quieren recuperar las líneas.
+     * @return LiveData<List<OrderDetailsWithPlate>> con las líneas del pedido.
+     */
+    LiveData<List<OrderDetailsWithPlate>> getOrderLinesByOrderId(long orderId) {
+        return Transformations.map(mRepository.getOrderLinesByOrderId(orderId), lines -> {
+            mQuantityWrites.applyPending(lines);
+            return lines;
+        });
+    }
+
+    /**
+     * Cambia la cantidad de una línea. La pantalla ya muestra la nueva cantidad;
+     * la escritura se agrupa con los siguientes cambios de la misma línea y se
+     * hace cuando la línea deja de cambiar (ver {@link QuantityWriteCoalescer}).
+     * Una cantidad 0 elimina la línea.
+     * @param order_details La línea con la nueva cantidad.
+     */
+    void updateQuantity(OrderDetails order_details) {
+        mQuantityWrites.submit(order_details);
+    }
+
+    /**
+     * Escribe ya las cantidades pendientes, por ejemplo al salir de la pantalla.
+     */
+    void flushQuantities() {
+        mQuantityWrites.flush();
+    }
+
     /**
      * Inserta un nuevo pedido en el repositorio.
      * @param order_details El pedido que se va a insertar.
+     * @return Un futuro con el identificador del elemento insertado.
      */
-    public void insert(OrderDetails order_details) {
-        mRepository.insert(order_details);
+    public CompletableFuture<Long> insert(OrderDetails order_details) {
+        return mRepository.insert(order_details);
     }
 
     /**
      * Actualiza un pedido existente en el repositorio.
      * @param order_details El pedido que se va a actualizar.
+     * @return Un futuro con el número de filas actualizadas.
      */
-    public void update(OrderDetails order_details) {
+    public CompletableFuture<Integer> update(OrderDetails order_details) {
         // cuestionable
         if (order_details.getQuantity() == 0) {
-            mRepository.delete(order_details);
+            return mRepository.delete(order_details);
         }
         else {
-            mRepository.update(order_details);
+            return mRepository.update(order_details);
         }
     }
 
     /**
      * Elimina un pedido del repositorio.
      * @param order_details El pedido que se va a eliminar.
+     * @return Un futuro con el número de filas eliminadas.
      */
-    public void delete(OrderDetails order_details) {
-        mRepository.delete(order_details);
+    public CompletableFuture<Integer> delete(OrderDetails order_details) {
+        return mRepository.delete(order_details);
     }
 }
@@ -19,13 +19,16 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 import es.unizar.eina.fleetfeast.R;
+import es.unizar.eina.fleetfeast.database.Money;
 import es.unizar.eina.fleetfeast.database.OrderDetails;
-import es.unizar.eina.fleetfeast.database.Orders;
+import es.unizar.eina.fleetfeast.database.OrderDetailsWithPlate;
+import es.unizar.eina.fleetfeast.database.PickupTime;
 
 /**
  * Pantalla utilizada para la creación o edición de un pedido.
@@ -37,6 +40,11 @@ import es.unizar.eina.fleetfeast.database.Orders;
  * Utiliza un conjunto de claves para pasar datos a través de intents,
  * como ORDER_NAME, ORDER_PHONE, etc.
  *
+ * Un pedido nuevo no se escribe en la base de datos mientras se edita: sus
+ * líneas se mantienen en memoria y se devuelven a la actividad llamadora
+ * (ORDER_PLATE_IDS, ORDER_QUANTITIES, ORDER_PRIZES) para que el pedido
+ * completo se inserte en una única transacción.
+ *
  * @author Abel Romeo
  * @author Diego Roldán
  */
@@ -47,6 +55,11 @@ public class OrderEdit extends AppCompatActivity {
     public static final String ORDER_DATE = "date";
     public static final String ORDER_STATE = "state";
     public static final String ORDER_ID = "id";
+    public static final String ORDER_PLATE_IDS = "plate_ids";
+    public static final String ORDER_QUANTITIES = "quantities";
+    public static final String ORDER_PRIZES = "prizes";
+
+    static final int ACTIVITY_ADD_PLATES = 1;
 
     private EditText mNameText;
     private TextView mTotalPriceText;
@@ -59,14 +72,19 @@ public class OrderEdit extends AppCompatActivity {
 
     private OrderDetailsListAdapter mAdapter;
     private OrderDetailsViewModel mOrderDetailsViewModel;
+    private OrderViewModel mOrderViewModel;
 
     private Button mSaveButton;
     private Button mAddPlatesButton;
 
     private long order_id = -1;
 
+    /** Líneas del pedido cuando este todavía no se ha guardado. */
+    private final List<OrderDetailsWithPlate> mDraftDetails = new ArrayList<>();
+
     /** Devuelve el id del pedido.
-     * Si no existe, crea un pedido vacío en la base de datos y devuelve su id.
+     * Si el pedido es nuevo devuelve -1: no se escribe nada en la base de datos
+     * hasta que el pedido se guarda con todas sus líneas.
      * @return El id del pedido que se esta editando.
      */
     private long getOrder_id() {
@@ -75,18 +93,17 @@ public class OrderEdit extends AppCompatActivity {
             if (extras != null) {
                 order_id = extras.getLong(OrderEdit.ORDER_ID);
             }
-            else {
-                // insert into database an empty order
-                Orders order = new Orders("", 0, "", "SOLICITADO");
-
-                OrderViewModel mOrdersViewModel = new ViewModelProvider(this).get(OrderViewModel.class);
-                order_id = mOrdersViewModel.insertAndWait(order);
-                System.out.println("CREADO NUEVO order_id: " + order_id);
-            }
         }
         return order_id;
     }
 
+    /** Indica si el pedido que se edita es nuevo y aún no existe en la base de datos.
+     * @return true si el pedido es nuevo.
+     */
+    private boolean isDraft() {
+        return order_id == -1;
+    }
+
     /**
      * Crea la actividad.
      * @param savedInstanceState El estado de la instancia guardada.
@@ -107,25 +124,32 @@ public class OrderEdit extends AppCompatActivity {
         mAddPlatesButton = findViewById(R.id.button);
 
         mRecyclerViewOrderDetails = findViewById(R.id.recyclerview_plates);
-        PlateViewModel mPlateViewModel = new ViewModelProvider(this).get(PlateViewModel.class);
         mOrderDetailsViewModel = new ViewModelProvider(this).get(OrderDetailsViewModel.class);
+        mOrderViewModel = new ViewModelProvider(this).get(OrderViewModel.class);
 
         mAdapter = new OrderDetailsListAdapter(new OrderDetailsListAdapter.OrderDetailsDiff(),
-                mPlateViewModel, mOrderDetailsViewModel);
+                this::onQuantityChanged);
         mRecyclerViewOrderDetails.setAdapter(mAdapter);
         mRecyclerViewOrderDetails.setLayoutManager(new LinearLayoutManager(this));
 
-        mOrderDetailsViewModel.getOrdersDetailsByOrderId(order_id).observe(this, plates -> {
-            // Update the cached copy of the notes in the adapter.
-            mAdapter.submitList(plates);
-            float sum = 0.0f;
-            for (OrderDetails plate : plates) {
-                sum += plate.getPrize() * plate.getQuantity();
+        if (isDraft()) {
+            showDraftDetails();
+        } else {
+            mOrderDetailsViewModel.getOrderLinesByOrderId(order_id).observe(this, plates -> {
+                // Update the cached copy of the notes in the adapter.
+                mAdapter.submitList(plates);
+            });
+            // El total de un pedido guardado lo mantiene la base de datos.
+            mOrderViewModel.getTotalCents(order_id).observe(this, totalCents -> {
+                mTotalPriceText.setText(Money.ofCents(totalCents == null ? 0 : totalCents).toString());
+            });
+        }
+
+        // Al salir del teléfono se busca el cliente para rellenar su nombre.
+        mPhoneText.setOnFocusChangeListener((view, hasFocus) -> {
+            if (!hasFocus) {
+                fillCustomerName();
             }
-            sum *= 100;
-            sum = Math.round(sum);
-            sum /= 100;
-            mTotalPriceText.setText(sum+"");
         });
 
         DatePicker datePicker = findViewById(R.id.datePicker);
@@ -139,7 +163,17 @@ public class OrderEdit extends AppCompatActivity {
                 Intent intent = new Intent(OrderEdit.this, ListaPlatosParaAnadir.class);
                 System.out.println("order_id añadido: " + order_id);
                 intent.putExtra(OrderEdit.ORDER_ID, order_id);
-                startActivity(intent);
+                if (isDraft()) {
+                    int[] plateIds = new int[mDraftDetails.size()];
+                    for (int i = 0; i < mDraftDetails.size(); i++) {
+                        plateIds[i] = mDraftDetails.get(i).getOrderDetails().getPlateId();
+                    }
+                    intent.putExtra(ListaPlatosParaAnadir.EXCLUDED_PLATE_IDS, plateIds);
+                    startActivityForResult(intent, ACTIVITY_ADD_PLATES);
+                }
+                else {
+                    startActivity(intent);
+                }
             }
         });
 
@@ -170,51 +204,44 @@ public class OrderEdit extends AppCompatActivity {
 
         mSaveButton = findViewById(R.id.button_save);
         mSaveButton.setOnClickListener(view -> {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd HH:mm");
-            try {
-                Date date = sdf.parse(mDateText.getText().toString());
-                if (date != null) {
-                    System.out.println("DATE: " + date.toString());
-                    Calendar calendar = Calendar.getInstance();
-                    calendar.setTime(date);
-                    int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
-                    int hourOfDay = calendar.get(Calendar.HOUR_OF_DAY);
-                    int minute = calendar.get(Calendar.MINUTE);
-                    // entre las 19:30 y las 23:00
-                    boolean correctTime =
-                        (hourOfDay == 19 && minute >= 30) ||
-                        (hourOfDay > 19 && hourOfDay < 23) ||
-                        (hourOfDay == 23 && minute == 0);
-
-                    if (date.before(new Date())) {
-                        System.out.println("ERROR: FECHA ANTERIOR A LA ACTUAL");
-                        Toast.makeText(
-                                getApplicationContext(),
-                                "ERROR: FECHA ANTERIOR A LA ACTUAL",
-                                Toast.LENGTH_LONG).show();
-                        return;
-                    }
-                    else if ((dayOfWeek == Calendar.MONDAY) || (!correctTime)) {
-                        System.out.println("ERROR: HORARIO DE RECOGIDA - MARTES A DOMINGO DE 19:30 A 23:00");
-                        Toast.makeText(
-                                getApplicationContext(),
-                                "ERROR: HORARIO DE RECOGIDA - MARTES A DOMINGO DE 19:30 A 23:00",
-                                Toast.LENGTH_LONG).show();
-
-                        return;
-                    }
-                    else {
-                        System.out.println("HORARIO DE RECOGIDA CORRECTO");
-                    }
+            long pickupMinutes = PickupTime.parse(mDateText.getText().toString());
+            if (pickupMinutes != PickupTime.INVALID) {
+                Calendar calendar = PickupTime.toCalendar(pickupMinutes);
+                System.out.println("DATE: " + calendar.getTime());
+                int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+                int hourOfDay = calendar.get(Calendar.HOUR_OF_DAY);
+                int minute = calendar.get(Calendar.MINUTE);
+                // entre las 19:30 y las 23:00
+                boolean correctTime =
+                    (hourOfDay == 19 && minute >= 30) ||
+                    (hourOfDay > 19 && hourOfDay < 23) ||
+                    (hourOfDay == 23 && minute == 0);
+
+                if (calendar.getTime().before(new Date())) {
+                    System.out.println("ERROR: FECHA ANTERIOR A LA ACTUAL");
+                    Toast.makeText(
+                            getApplicationContext(),
+                            "ERROR: FECHA ANTERIOR A LA ACTUAL",
+                            Toast.LENGTH_LONG).show();
+                    return;
+                }
+                else if ((dayOfWeek == Calendar.MONDAY) || (!correctTime)) {
+                    System.out.println("ERROR: HORARIO DE RECOGIDA - MARTES A DOMINGO DE 19:30 A 23:00");
+                    Toast.makeText(
+                            getApplicationContext(),
+                            "ERROR: HORARIO DE RECOGIDA - MARTES A DOMINGO DE 19:30 A 23:00",
+                            Toast.LENGTH_LONG).show();
+
+                    return;
                 }
                 else {
-                    System.out.println("DATE: NULL");
+                    System.out.println("HORARIO DE RECOGIDA CORRECTO");
                 }
             }
-            catch (Exception e) {
+            else if (!TextUtils.isEmpty(mDateText.getText())) {
                 Toast.makeText(
                         getApplicationContext(),
-                        "ERROR: " + e.getMessage(),
+                        "ERROR: FECHA NO VALIDA",
                         Toast.LENGTH_LONG).show();
                 return;
             }
@@ -230,9 +257,23 @@ public class OrderEdit extends AppCompatActivity {
             else {
                 replyIntent.putExtra(OrderEdit.ORDER_NAME, mNameText.getText().toString());
                 replyIntent.putExtra(OrderEdit.ORDER_PHONE, Integer.parseInt(mPhoneText.getText().toString()));
-                replyIntent.putExtra(OrderEdit.ORDER_DATE, mDateText.getText().toString());
+                replyIntent.putExtra(OrderEdit.ORDER_DATE, pickupMinutes);
                 replyIntent.putExtra(OrderEdit.ORDER_STATE, mStateSpinner.getSelectedItem().toString());
                 replyIntent.putExtra(OrderEdit.ORDER_ID, order_id);
+                if (isDraft()) {
+                    int[] plateIds = new int[mDraftDetails.size()];
+                    int[] quantities = new int[mDraftDetails.size()];
+                    long[] prizes = new long[mDraftDetails.size()];
+                    for (int i = 0; i < mDraftDetails.size(); i++) {
+                        OrderDetails line = mDraftDetails.get(i).getOrderDetails();
+                        plateIds[i] = line.getPlateId();
+                        quantities[i] = line.getQuantity();
+                        prizes[i] = line.getPrizeCents();
+                    }
+                    replyIntent.putExtra(OrderEdit.ORDER_PLATE_IDS, plateIds);
+                    replyIntent.putExtra(OrderEdit.ORDER_QUANTITIES, quantities);
+                    replyIntent.putExtra(OrderEdit.ORDER_PRIZES, prizes);
+                }
                 setResult(RESULT_OK, replyIntent);
                 finish();
             }
@@ -242,6 +283,95 @@ public class OrderEdit extends AppCompatActivity {
         populateFields();
     }
 
+    /**
+     * Recoge los platos elegidos para un pedido nuevo.
+     * @param requestCode Código de la solicitud.
+     * @param resultCode Código de resultado.
+     * @param data Datos resultantes de la actividad.
+     */
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode == ACTIVITY_ADD_PLATES && resultCode == RESULT_OK && data != null) {
+            int[] plateIds = data.getIntArrayExtra(ListaPlatosParaAnadir.PLATE_IDS);
+            long[] prizes = data.getLongArrayExtra(ListaPlatosParaAnadir.PLATE_PRIZES);
+            String[] names = data.getStringArrayExtra(ListaPlatosParaAnadir.PLATE_NAMES);
+            String[] categories = data.getStringArrayExtra(ListaPlatosParaAnadir.PLATE_CATEGORIES);
+            if (plateIds != null && prizes != null && names != null && categories != null) {
+                for (int i = 0; i < plateIds.length; i++) {
+                    mDraftDetails.add(new OrderDetailsWithPlate(
+                            new OrderDetails(order_id, plateIds[i], 1, prizes[i]),
+                            names[i], categories[i]));
+                }
+                showDraftDetails();
+            }
+        }
+    }
+
+    /**
+     * Gestiona el cambio de cantidad de una línea del pedido.
+     * En un pedido nuevo solo se modifica la copia en memoria; en un pedido
+     * existente el cambio se escribe en la base de datos cuando la línea deja
+     * de cambiar, con una sola escritura para varias pulsaciones seguidas.
+     * @param line La línea modificada.
+     */
+    private void onQuantityChanged(OrderDetailsWithPlate line) {
+        if (isDraft()) {
+            if (line.getOrderDetails().getQuantity() == 0) {
+                mDraftDetails.remove(line);
+            }
+            showDraftDetails();
+        }
+        else {
+            mOrderDetailsViewModel.updateQuantity(line.getOrderDetails());
+        }
+    }
+
+    /**
+     * Escribe las cantidades que aún no se han guardado al salir de la pantalla.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mOrderDetailsViewModel.flushQuantities();
+    }
+
+    /**
+     * Si el nombre está vacío y el teléfono es de un cliente conocido, rellena
+     * el nombre con el de su último pedido. La búsqueda usa el índice del
+     * teléfono de la tabla de clientes.
+     */
+    private void fillCustomerName() {
+        String phone = mPhoneText.getText().toString();
+        if (!TextUtils.isEmpty(mNameText.getText()) || phone.length() != 9 || !TextUtils.isDigitsOnly(phone)) {
+            return;
+        }
+        mOrderViewModel.getCustomerByPhone(Long.parseLong(phone)).thenAccept(customer -> {
+            if (customer != null) {
+                runOnUiThread(() -> {
+                    if (TextUtils.isEmpty(mNameText.getText())) {
+                        mNameText.setText(customer.getName());
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Muestra las líneas del pedido en borrador y su precio total.
+     * El borrador todavía no está en la base de datos, así que el total se
+     * calcula en memoria.
+     */
+    private void showDraftDetails() {
+        mAdapter.submitList(new ArrayList<>(mDraftDetails));
+        long sum = 0;
+        for (OrderDetailsWithPlate line : mDraftDetails) {
+            OrderDetails plate = line.getOrderDetails();
+            sum += plate.getPrizeCents() * plate.getQuantity();
+        }
+        mTotalPriceText.setText(Money.ofCents(sum).toString());
+    }
+
     /**
      * Puebla los campos de la pantalla con los datos recibidos.
      */
@@ -251,7 +381,9 @@ public class OrderEdit extends AppCompatActivity {
         if (extras != null) {
             mNameText.setText(extras.getString(OrderEdit.ORDER_NAME));
             mPhoneText.setText(extras.getLong(OrderEdit.ORDER_PHONE)+"");
-            mDateText.setText(extras.getString(OrderEdit.ORDER_DATE));
+            if (extras.containsKey(OrderEdit.ORDER_DATE)) {
+                mDateText.setText(PickupTime.format(extras.getLong(OrderEdit.ORDER_DATE)));
+            }
 
             order_id = extras.getLong(OrderEdit.ORDER_ID);
 
@@ -322,7 +454,7 @@ public class OrderEdit extends AppCompatActivity {
 
                        String dateTime = datePicker.getYear() + "/" +
                                 month_str + "/" + dayOfMonth_str +
-                                "   " + hourOfDay_str + ":" + minute_str;
+                                "  " + hourOfDay_str + ":" + minute_str;
                         // Puedes mostrarlo en un TextView o realizar cualquier otra acción
                         // Aquí solo lo imprimo en la consola para demostración
                         mDateText.setText(dateTime);
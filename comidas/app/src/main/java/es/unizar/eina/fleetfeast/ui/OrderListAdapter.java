@@ -4,11 +4,12 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagedListAdapter;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
 
+import es.unizar.eina.fleetfeast.database.Money;
 import es.unizar.eina.fleetfeast.database.Orders;
-import es.unizar.eina.fleetfeast.database.Plate;
 
 /**
  * Adaptador para la lista de pedidos en la interfaz de usuario.
@@ -21,10 +22,23 @@ import es.unizar.eina.fleetfeast.database.Plate;
  * vistas de elementos de la lista, y proporciona un método para obtener el
  * pedido actualmente seleccionado en la lista.
  *
+ * Los pedidos llegan por páginas desde la base de datos, por lo que el
+ * adaptador solo tiene en memoria los pedidos que se han ido mostrando.
+ *
+ * Cada fila muestra el nombre y el total del pedido en un único texto, así
+ * que cuando cambia uno de ellos {@link OrderDiff#getChangePayload} solo
+ * avisa de que la fila ha cambiado ({@link #PAYLOAD_CHANGED}): con un payload
+ * la fila se vuelve a pintar sobre el mismo ViewHolder, en lugar de vincular
+ * un segundo ViewHolder para la animación de sustitución. Los identificadores
+ * son estables (el id del pedido).
+ *
  * @author Abel Romeo
  * @author Diego Roldán
  */
-public class OrderListAdapter extends ListAdapter<Orders, OrderViewHolder> {
+public class OrderListAdapter extends PagedListAdapter<Orders, OrderViewHolder> {
+    /** Payload de {@link OrderDiff#getChangePayload}: el texto de la fila ha cambiado. */
+    static final Object PAYLOAD_CHANGED = new Object();
+
     private int position;
 
     /**
@@ -35,6 +49,7 @@ public class OrderListAdapter extends ListAdapter<Orders, OrderViewHolder> {
      */
     public OrderListAdapter(@NonNull DiffUtil.ItemCallback<Orders> diffCallback) {
         super(diffCallback);
+        setHasStableIds(true);
     }
 
     /**
@@ -65,7 +80,29 @@ public class OrderListAdapter extends ListAdapter<Orders, OrderViewHolder> {
      */
     @Override
     public OrderViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        return OrderViewHolder.create(parent);
+        OrderViewHolder holder = OrderViewHolder.create(parent);
+
+        // Establece un clic largo en la vista de elementos para realizar una acción cuando se mantiene presionado.
+        holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                setPosition(holder.getAdapterPosition());
+                return false;
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Devuelve el identificador estable de un pedido.
+     *
+     * @param position La posición del elemento en la lista.
+     * @return El id del pedido.
+     */
+    @Override
+    public long getItemId(int position) {
+        Orders order = getItem(position);
+        return order == null ? RecyclerView.NO_ID : order.getId();
     }
 
     /**
@@ -86,16 +123,7 @@ public class OrderListAdapter extends ListAdapter<Orders, OrderViewHolder> {
     @Override
     public void onBindViewHolder(OrderViewHolder holder, int position) {
         Orders current = getItem(position);
-        holder.bind(current.getName());
-
-        // Establece un clic largo en la vista de elementos para realizar una acción cuando se mantiene presionado.
-        holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
-            @Override
-            public boolean onLongClick(View v) {
-                setPosition(holder.getAdapterPosition());
-                return false;
-            }
-        });
+        holder.bind(current.getName() + "  " + Money.ofCents(current.getTotalCents()));
     }
 
     /**
@@ -128,8 +156,25 @@ public class OrderListAdapter extends ListAdapter<Orders, OrderViewHolder> {
         @Override
         public boolean areContentsTheSame(@NonNull Orders oldItem,
                                           @NonNull Orders newItem) {
-            // Solo nos preocupamos por las diferencias en la representación visual, es decir, cambios en el nombre.
-            return oldItem.getName().equals(newItem.getName());
+            // Solo nos preocupamos por las diferencias en la representación visual, es decir, cambios en el nombre o el total.
+            return getChangePayload(oldItem, newItem) == null;
+        }
+
+        /**
+         * Indica qué ha cambiado en la fila de un pedido.
+         *
+         * @param oldItem El antiguo elemento.
+         * @param newItem El nuevo elemento.
+         * @return PAYLOAD_CHANGED si cambia el nombre o el total, o null si
+         * la fila no cambia.
+         */
+        @Override
+        public Object getChangePayload(@NonNull Orders oldItem, @NonNull Orders newItem) {
+            if (!oldItem.getName().equals(newItem.getName())
+                    || oldItem.getTotalCents() != newItem.getTotalCents()) {
+                return PAYLOAD_CHANGED;
+            }
+            return null;
         }
     }
 }
@@ -0,0 +1,62 @@
+package es.unizar.eina.fleetfeast.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filtro y ordenación de la lista de pedidos elegidos en la pantalla.
+ *
+ * Es inmutable y comparable, para que el ViewModel solo lance una nueva
+ * consulta cuando el filtro cambia de verdad.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+final class OrderListFilter {
+    private final String mOrderBy;
+    private final List<String> mStates;
+
+    /**
+     * Constructor de la clase OrderListFilter.
+     * @param orderby Criterio de ordenación: "name", "phone", "date" o "total".
+     * @param states Los estados de los pedidos que se quieren mostrar.
+     */
+    OrderListFilter(String orderby, List<String> states) {
+        mOrderBy = orderby;
+        mStates = Collections.unmodifiableList(new ArrayList<>(states));
+    }
+
+    /**
+     * Obtiene el criterio de ordenación.
+     * @return El criterio de ordenación.
+     */
+    String getOrderBy() {
+        return mOrderBy;
+    }
+
+    /**
+     * Obtiene los estados de los pedidos que se quieren mostrar.
+     * @return Los estados de los pedidos.
+     */
+    List<String> getStates() {
+        return mStates;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OrderListFilter)) {
+            return false;
+        }
+        OrderListFilter other = (OrderListFilter) o;
+        return mOrderBy.equals(other.mOrderBy) && mStates.equals(other.mStates);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mOrderBy.hashCode() + mStates.hashCode();
+    }
+}
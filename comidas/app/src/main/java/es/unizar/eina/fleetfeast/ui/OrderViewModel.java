@@ -4,9 +4,17 @@ import android.app.Application;
 
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagedList;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import es.unizar.eina.fleetfeast.database.Customer;
+import es.unizar.eina.fleetfeast.database.CustomerRepository;
+import es.unizar.eina.fleetfeast.database.CustomerSummary;
+import es.unizar.eina.fleetfeast.database.OrderDetails;
 import es.unizar.eina.fleetfeast.database.Orders;
 import es.unizar.eina.fleetfeast.database.OrdersRepository;
 
@@ -20,8 +28,17 @@ import es.unizar.eina.fleetfeast.database.OrdersRepository;
 public class OrderViewModel extends AndroidViewModel {
 
     private OrdersRepository mRepository;
+    private CustomerRepository mCustomerRepository;
     private final LiveData<List<Orders>> mAllOrders;
 
+    /** Tiempo que se espera a que el usuario deje de cambiar el filtro. */
+    private static final long FILTER_DEBOUNCE_MS = 150;
+
+    private final DebouncedLiveData<OrderListFilter> mFilter = new DebouncedLiveData<>(
+            new OrderListFilter("name", Arrays.asList("SOLICITADO", "PREPARADO", "RECOGIDO")),
+            FILTER_DEBOUNCE_MS);
+    private final LiveData<PagedList<Orders>> mPagedOrders;
+
     /**
      * Constructor para OrderViewModel.
      * Inicializa el repositorio y recupera todos los pedidos de él.
@@ -30,7 +47,18 @@ public class OrderViewModel extends AndroidViewModel {
     public OrderViewModel(Application application) {
         super(application);
         mRepository = new OrdersRepository(application);
+        mCustomerRepository = new CustomerRepository(application);
         mAllOrders = mRepository.getAllOrders();
+        mPagedOrders = Transformations.switchMap(Transformations.distinctUntilChanged(mFilter),
+                filter -> mRepository.getPagedOrders(filter.getOrderBy(), filter.getStates()));
+    }
+
+    /**
+     * Descarta el filtro pendiente de aplicar al destruir el ViewModel.
+     */
+    @Override
+    protected void onCleared() {
+        mFilter.cancel();
     }
 
     /**
@@ -50,12 +78,68 @@ public class OrderViewModel extends AndroidViewModel {
         return mAllOrders;
     }
 
+    /**
+     * Cambia el filtro y la ordenación de la lista de pedidos.
+     * Los cambios seguidos se agrupan y solo se lanza la consulta del último.
+     * @param filter El nuevo filtro.
+     */
+    void setOrderListFilter(OrderListFilter filter) {
+        mFilter.setDebounced(filter);
+    }
+
+    /**
+     * Recupera por páginas los pedidos que cumplen el filtro actual.
+     * Es siempre el mismo LiveData: al cambiar el filtro se cambia la consulta
+     * de la que recibe los datos, no el objeto que se observa.
+     * @return LiveData<PagedList<Orders>> con los pedidos ordenados y filtrados.
+     */
+    LiveData<PagedList<Orders>> getPagedOrders() {
+        return mPagedOrders;
+    }
+
+    /**
+     * Recupera el importe total de un pedido, que mantiene la base de datos.
+     * @param orderId El identificador del pedido.
+     * @return LiveData<Long> con el importe total en céntimos.
+     */
+    LiveData<Long> getTotalCents(long orderId) {
+        return mRepository.getTotalCents(orderId);
+    }
+
+    /**
+     * Busca un cliente por su teléfono sin bloquear al llamante.
+     * @param phone El teléfono del cliente.
+     * @return Un futuro con el cliente, o null si no existe.
+     */
+    CompletableFuture<Customer> getCustomerByPhone(long phone) {
+        return mCustomerRepository.getCustomerByPhone(phone);
+    }
+
+    /**
+     * Recupera por páginas los pedidos de un cliente, del más reciente al más antiguo.
+     * @param customerId El identificador del cliente.
+     * @return LiveData<PagedList<Orders>> con los pedidos del cliente.
+     */
+    LiveData<PagedList<Orders>> getOrderHistory(long customerId) {
+        return mCustomerRepository.getOrderHistory(customerId);
+    }
+
+    /**
+     * Recupera el número de pedidos, el importe total y la última recogida de un cliente.
+     * @param customerId El identificador del cliente.
+     * @return LiveData<CustomerSummary> con el resumen de los pedidos del cliente.
+     */
+    LiveData<CustomerSummary> getCustomerSummary(long customerId) {
+        return mCustomerRepository.getSummary(customerId);
+    }
+
     /**
      * Inserta un nuevo pedido en el repositorio.
      * @param order El pedido que se va a insertar.
+     * @return Un futuro con el identificador del elemento insertado.
      */
-    public void insert(Orders order) {
-        mRepository.insert(order);
+    public CompletableFuture<Long> insert(Orders order) {
+        return mRepository.insert(order);
     }
 
     /**
@@ -67,19 +151,31 @@ public class OrderViewModel extends AndroidViewModel {
         return mRepository.insertAndWait(order);
     }
 
+    /**
+     * Inserta un nuevo pedido junto con todas sus líneas en una única transacción.
+     * @param order El pedido que se va a insertar.
+     * @param orderDetails Las líneas del pedido.
+     * @return Un futuro con el identificador del pedido insertado.
+     */
+    public CompletableFuture<Long> insertWithDetails(Orders order, List<OrderDetails> orderDetails) {
+        return mRepository.insertWithDetails(order, orderDetails);
+    }
+
     /**
      * Actualiza un pedido existente en el repositorio.
      * @param order El pedido que se va a actualizar.
+     * @return Un futuro con el número de filas actualizadas.
      */
-    public void update(Orders order) {
-        mRepository.update(order);
+    public CompletableFuture<Integer> update(Orders order) {
+        return mRepository.update(order);
     }
 
     /**
      * Elimina un pedido del repositorio.
      * @param order El pedido que se va a eliminar.
+     * @return Un futuro con el número de filas eliminadas.
      */
-    public void delete(Orders order) {
-        mRepository.delete(order);
+    public CompletableFuture<Integer> delete(Orders order) {
+        return mRepository.delete(order);
     }
 }
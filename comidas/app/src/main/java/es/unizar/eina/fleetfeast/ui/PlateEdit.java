@@ -10,6 +10,7 @@ import android.widget.EditText;
 import android.widget.Spinner;
 
 import es.unizar.eina.fleetfeast.R;
+import es.unizar.eina.fleetfeast.database.Money;
 
 /**
  * Pantalla utilizada para la creación o edición de un plato.
@@ -60,7 +61,7 @@ public class PlateEdit extends AppCompatActivity {
                 replyIntent.putExtra(PlateEdit.PLATE_NAME, mNameText.getText().toString());
                 replyIntent.putExtra(PlateEdit.PLATE_DESCRIPTION, mDescriptionText.getText().toString());
                 replyIntent.putExtra(PlateEdit.PLATE_CATEGORY, mCategorySpinner.getSelectedItem().toString());
-                replyIntent.putExtra(PlateEdit.PLATE_PRIZE, Float.parseFloat(mPrizeText.getText().toString()));
+                replyIntent.putExtra(PlateEdit.PLATE_PRIZE, Money.parse(mPrizeText.getText().toString()).getCents());
                 if (mRowId != null) {
                     replyIntent.putExtra(PlateEdit.PLATE_ID, mRowId.intValue());
                 }
@@ -81,8 +82,8 @@ public class PlateEdit extends AppCompatActivity {
         if (extras != null) {
             mNameText.setText(extras.getString(PlateEdit.PLATE_NAME));
             mDescriptionText.setText(extras.getString(PlateEdit.PLATE_DESCRIPTION));
-            float prize = extras.getFloat(PlateEdit.PLATE_PRIZE);
-            mPrizeText.setText(String.valueOf(prize));
+            long prizeCents = extras.getLong(PlateEdit.PLATE_PRIZE);
+            mPrizeText.setText(Money.ofCents(prizeCents).toString());
             mRowId = extras.getInt(PlateEdit.PLATE_ID);
 
             String category = extras.getString(PlateEdit.PLATE_CATEGORY);
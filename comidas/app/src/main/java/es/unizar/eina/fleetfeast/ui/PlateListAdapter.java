@@ -7,6 +7,8 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 
+import java.util.List;
+
 import es.unizar.eina.fleetfeast.database.Plate;
 
 /**
@@ -14,10 +16,19 @@ import es.unizar.eina.fleetfeast.database.Plate;
  * Gestiona la lista de platos en RecyclerView y calcula las
  * diferencias entre platos antiguos y nuevos para actualizaciones eficientes.
  *
+ * {@link PlateDiff#getChangePayload} indica qué ha cambiado de un plato y
+ * {@link #onBindViewHolder(PlateViewHolder, int, List)} pinta solo eso sobre el
+ * mismo ViewHolder. Los identificadores son estables (el id del plato).
+ *
  * @author Abel Romeo
  * @author Diego Roldán
  */
 public class PlateListAdapter extends ListAdapter<Plate, PlateViewHolder> {
+    /** Cambios de un plato, como payload de {@link PlateDiff#getChangePayload}. */
+    static final int PAYLOAD_NAME = 1;
+    static final int PAYLOAD_CATEGORY = 1 << 1;
+    static final int PAYLOAD_PRICE = 1 << 2;
+
     private int position;
 
     /**
@@ -42,6 +53,7 @@ public class PlateListAdapter extends ListAdapter<Plate, PlateViewHolder> {
      */
     public PlateListAdapter(@NonNull DiffUtil.ItemCallback<Plate> diffCallback) {
         super(diffCallback);
+        setHasStableIds(true);
     }
 
     /**
@@ -52,7 +64,26 @@ public class PlateListAdapter extends ListAdapter<Plate, PlateViewHolder> {
      */
     @Override
     public PlateViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        return PlateViewHolder.create(parent);
+        PlateViewHolder holder = PlateViewHolder.create(parent);
+
+        holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                setPosition(holder.getAdapterPosition());
+                return false;
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Devuelve el identificador estable de un plato.
+     * @param position La posición del plato.
+     * @return El id del plato.
+     */
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     /**
@@ -72,14 +103,23 @@ public class PlateListAdapter extends ListAdapter<Plate, PlateViewHolder> {
     public void onBindViewHolder(PlateViewHolder holder, int position) {
         Plate current = getItem(position);
         holder.bind(current.getName(), current.getCategory());
+    }
 
-        holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
-            @Override
-            public boolean onLongClick(View v) {
-                setPosition(holder.getAdapterPosition());
-                return false;
-            }
-        });
+    /**
+     * Pinta solo lo que ha cambiado de un plato. El precio no se muestra en
+     * la fila, así que un cambio de precio no toca la vista.
+     * @param holder El PlateViewHolder.
+     * @param position La posición del plato.
+     * @param payloads Los cambios indicados por {@link PlateDiff#getChangePayload}.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull PlateViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else if ((PlateDiff.merge(payloads) & (PAYLOAD_NAME | PAYLOAD_CATEGORY)) != 0) {
+            Plate current = getItem(position);
+            holder.bind(current.getName(), current.getCategory());
+        }
     }
 
     /**
@@ -107,8 +147,43 @@ public class PlateListAdapter extends ListAdapter<Plate, PlateViewHolder> {
          */
         @Override
         public boolean areContentsTheSame(@NonNull Plate oldItem, @NonNull Plate newItem) {
-            // Solo nos preocupamos por las diferencias en la representación visual, es decir, cambios en el nombre
-            return oldItem.getName().equals(newItem.getName());
+            // Solo nos preocupamos por lo que se muestra o se copia a los pedidos: nombre, categoría y precio.
+            return getChangePayload(oldItem, newItem) == null;
+        }
+
+        /**
+         * Indica qué ha cambiado de un plato.
+         * @param oldItem El plato antiguo.
+         * @param newItem El nuevo plato.
+         * @return Los cambios como combinación de PAYLOAD_NAME, PAYLOAD_CATEGORY
+         * y PAYLOAD_PRICE, o null si no ha cambiado nada de eso.
+         */
+        @Override
+        public Object getChangePayload(@NonNull Plate oldItem, @NonNull Plate newItem) {
+            int changes = 0;
+            if (!oldItem.getName().equals(newItem.getName())) {
+                changes |= PAYLOAD_NAME;
+            }
+            if (!oldItem.getCategory().equals(newItem.getCategory())) {
+                changes |= PAYLOAD_CATEGORY;
+            }
+            if (oldItem.getPrizeCents() != newItem.getPrizeCents()) {
+                changes |= PAYLOAD_PRICE;
+            }
+            return changes == 0 ? null : changes;
+        }
+
+        /**
+         * Junta los payloads que se han acumulado para una fila.
+         * @param payloads Los payloads de {@link #getChangePayload}.
+         * @return La combinación de todos los cambios.
+         */
+        static int merge(List<Object> payloads) {
+            int changes = 0;
+            for (Object payload : payloads) {
+                changes |= (Integer) payload;
+            }
+            return changes;
         }
     }
 }
@@ -6,8 +6,10 @@ import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
 
-import es.unizar.eina.fleetfeast.database.OrderDetails;
 import es.unizar.eina.fleetfeast.database.Plate;
 
 /**
@@ -15,13 +17,27 @@ import es.unizar.eina.fleetfeast.database.Plate;
  * Gestiona la lista de platos en RecyclerView y calcula las
  * diferencias entre platos antiguos y nuevos para actualizaciones eficientes.
  *
+ * Usa las mismas comparaciones y payloads que {@link PlateListAdapter}. El
+ * botón de añadir lee el plato de la lista al pulsarse, de modo que tras una
+ * actualización parcial añade el plato con su precio actual.
+ *
  * @author Abel Romeo
  * @author Diego Roldán
  */
 public class PlateListAdapterParaAnadir extends ListAdapter<Plate, PlateViewHolderParaAnadir> {
     private int position;
-    private long orderid;
-    OrderDetailsViewModel mOrderDetailsViewMolder;
+    OnPlateAddedListener mListener;
+
+    /**
+     * Interfaz que recibe los platos que el usuario añade al pedido.
+     */
+    interface OnPlateAddedListener {
+        /**
+         * Se llama cuando se pulsa el botón de añadir de un plato.
+         * @param plate El plato añadido.
+         */
+        void onPlateAdded(Plate plate);
+    }
 
     /**
      * Obtiene la posición actual.
@@ -42,13 +58,13 @@ public class PlateListAdapterParaAnadir extends ListAdapter<Plate, PlateViewHold
     /**
      * Constructor para PlateListAdapter.
      * @param diffCallback El callback para calcular las diferencias.
+     * @param mListener El receptor de los platos añadidos.
      */
     public PlateListAdapterParaAnadir(@NonNull DiffUtil.ItemCallback<Plate> diffCallback,
-                                      OrderDetailsViewModel mOrderDetailsViewMolder,
-                                      long orderid) {
+                                      OnPlateAddedListener mListener) {
         super(diffCallback);
-        this.mOrderDetailsViewMolder = mOrderDetailsViewMolder;
-        this.orderid = orderid;
+        this.mListener = mListener;
+        setHasStableIds(true);
     }
 
     /**
@@ -59,7 +75,28 @@ public class PlateListAdapterParaAnadir extends ListAdapter<Plate, PlateViewHold
      */
     @Override
     public PlateViewHolderParaAnadir onCreateViewHolder(ViewGroup parent, int viewType) {
-        return PlateViewHolderParaAnadir.create(parent);
+        PlateViewHolderParaAnadir holder = PlateViewHolderParaAnadir.create(parent);
+
+        holder.mAddButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    mListener.onPlateAdded(getItem(position));
+                }
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Devuelve el identificador estable de un plato.
+     * @param position La posición del plato.
+     * @return El id del plato.
+     */
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     /**
@@ -79,44 +116,30 @@ public class PlateListAdapterParaAnadir extends ListAdapter<Plate, PlateViewHold
     public void onBindViewHolder(PlateViewHolderParaAnadir holder, int position) {
         Plate p = getItem(position);
         holder.bind(p.getName(), p.getCategory());
-
-        holder.mAddButton.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                int plateid = p.getId();
-                float price = p.getPrize();
-                mOrderDetailsViewMolder.insert(new OrderDetails(orderid, plateid, 1,price));
-            }
-        });
     }
 
     /**
-     * Callback para calcular las diferencias entre platos antiguos y nuevos.
+     * Pinta solo lo que ha cambiado de un plato. El precio no se muestra en
+     * la fila, así que un cambio de precio no toca la vista.
+     * @param holder El PlateViewHolder.
+     * @param position La posición del plato.
+     * @param payloads Los cambios indicados por {@link PlateDiff#getChangePayload}.
      */
-    static class PlateDiff extends DiffUtil.ItemCallback<Plate> {
-
-        /**
-         * Comprueba si los elementos son iguales.
-         * @param oldItem El plato antiguo.
-         * @param newItem El nuevo plato.
-         * @return True si los elementos son iguales, false en caso contrario.
-         */
-        @Override
-        public boolean areItemsTheSame(@NonNull Plate oldItem,
-                                       @NonNull Plate newItem) {
-            return oldItem.getId() == newItem.getId();
+    @Override
+    public void onBindViewHolder(@NonNull PlateViewHolderParaAnadir holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else if ((PlateDiff.merge(payloads)
+                & (PlateListAdapter.PAYLOAD_NAME | PlateListAdapter.PAYLOAD_CATEGORY)) != 0) {
+            Plate p = getItem(position);
+            holder.bind(p.getName(), p.getCategory());
         }
+    }
 
-        /**
-         * Comprueba si el contenido de los elementos es el mismo.
-         * @param oldItem El plato antiguo.
-         * @param newItem El nuevo plato.
-         * @return True si el contenido es el mismo, false en caso contrario.
-         */
-        @Override
-        public boolean areContentsTheSame(@NonNull Plate oldItem, @NonNull Plate newItem) {
-            // Solo nos preocupamos por las diferencias en la representación visual, es decir, cambios en el nombre
-            return oldItem.getName().equals(newItem.getName());
-        }
+    /**
+     * Callback para calcular las diferencias entre platos antiguos y nuevos,
+     * el mismo que el de {@link PlateListAdapter}.
+     */
+    static class PlateDiff extends PlateListAdapter.PlateDiff {
     }
 }
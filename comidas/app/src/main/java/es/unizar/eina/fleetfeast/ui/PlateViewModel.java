@@ -4,11 +4,15 @@ import android.app.Application;
 
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import es.unizar.eina.fleetfeast.database.Plate;
+import es.unizar.eina.fleetfeast.database.PlateOrdering;
 import es.unizar.eina.fleetfeast.database.PlateRepository;
+import es.unizar.eina.fleetfeast.database.PlateSearch;
 
 /**
  * Clase PlateViewModel para gestionar los datos relacionados con la interfaz de usuario de la entidad Plate.
@@ -22,6 +26,22 @@ public class PlateViewModel extends AndroidViewModel {
     private PlateRepository mRepository;
     private final LiveData<List<Plate>> mAllPlates;
 
+    /** Tiempo que se espera a que el usuario deje de cambiar la ordenación. */
+    private static final long SORT_DEBOUNCE_MS = 150;
+
+    private final DebouncedLiveData<String> mSort = new DebouncedLiveData<>("name", SORT_DEBOUNCE_MS);
+    private final LiveData<String> mDistinctSort = Transformations.distinctUntilChanged(mSort);
+    private final LiveData<List<Plate>> mSortedPlates;
+
+    /** Tiempo que se espera a que el usuario deje de escribir en el buscador. */
+    private static final long SEARCH_DEBOUNCE_MS = 200;
+
+    private final DebouncedLiveData<String> mSearch = new DebouncedLiveData<>("", SEARCH_DEBOUNCE_MS);
+    // Consulta MATCH del buscador, o null si está vacío. Solo cambia cuando
+    // cambian las palabras buscadas, no con cada espacio o signo.
+    private final LiveData<String> mMatch = Transformations.distinctUntilChanged(
+            Transformations.map(mSearch, PlateSearch::toMatchQuery));
+
     /**
      * Constructor para PlateViewModel.
      * Inicializa el repositorio y recupera todos los platos de él.
@@ -31,6 +51,19 @@ public class PlateViewModel extends AndroidViewModel {
         super(application);
         mRepository = new PlateRepository(application);
         mAllPlates = mRepository.getAllPlates();
+        LiveData<List<Plate>> allSorted = Transformations.switchMap(mDistinctSort, mRepository::getAllPlatesSortBy);
+        mSortedPlates = Transformations.switchMap(mMatch, match -> match == null
+                ? allSorted
+                : sorted(mRepository.searchPlates(match)));
+    }
+
+    /**
+     * Descarta la ordenación pendiente de aplicar al destruir el ViewModel.
+     */
+    @Override
+    protected void onCleared() {
+        mSort.cancel();
+        mSearch.cancel();
     }
 
     /**
@@ -49,40 +82,91 @@ public class PlateViewModel extends AndroidViewModel {
         return mAllPlates;
     }
 
-    LiveData<List<Plate>> getAllPlatesSortBy(String sort) {
-        return mRepository.getAllPlatesSortBy(sort);
+    /**
+     * Cambia la ordenación de las listas de platos.
+     * Los cambios seguidos se agrupan y solo se aplica el último.
+     * @param sort "name", "category" o "both".
+     */
+    void setSort(String sort) {
+        mSort.setDebounced(sort);
+    }
+
+    /**
+     * Cambia el texto del buscador de las listas de platos.
+     * Igual que la ordenación, solo se busca cuando el usuario deja de escribir.
+     * @param text El texto escrito; si no tiene ninguna palabra se muestran todos los platos.
+     */
+    void setSearch(String text) {
+        mSearch.setDebounced(text);
+    }
+
+    /**
+     * Recupera la lista de todos los platos, o de los que coinciden con el
+     * buscador, con la ordenación actual.
+     * Es siempre el mismo LiveData: al cambiar la ordenación o la búsqueda se
+     * cambia la consulta de la que recibe los datos, no el objeto que se observa.
+     * @return LiveData<List<Plate>> con los platos ordenados.
+     */
+    LiveData<List<Plate>> getSortedPlates() {
+        return mSortedPlates;
+    }
+
+    /**
+     * Recupera la lista de los platos que no están en un pedido dado, o de los
+     * que además coinciden con el buscador, con la ordenación actual.
+     * @param orderid El identificador del pedido.
+     * @return LiveData<List<Plate>> con los platos ordenados.
+     */
+    LiveData<List<Plate>> getSortedPlatesNotInOrder(long orderid) {
+        LiveData<List<Plate>> allSorted = sorted(mRepository.getAllPlatesNotInOrder(orderid));
+        return Transformations.switchMap(mMatch, match -> match == null
+                ? allSorted
+                : sorted(mRepository.searchPlatesNotInOrder(match, orderid)));
+    }
+
+    /**
+     * Ordena en memoria una lista de platos con la ordenación actual.
+     * @param plates La lista de platos.
+     * @return LiveData<List<Plate>> con los platos ordenados.
+     */
+    private LiveData<List<Plate>> sorted(LiveData<List<Plate>> plates) {
+        return Transformations.switchMap(mDistinctSort,
+                sort -> Transformations.map(plates, list -> PlateOrdering.sort(list, sort)));
     }
 
     /**
      * Inserta un nuevo plato en el repositorio.
      * @param plate El plato que se va a insertar.
+     * @return Un futuro con el identificador del elemento insertado.
      */
-    public void insert(Plate plate) {
-        mRepository.insert(plate);
+    public CompletableFuture<Long> insert(Plate plate) {
+        return mRepository.insert(plate);
     }
 
     /**
      * Actualiza un plato existente en el repositorio.
      * @param plate El plato que se va a actualizar.
+     * @return Un futuro con el número de filas actualizadas.
      */
-    public void update(Plate plate) {
-        mRepository.update(plate);
+    public CompletableFuture<Integer> update(Plate plate) {
+        return mRepository.update(plate);
     }
 
     /**
      * Elimina un plato del repositorio.
      * @param plate El plato que se va a eliminar.
+     * @return Un futuro con el número de filas eliminadas.
      */
-    public void delete(Plate plate) {
-        mRepository.delete(plate);
+    public CompletableFuture<Integer> delete(Plate plate) {
+        return mRepository.delete(plate);
     }
 
     /**
-     * Devuelve el plato con un identificador dado.
+     * Devuelve el plato con un identificador dado sin bloquear al llamante.
      * @param plateId El identificador del plato.
-     * @return El plato con el identificador dado.
+     * @return Un futuro con el plato con el identificador dado.
      */
-    public Plate getPlateById(int plateId) {
+    public CompletableFuture<Plate> getPlateById(int plateId) {
         return mRepository.getPlateById(plateId);}
 
     /**
@@ -102,5 +186,4 @@ public class PlateViewModel extends AndroidViewModel {
     public long insertAndWait(Plate plate) {
         return mRepository.insertAndWait(plate);
     }
-
 }
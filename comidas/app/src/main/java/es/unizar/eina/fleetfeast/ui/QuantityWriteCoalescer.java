@@ -0,0 +1,114 @@
+package es.unizar.eina.fleetfeast.ui;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Pair;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import es.unizar.eina.fleetfeast.database.OrderDetails;
+import es.unizar.eina.fleetfeast.database.OrderDetailsWithPlate;
+
+/**
+ * Agrupa los cambios de cantidad de las líneas de un pedido en una sola
+ * escritura por línea.
+ *
+ * Cada pulsación de + o - deja pendiente la nueva cantidad de la línea y
+ * reinicia su plazo de {@link #IDLE_MILLIS}; cuando la línea deja de cambiar
+ * durante ese plazo, o al llamar a {@link #flush()}, se escribe solo la última
+ * cantidad. Diez pulsaciones seguidas son una sola escritura.
+ *
+ * Mientras una línea está pendiente, las listas que llegan de la base de datos
+ * todavía traen la cantidad anterior; {@link #applyPending(List)} les pone la
+ * cantidad pendiente para que la pantalla no retroceda ni se pierdan
+ * pulsaciones.
+ *
+ * Se usa solo desde el hilo principal.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+class QuantityWriteCoalescer {
+    /** Tiempo sin cambios tras el que se escribe la cantidad de una línea. */
+    static final long IDLE_MILLIS = 400;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Map<Pair<Long, Integer>, PendingWrite> mPending = new LinkedHashMap<>();
+    private final Consumer<OrderDetails> mWriter;
+
+    /**
+     * Escritura pendiente de una línea.
+     */
+    private class PendingWrite implements Runnable {
+        final Pair<Long, Integer> mKey;
+        OrderDetails mLine;
+
+        PendingWrite(Pair<Long, Integer> key) {
+            mKey = key;
+        }
+
+        @Override
+        public void run() {
+            mPending.remove(mKey);
+            mWriter.accept(mLine);
+        }
+    }
+
+    /**
+     * @param writer La escritura de una línea con su cantidad final.
+     */
+    QuantityWriteCoalescer(Consumer<OrderDetails> writer) {
+        mWriter = writer;
+    }
+
+    /**
+     * Deja pendiente la cantidad actual de una línea.
+     * @param line La línea, con la nueva cantidad. Se guarda una copia.
+     */
+    void submit(OrderDetails line) {
+        Pair<Long, Integer> key = Pair.create(line.getOrderId(), line.getPlateId());
+        PendingWrite pending = mPending.get(key);
+        if (pending == null) {
+            pending = new PendingWrite(key);
+            mPending.put(key, pending);
+        } else {
+            mHandler.removeCallbacks(pending);
+        }
+        pending.mLine = new OrderDetails(line.getOrderId(), line.getPlateId(),
+                line.getQuantity(), line.getPrizeCents());
+        mHandler.postDelayed(pending, IDLE_MILLIS);
+    }
+
+    /**
+     * Escribe ya todas las líneas pendientes, por ejemplo al salir de la pantalla.
+     */
+    void flush() {
+        List<PendingWrite> pending = new ArrayList<>(mPending.values());
+        for (PendingWrite write : pending) {
+            mHandler.removeCallbacks(write);
+            write.run();
+        }
+    }
+
+    /**
+     * Pone a las líneas leídas de la base de datos las cantidades que aún no
+     * se han escrito.
+     * @param lines Las líneas del pedido; se modifican.
+     */
+    void applyPending(List<OrderDetailsWithPlate> lines) {
+        if (mPending.isEmpty() || lines == null) {
+            return;
+        }
+        for (OrderDetailsWithPlate line : lines) {
+            OrderDetails details = line.getOrderDetails();
+            PendingWrite pending = mPending.get(Pair.create(details.getOrderId(), details.getPlateId()));
+            if (pending != null) {
+                details.setQuantity(pending.mLine.getQuantity());
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package es.unizar.eina.fleetfeast.ui;
+
+import android.content.Context;
+import android.widget.Toast;
+
+import java.util.List;
+
+import es.unizar.eina.fleetfeast.database.Validation;
+
+/**
+ * Muestra al usuario los errores de validación de un pedido o de un plato.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+final class ValidationErrors {
+    private ValidationErrors() {
+    }
+
+    /**
+     * Muestra los errores de validación de una entidad antes de guardarla.
+     * @param context El contexto en el que se muestra el mensaje.
+     * @param errors Los errores devueltos por {@link Validation}.
+     * @return true si había errores y la entidad no debe guardarse.
+     */
+    static boolean show(Context context, List<Validation.FieldError> errors) {
+        if (errors.isEmpty()) {
+            return false;
+        }
+        Toast.makeText(
+                context.getApplicationContext(),
+                Validation.describe(errors),
+                Toast.LENGTH_LONG).show();
+        return true;
+    }
+}
@@ -0,0 +1,101 @@
+package es.unizar.eina.fleetfeast.database;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas en la JVM de {@link Validation}: errores por campo de un pedido y de
+ * un plato, y errores por posición de una lista.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+public class ValidationTest {
+    private static Orders order(String name, long phone, long pickupMinutes, String state) {
+        return new Orders(name, phone, pickupMinutes, state);
+    }
+
+    private static Orders validOrder() {
+        return order("Abel", 123456789, 600, "SOLICITADO");
+    }
+
+    private static Plate validPlate() {
+        return new Plate("Gazpacho", "Sopa fría", "PRIMERO", 650);
+    }
+
+    @Test
+    public void validOrderHasNoErrors() {
+        assertTrue(Validation.isValidOrder(validOrder()));
+        assertTrue(Validation.validateOrder(validOrder()).isEmpty());
+    }
+
+    @Test
+    public void orderErrorsFollowFieldOrder() {
+        List<Validation.FieldError> errors = Validation.validateOrder(order("", 12345678, 0, "ENVIADO"));
+        assertFalse(Validation.isValidOrder(order("", 12345678, 0, "ENVIADO")));
+        assertEquals(Arrays.asList(Validation.EMPTY_NAME, Validation.BAD_PHONE,
+                Validation.BAD_PICKUP, Validation.BAD_STATE), errors);
+    }
+
+    @Test
+    public void phoneMustHaveNineDigits() {
+        assertTrue(Validation.validateOrder(order("Abel", 100000000, 600, "RECOGIDO")).isEmpty());
+        assertTrue(Validation.validateOrder(order("Abel", 999999999, 600, "RECOGIDO")).isEmpty());
+        assertEquals(Arrays.asList(Validation.BAD_PHONE),
+                Validation.validateOrder(order("Abel", 99999999, 600, "RECOGIDO")));
+        assertEquals(Arrays.asList(Validation.BAD_PHONE),
+                Validation.validateOrder(order("Abel", 1000000000L, 600, "RECOGIDO")));
+        assertEquals(Arrays.asList(Validation.BAD_PHONE),
+                Validation.validateOrder(order("Abel", -12345678, 600, "RECOGIDO")));
+    }
+
+    @Test
+    public void missingEntityIsReported() {
+        assertEquals(Arrays.asList(Validation.MISSING), Validation.validateOrder(null));
+        assertEquals(Arrays.asList(Validation.MISSING), Validation.validatePlate(null));
+    }
+
+    @Test
+    public void plateErrorsFollowFieldOrder() {
+        assertTrue(Validation.validatePlate(validPlate()).isEmpty());
+        Plate plate = new Plate("", "Sopa fría", "ENTRANTE", -1);
+        assertFalse(Validation.isValidPlate(plate));
+        assertEquals(Arrays.asList(Validation.EMPTY_NAME, Validation.BAD_CATEGORY,
+                Validation.NEGATIVE_PRICE), Validation.validatePlate(plate));
+        assertEquals(Validation.Field.CATEGORY, Validation.BAD_CATEGORY.getField());
+    }
+
+    @Test
+    public void batchReportsErrorsByPosition() {
+        List<Orders> orders = Arrays.asList(validOrder(), order("Abel", 123456789, 600, "ENVIADO"),
+                validOrder(), order("", 123456789, 600, "SOLICITADO"));
+        Map<Integer, List<Validation.FieldError>> errors = Validation.validateOrders(orders);
+        assertEquals(2, errors.size());
+        assertEquals(Arrays.asList(Validation.BAD_STATE), errors.get(1));
+        assertEquals(Arrays.asList(Validation.EMPTY_NAME), errors.get(3));
+
+        List<Plate> plates = Arrays.asList(new Plate("Tarta", "", "POSTRE", -5), validPlate());
+        Map<Integer, List<Validation.FieldError>> plateErrors = Validation.validatePlates(plates);
+        assertEquals(1, plateErrors.size());
+        assertEquals(Arrays.asList(Validation.NEGATIVE_PRICE), plateErrors.get(0));
+    }
+
+    @Test
+    public void validBatchHasNoErrors() {
+        assertTrue(Validation.validateOrders(Arrays.asList(validOrder(), validOrder())).isEmpty());
+        assertTrue(Validation.validatePlates(Arrays.asList(validPlate(), validPlate())).isEmpty());
+    }
+
+    @Test
+    public void describeJoinsMessagesByLine() {
+        assertEquals(Validation.EMPTY_NAME.getMessage() + "\n" + Validation.NEGATIVE_PRICE.getMessage(),
+                Validation.describe(Arrays.asList(Validation.EMPTY_NAME, Validation.NEGATIVE_PRICE)));
+        assertEquals("", Validation.describe(Collections.<Validation.FieldError>emptyList()));
+    }
+}
@@ -0,0 +1,57 @@
+package es.unizar.eina.fleetfeast.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import es.unizar.eina.fleetfeast.database.Plate;
+import es.unizar.eina.fleetfeast.database.PlateOrdering;
+
+/**
+ * Mide la ordenación en memoria de la carta que se hace al elegir platos para
+ * un pedido, cada vez que cambia el criterio o la lista de platos.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlateOrderingBenchmark {
+    private static final String[] CATEGORIES = {"PRIMERO", "SEGUNDO", "POSTRE"};
+
+    @Param({"50", "500"})
+    public int plates;
+
+    @Param({"name", "category", "both"})
+    public String sort;
+
+    private List<Plate> mPlates;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        mPlates = new ArrayList<>(plates);
+        for (int i = 0; i < plates; i++) {
+            mPlates.add(new Plate("Plato " + random.nextInt(plates * 10), "Descripción " + i,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], random.nextInt(3000)));
+        }
+        Collections.shuffle(mPlates, random);
+    }
+
+    @Benchmark
+    public List<Plate> sort() {
+        return PlateOrdering.sort(mPlates, sort);
+    }
+}
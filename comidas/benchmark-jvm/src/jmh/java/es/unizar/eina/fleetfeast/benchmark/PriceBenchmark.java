@@ -0,0 +1,88 @@
+package es.unizar.eina.fleetfeast.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import es.unizar.eina.fleetfeast.database.Money;
+import es.unizar.eina.fleetfeast.database.OrderDetails;
+import es.unizar.eina.fleetfeast.database.PickupTime;
+
+/**
+ * Mide el tratamiento de precios y fechas que se hace por línea o por
+ * pulsación: leer y mostrar un precio, sumar el total de un pedido en borrador
+ * y leer y mostrar la hora de recogida.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PriceBenchmark {
+    @Param({"5", "50"})
+    public int lines;
+
+    private List<OrderDetails> mLines;
+    private long mPickupMinutes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        mLines = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            mLines.add(new OrderDetails(1, i, 1 + random.nextInt(5), 100 + random.nextInt(2000)));
+        }
+        mPickupMinutes = PickupTime.parse("2030/01/01  20:00");
+    }
+
+    @Benchmark
+    public long parsePrice() {
+        return Money.parse("12.35").getCents();
+    }
+
+    @Benchmark
+    public String formatPrice() {
+        return Money.ofCents(1235).toString();
+    }
+
+    /** El cálculo que hace la pantalla de edición con un pedido en borrador. */
+    @Benchmark
+    public String draftTotal() {
+        long sum = 0;
+        for (OrderDetails line : mLines) {
+            sum += line.getPrizeCents() * line.getQuantity();
+        }
+        return Money.ofCents(sum).toString();
+    }
+
+    /** El mismo total sumando objetos Money, para comparar. */
+    @Benchmark
+    public String draftTotalWithMoney() {
+        Money sum = Money.ofCents(0);
+        for (OrderDetails line : mLines) {
+            sum = sum.plus(line.getPrize().times(line.getQuantity()));
+        }
+        return sum.toString();
+    }
+
+    @Benchmark
+    public long parsePickupTime() {
+        return PickupTime.parse("2030/01/01  20:00");
+    }
+
+    @Benchmark
+    public String formatPickupTime() {
+        return PickupTime.format(mPickupMinutes);
+    }
+}
@@ -0,0 +1,103 @@
+package es.unizar.eina.fleetfeast.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import es.unizar.eina.fleetfeast.database.Orders;
+import es.unizar.eina.fleetfeast.database.PickupTime;
+import es.unizar.eina.fleetfeast.database.Plate;
+import es.unizar.eina.fleetfeast.database.Validation;
+
+/**
+ * Mide las comprobaciones que hacen los repositorios antes de cada escritura
+ * de un pedido o un plato, con y sin el detalle de los campos que fallan, y
+ * la validación de una importación de {@link #BATCH_SIZE} pedidos o platos
+ * con uno de cada diez no válido.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    private Orders mValidOrder;
+    private Orders mInvalidOrder;
+    private Plate mValidPlate;
+    private Plate mInvalidPlate;
+    private List<Orders> mOrders;
+    private List<Plate> mPlates;
+
+    @Setup
+    public void setUp() {
+        long pickup = PickupTime.parse("2030/01/01  20:00");
+        mValidOrder = new Orders("Cliente", 600000000L, pickup, "RECOGIDO");
+        mInvalidOrder = new Orders("Cliente", 60000L, pickup, "RECOGIDO");
+        mValidPlate = new Plate("Plato", "Descripción", "POSTRE", 750);
+        mInvalidPlate = new Plate("Plato", "Descripción", "BEBIDA", 750);
+        mOrders = new ArrayList<>(BATCH_SIZE);
+        mPlates = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            mOrders.add(new Orders("Cliente " + i, i % 10 == 0 ? 60000L : 600000000L + i,
+                    pickup + i, "RECOGIDO"));
+            mPlates.add(new Plate("Plato " + i, "Descripción", i % 10 == 0 ? "BEBIDA" : "POSTRE", i));
+        }
+    }
+
+    @Benchmark
+    public boolean validOrder() {
+        return Validation.isValidOrder(mValidOrder);
+    }
+
+    @Benchmark
+    public boolean invalidOrder() {
+        return Validation.isValidOrder(mInvalidOrder);
+    }
+
+    @Benchmark
+    public boolean validPlate() {
+        return Validation.isValidPlate(mValidPlate);
+    }
+
+    @Benchmark
+    public boolean invalidPlate() {
+        return Validation.isValidPlate(mInvalidPlate);
+    }
+
+    @Benchmark
+    public List<Validation.FieldError> validateValidOrder() {
+        return Validation.validateOrder(mValidOrder);
+    }
+
+    @Benchmark
+    public List<Validation.FieldError> validateInvalidOrder() {
+        return Validation.validateOrder(mInvalidOrder);
+    }
+
+    @Benchmark
+    public List<Validation.FieldError> validateInvalidPlate() {
+        return Validation.validatePlate(mInvalidPlate);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Validation.FieldError>> validateOrderBatch() {
+        return Validation.validateOrders(mOrders);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Validation.FieldError>> validatePlateBatch() {
+        return Validation.validatePlates(mPlates);
+    }
+}
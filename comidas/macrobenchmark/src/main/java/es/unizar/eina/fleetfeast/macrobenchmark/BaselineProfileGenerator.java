@@ -0,0 +1,45 @@
+package es.unizar.eina.fleetfeast.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import kotlin.Unit;
+
+/**
+ * Genera el perfil de referencia de la aplicación recorriendo el arranque, las
+ * listas de platos y pedidos y la edición de un pedido.
+ *
+ * Necesita un dispositivo con root o un emulador sin Google Play. El fichero
+ * generado (en la salida de las pruebas instrumentadas) se copia sobre
+ * app/src/main/baseline-prof.txt.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+    @Rule
+    public BaselineProfileRule mBaselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() throws IOException {
+        Flows.seed();
+        mBaselineProfileRule.collect(Flows.PACKAGE, scope -> {
+            scope.pressHome();
+            scope.startActivityAndWait();
+            Flows.openPlates(scope);
+            Flows.flingList(scope);
+            scope.getDevice().pressBack();
+            Flows.openOrders(scope);
+            Flows.flingList(scope);
+            Flows.openFirstOrder(scope);
+            return Unit.INSTANCE;
+        });
+    }
+}
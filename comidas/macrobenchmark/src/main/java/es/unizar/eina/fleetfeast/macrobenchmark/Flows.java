@@ -0,0 +1,94 @@
+package es.unizar.eina.fleetfeast.macrobenchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Recorridos por la aplicación compartidos por los benchmarks y el generador
+ * del perfil de referencia.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+final class Flows {
+    static final String PACKAGE = "es.unizar.eina.fleetfeast";
+    static final int PLATES = 200;
+    static final int ORDERS = 10000;
+
+    private static final long TIMEOUT = 30000;
+    private static final int FLINGS = 5;
+
+    private Flows() {
+    }
+
+    /**
+     * Carga los datos de prueba abriendo MainActivity con los extras de
+     * semilla y espera a que termine. Los datos quedan en disco para el resto
+     * de iteraciones.
+     */
+    static void seed() throws IOException {
+        UiDevice device = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation());
+        device.executeShellCommand("am start -W -n " + PACKAGE + "/.ui.MainActivity"
+                + " --ei seed_plates " + PLATES + " --ei seed_orders " + ORDERS);
+        assertNotNull("No se han cargado los datos de prueba",
+                device.wait(Until.findObject(By.text("seed OK")), TIMEOUT));
+        device.executeShellCommand("am force-stop " + PACKAGE);
+    }
+
+    /**
+     * Abre la lista de pedidos desde la pantalla principal.
+     */
+    static void openOrders(MacrobenchmarkScope scope) {
+        openList(scope, "PEDIDOS");
+    }
+
+    /**
+     * Abre la lista de platos desde la pantalla principal.
+     */
+    static void openPlates(MacrobenchmarkScope scope) {
+        openList(scope, "PLATOS");
+    }
+
+    private static void openList(MacrobenchmarkScope scope, String button) {
+        UiDevice device = scope.getDevice();
+        device.wait(Until.findObject(By.res(PACKAGE, button)), TIMEOUT).click();
+        UiObject2 list = device.wait(Until.findObject(By.res(PACKAGE, "recyclerview")), TIMEOUT);
+        assertNotNull(list);
+        device.wait(Until.hasObject(By.res(PACKAGE, "textView")), TIMEOUT);
+    }
+
+    /**
+     * Desplaza la lista visible hacia abajo y vuelve hacia arriba.
+     */
+    static void flingList(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 list = device.findObject(By.res(PACKAGE, "recyclerview"));
+        // Evita que el gesto empiece en el borde y abra la navegación del sistema.
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < FLINGS; i++) {
+            list.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+        list.fling(Direction.UP);
+        device.waitForIdle();
+    }
+
+    /**
+     * Abre la edición del primer pedido de la lista con el menú contextual.
+     */
+    static void openFirstOrder(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        device.findObject(By.res(PACKAGE, "textView")).longClick();
+        device.wait(Until.findObject(By.text("Edit order")), TIMEOUT).click();
+        assertNotNull(device.wait(Until.findObject(By.res(PACKAGE, "recyclerview_plates")), TIMEOUT));
+    }
+}
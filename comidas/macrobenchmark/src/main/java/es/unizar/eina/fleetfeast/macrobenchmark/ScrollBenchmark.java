@@ -0,0 +1,94 @@
+package es.unizar.eina.fleetfeast.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Tiempos de fotograma al desplazarse por las listas de pedidos (10.000) y de
+ * platos (200) y al abrir un pedido, con el perfil de referencia instalado.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule mBenchmarkRule = new MacrobenchmarkRule();
+
+    @BeforeClass
+    public static void seed() throws IOException {
+        Flows.seed();
+    }
+
+    @Test
+    public void scrollOrders() {
+        mBenchmarkRule.measureRepeated(
+                Flows.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(),
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    scope.startActivityAndWait();
+                    Flows.openOrders(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Flows.flingList(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    @Test
+    public void scrollPlates() {
+        mBenchmarkRule.measureRepeated(
+                Flows.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(),
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    scope.startActivityAndWait();
+                    Flows.openPlates(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Flows.flingList(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    @Test
+    public void openOrder() {
+        mBenchmarkRule.measureRepeated(
+                Flows.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(),
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    scope.startActivityAndWait();
+                    Flows.openOrders(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Flows.openFirstOrder(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,64 @@
+package es.unizar.eina.fleetfeast.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Tiempo hasta el primer fotograma en un arranque en frío de MainActivity,
+ * sin compilar y con el perfil de referencia incluido en la aplicación.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule mBenchmarkRule = new MacrobenchmarkRule();
+
+    @BeforeClass
+    public static void seed() throws IOException {
+        Flows.seed();
+    }
+
+    @Test
+    public void startupNoCompilation() {
+        startup(new CompilationMode.None());
+    }
+
+    @Test
+    public void startupBaselineProfile() {
+        startup(new CompilationMode.Partial());
+    }
+
+    private void startup(CompilationMode compilationMode) {
+        mBenchmarkRule.measureRepeated(
+                Flows.PACKAGE,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
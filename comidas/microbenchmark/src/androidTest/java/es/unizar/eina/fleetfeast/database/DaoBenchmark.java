@@ -0,0 +1,320 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Microbenchmarks de las operaciones de PlateDao, OrdersDao y OrderDetailsDao
+ * sobre una base de datos en memoria y otra en disco con 1.000, 10.000 y
+ * 100.000 pedidos (tres líneas por pedido y una carta de 50 platos).
+ *
+ * Las consultas que devuelven LiveData se miden observando el primer valor;
+ * con {@link InstantTaskExecutorRule} la consulta se ejecuta en el mismo hilo,
+ * así que se mide lo mismo que paga la aplicación sin esperas entre hilos.
+ *
+ * Las inserciones deshacen lo insertado con el tiempo parado, para que todas
+ * las iteraciones trabajen sobre la misma base de datos.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@RunWith(Parameterized.class)
+public class DaoBenchmark {
+    private static final String DB_NAME = "microbenchmark";
+    private static final int PLATES = 50;
+    private static final int LINES_PER_ORDER = 3;
+    private static final int BULK_SIZE = 100;
+    private static final long PICKUP = PickupTime.parse("2030/01/01  20:00");
+    private static final String[] CATEGORIES = {"PRIMERO", "SEGUNDO", "POSTRE"};
+    private static final String[] STATES = {"SOLICITADO", "PREPARADO", "RECOGIDO"};
+
+    @Parameterized.Parameters(name = "{0}_{1}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{
+                {"memory", 1000}, {"memory", 10000}, {"memory", 100000},
+                {"disk", 1000}, {"disk", 10000}, {"disk", 100000}});
+    }
+
+    // La base de datos se llena una vez por cada combinación de parámetros y se
+    // reutiliza en todos los benchmarks de esa combinación.
+    private static FleetfeastRoomDatabase sDb;
+    private static String sDbKey;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Rule
+    public InstantTaskExecutorRule mInstantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final String mStorage;
+    private final int mOrders;
+
+    private FleetfeastRoomDatabase mDb;
+
+    public DaoBenchmark(String storage, int orders) {
+        mStorage = storage;
+        mOrders = orders;
+    }
+
+    @Before
+    public void setUp() {
+        String key = mStorage + "_" + mOrders;
+        if (!key.equals(sDbKey)) {
+            closeDatabase();
+            sDb = createDatabase();
+            populate(sDb);
+            sDbKey = key;
+        }
+        mDb = sDb;
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        closeDatabase();
+    }
+
+    @Test
+    public void insertPlate() {
+        PlateDao plateDao = mDb.plateDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Plate plate = new Plate("Plato nuevo", "Descripción", "POSTRE", 500);
+            long id = plateDao.insert(plate);
+            state.pauseTiming();
+            plate.setId((int) id);
+            plateDao.delete(plate);
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void insertOrder() {
+        OrdersDao ordersDao = mDb.ordersDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Orders order = new Orders("Cliente nuevo", 600000000L, PICKUP, "SOLICITADO");
+            long id = ordersDao.insert(order);
+            state.pauseTiming();
+            order.setId(id);
+            ordersDao.delete(order);
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void insertOrderDetails() {
+        OrderDetailsDao orderDetDao = mDb.orderDetDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            // Un pedido existente con un plato que todavía no tiene.
+            OrderDetails line = new OrderDetails(1, PLATES + 1, 2, 500);
+            orderDetDao.insert(line);
+            state.pauseTiming();
+            orderDetDao.delete(line);
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void insertOrdersBulk() {
+        OrdersDao ordersDao = mDb.ordersDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            List<Orders> orders = new ArrayList<>(BULK_SIZE);
+            for (int i = 0; i < BULK_SIZE; i++) {
+                orders.add(new Orders("Cliente nuevo " + i, 600000000L + i, PICKUP, "SOLICITADO"));
+            }
+            state.resumeTiming();
+
+            List<Long> ids = ordersDao.insertList(orders);
+
+            state.pauseTiming();
+            for (int i = 0; i < ids.size(); i++) {
+                orders.get(i).setId(ids.get(i));
+            }
+            ordersDao.deleteList(orders);
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void insertOrderWithDetailsBulk() {
+        OrderWithDetailsDao orderWithDetailsDao = mDb.orderWithDetailsDao();
+        OrdersDao ordersDao = mDb.ordersDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            Orders order = new Orders("Cliente nuevo", 600000000L, PICKUP, "SOLICITADO");
+            List<OrderDetails> lines = new ArrayList<>(PLATES);
+            for (int plateId = 1; plateId <= PLATES; plateId++) {
+                lines.add(new OrderDetails(0, plateId, 1, 500));
+            }
+            state.resumeTiming();
+
+            long id = orderWithDetailsDao.insertOrderWithDetails(order, lines);
+
+            state.pauseTiming();
+            orderWithDetailsDao.deleteDetailsByOrderId(id);
+            order.setId(id);
+            ordersDao.delete(order);
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void getAllPlatesNotInOrder() {
+        PlateDao plateDao = mDb.plateDao();
+        long orderId = mOrders / 2;
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            List<Plate> plates = firstValue(plateDao.getAllPlatesNotInOrder(orderId));
+            assertEquals(PLATES - LINES_PER_ORDER, plates.size());
+        }
+    }
+
+    @Test
+    public void getOrdersDetailsByOrderId() {
+        OrderDetailsDao orderDetDao = mDb.orderDetDao();
+        long orderId = mOrders / 2;
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            List<OrderDetails> lines = firstValue(orderDetDao.getOrdersDetailsByOrderId(orderId));
+            assertEquals(LINES_PER_ORDER, lines.size());
+        }
+    }
+
+    @Test
+    public void loadAllOrders() {
+        OrdersDao ordersDao = mDb.ordersDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            List<Orders> orders = firstValue(ordersDao.getOrderedOrders());
+            assertEquals(mOrders, orders.size());
+        }
+    }
+
+    @Test
+    public void loadAllOrderDetails() {
+        OrderDetailsDao orderDetDao = mDb.orderDetDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            List<OrderDetails> lines = firstValue(orderDetDao.getAllOrderDetails());
+            assertEquals(mOrders * LINES_PER_ORDER, lines.size());
+        }
+    }
+
+    @Test
+    public void loadAllPlates() {
+        PlateDao plateDao = mDb.plateDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            List<Plate> plates = firstValue(plateDao.getAllPlatesSortByCategory());
+            assertEquals(PLATES, plates.size());
+        }
+    }
+
+    /**
+     * Observa un LiveData hasta recibir su primer valor.
+     */
+    private static <T> T firstValue(LiveData<T> liveData) {
+        final List<T> values = new ArrayList<>(1);
+        Observer<T> observer = new Observer<T>() {
+            @Override
+            public void onChanged(T value) {
+                values.add(value);
+            }
+        };
+        liveData.observeForever(observer);
+        liveData.removeObserver(observer);
+        assertFalse(values.isEmpty());
+        return values.get(0);
+    }
+
+    /**
+     * Crea la base de datos vacía en memoria o en disco, con los mismos
+     * triggers que la de la aplicación.
+     */
+    private FleetfeastRoomDatabase createDatabase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        RoomDatabase.Builder<FleetfeastRoomDatabase> builder;
+        if ("memory".equals(mStorage)) {
+            builder = Room.inMemoryDatabaseBuilder(context, FleetfeastRoomDatabase.class);
+        } else {
+            context.deleteDatabase(DB_NAME);
+            builder = Room.databaseBuilder(context, FleetfeastRoomDatabase.class, DB_NAME);
+        }
+        return builder
+                .allowMainThreadQueries()
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        FleetfeastRoomDatabase.createOrderTotalsTriggers(db);
+                        FleetfeastRoomDatabase.createCustomerTriggers(db);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Llena la base de datos con la carta y los pedidos de la prueba.
+     */
+    private void populate(FleetfeastRoomDatabase db) {
+        db.runInTransaction(() -> {
+            List<Plate> plates = new ArrayList<>(PLATES);
+            for (int i = 1; i <= PLATES; i++) {
+                plates.add(new Plate("Plato " + i, "Descripción " + i,
+                        CATEGORIES[i % CATEGORIES.length], i * 100L));
+            }
+            db.plateDao().insertList(plates);
+
+            List<Orders> orders = new ArrayList<>(mOrders);
+            for (int i = 1; i <= mOrders; i++) {
+                orders.add(new Orders("Cliente " + i, 600000000L + i, PICKUP + i,
+                        STATES[i % STATES.length]));
+            }
+            List<Long> ids = db.ordersDao().insertList(orders);
+
+            List<OrderDetails> lines = new ArrayList<>(mOrders * LINES_PER_ORDER);
+            for (int i = 0; i < ids.size(); i++) {
+                for (int j = 0; j < LINES_PER_ORDER; j++) {
+                    lines.add(new OrderDetails(ids.get(i), (i + j) % PLATES + 1, j + 1, 500));
+                }
+            }
+            db.orderDetDao().insertList(lines);
+        });
+    }
+
+    private static void closeDatabase() {
+        if (sDb != null) {
+            sDb.close();
+            sDb = null;
+            sDbKey = null;
+            InstrumentationRegistry.getInstrumentation().getTargetContext().deleteDatabase(DB_NAME);
+        }
+    }
+}
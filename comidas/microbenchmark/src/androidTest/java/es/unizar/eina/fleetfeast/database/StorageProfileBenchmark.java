@@ -0,0 +1,194 @@
+package es.unizar.eina.fleetfeast.database;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compara los {@link StorageProfile} sobre una base de datos en disco con
+ * 1.000 y 10.000 pedidos: inserción de un pedido por transacción (lo que más
+ * depende de synchronous), inserción de 100 pedidos en una transacción y
+ * carga de la lista completa de pedidos (lo que más depende del modo de
+ * diario y, en LOW_MEMORY, de la caché). DEFAULT es la referencia.
+ *
+ * @author Abel Romeo
+ * @author Diego Roldán
+ */
+@RunWith(Parameterized.class)
+public class StorageProfileBenchmark {
+    private static final String DB_NAME = "storage-profile-benchmark";
+    private static final int BULK_SIZE = 100;
+    private static final long PICKUP = PickupTime.parse("2030/01/01  20:00");
+    private static final String[] STATES = {"SOLICITADO", "PREPARADO", "RECOGIDO"};
+
+    @Parameterized.Parameters(name = "{0}_{1}")
+    public static Collection<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (StorageProfile profile : StorageProfile.values()) {
+            parameters.add(new Object[]{profile, 1000});
+            parameters.add(new Object[]{profile, 10000});
+        }
+        return parameters;
+    }
+
+    // Igual que en DaoBenchmark, la base de datos se llena una vez por cada
+    // combinación de parámetros.
+    private static FleetfeastRoomDatabase sDb;
+    private static String sDbKey;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Rule
+    public InstantTaskExecutorRule mInstantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final StorageProfile mProfile;
+    private final int mOrders;
+
+    private FleetfeastRoomDatabase mDb;
+
+    public StorageProfileBenchmark(StorageProfile profile, int orders) {
+        mProfile = profile;
+        mOrders = orders;
+    }
+
+    @Before
+    public void setUp() {
+        String key = mProfile + "_" + mOrders;
+        if (!key.equals(sDbKey)) {
+            closeDatabase();
+            sDb = createDatabase();
+            populate(sDb);
+            sDbKey = key;
+        }
+        mDb = sDb;
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        closeDatabase();
+    }
+
+    @Test
+    public void insertOrder() {
+        OrdersDao ordersDao = mDb.ordersDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Orders order = new Orders("Cliente nuevo", 600000000L, PICKUP, "SOLICITADO");
+            long id = ordersDao.insert(order);
+            state.pauseTiming();
+            order.setId(id);
+            ordersDao.delete(order);
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void insertOrdersBulk() {
+        OrdersDao ordersDao = mDb.ordersDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            List<Orders> orders = new ArrayList<>(BULK_SIZE);
+            for (int i = 0; i < BULK_SIZE; i++) {
+                orders.add(new Orders("Cliente nuevo " + i, 600000000L + i, PICKUP, "SOLICITADO"));
+            }
+            state.resumeTiming();
+
+            List<Long> ids = ordersDao.insertList(orders);
+
+            state.pauseTiming();
+            for (int i = 0; i < ids.size(); i++) {
+                orders.get(i).setId(ids.get(i));
+            }
+            ordersDao.deleteList(orders);
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void loadAllOrders() {
+        OrdersDao ordersDao = mDb.ordersDao();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            List<Orders> orders = firstValue(ordersDao.getOrderedOrders());
+            assertEquals(mOrders, orders.size());
+        }
+    }
+
+    /**
+     * Observa un LiveData hasta recibir su primer valor.
+     */
+    private static <T> T firstValue(LiveData<T> liveData) {
+        final List<T> values = new ArrayList<>(1);
+        Observer<T> observer = values::add;
+        liveData.observeForever(observer);
+        liveData.removeObserver(observer);
+        assertFalse(values.isEmpty());
+        return values.get(0);
+    }
+
+    /**
+     * Crea la base de datos vacía en disco con el perfil de la prueba.
+     */
+    private FleetfeastRoomDatabase createDatabase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        RoomDatabase.Builder<FleetfeastRoomDatabase> builder =
+                Room.databaseBuilder(context, FleetfeastRoomDatabase.class, DB_NAME)
+                        .allowMainThreadQueries()
+                        .addCallback(new RoomDatabase.Callback() {
+                            @Override
+                            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                                FleetfeastRoomDatabase.createOrderTotalsTriggers(db);
+                                FleetfeastRoomDatabase.createCustomerTriggers(db);
+                            }
+                        });
+        return mProfile.applyTo(builder).build();
+    }
+
+    /**
+     * Llena la base de datos con los pedidos de la prueba.
+     */
+    private void populate(FleetfeastRoomDatabase db) {
+        db.runInTransaction(() -> {
+            List<Orders> orders = new ArrayList<>(mOrders);
+            for (int i = 1; i <= mOrders; i++) {
+                orders.add(new Orders("Cliente " + i, 600000000L + i, PICKUP + i,
+                        STATES[i % STATES.length]));
+            }
+            db.ordersDao().insertList(orders);
+        });
+    }
+
+    private static void closeDatabase() {
+        if (sDb != null) {
+            sDb.close();
+            sDb = null;
+            sDbKey = null;
+            InstrumentationRegistry.getInstrumentation().getTargetContext().deleteDatabase(DB_NAME);
+        }
+    }
+}